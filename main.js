@@ -164,6 +164,22 @@
   let remoteProjectiles = []; // 원격 플레이어의 투사체
   let serverUrl = null;
 
+  // 입력 모드 (서버가 connected 에 inputMode 를 보내면 켜짐)
+  // 위치 대신 번호 붙은 입력을 inputHz 로 보내고, 내 플레이어는 같은 입력으로 미리 움직인 뒤(예측)
+  // state 의 inputSeq 이후 입력만 서버 위치에서 다시 적용해서 맞춤
+  let inputMode = false;
+  let inputHz = 60;
+  let inputSeq = 0;
+  let inputAcc = 0;
+  let pendingInputs = []; // 서버가 아직 처리하지 않은 입력 { seq, mx, my, dash }
+  let statSyncAcc = 0;
+  // 호스트 위치 전송 간격 (서버는 틱마다 합쳐서 보내므로 고주사율 화면에서도 프레임마다 보낼 필요 없음)
+  const POSITION_SEND_INTERVAL = 1 / 60;
+  let positionSendAcc = 0;
+  // 원격 플레이어 보간: state.ts(서버 ms) 를 로컬 시각으로 옮기는 차이와 보여줄 지연
+  const INTERP_DELAY_MS = 100;
+  let serverClockOffset = null;
+
   // 캐릭터 타입: "gun" (총) 또는 "sword" (칼)
   let player1CharacterType = "gun";
   let player2CharacterType = "gun";
@@ -455,6 +471,8 @@
     myPlayerId = null;
     remotePlayers = {};
     serverUrl = null;
+    inputMode = false;
+    pendingInputs = [];
 
     // 게임 상태 리셋
     started = false;
@@ -1315,6 +1333,12 @@
         clientId = data.clientId;
         myPlayerId = data.playerId;
         isHost = data.isHost;
+        inputMode = !!data.inputMode;
+        inputHz = data.inputHz || 60;
+        inputSeq = 0;
+        inputAcc = 0;
+        pendingInputs = [];
+        serverClockOffset = null;
         console.log(`연결됨: ${myPlayerId} (${isHost ? "호스트" : "클라이언트"})`);
 
         // Tailscale IP 정보 저장 (호스트든 게스트든 저장)
@@ -1341,17 +1365,29 @@
 
       case "state":
         // 서버 상태 동기화
+        if (data.state.ts !== undefined) {
+          // 가장 빨리 도착한 스냅샷 기준으로 서버 시각을 맞춤 (늦게 온 건 천천히만 반영)
+          const offset = data.state.ts - performance.now();
+          if (serverClockOffset === null || offset > serverClockOffset) serverClockOffset = offset;
+          else serverClockOffset += (offset - serverClockOffset) * 0.02;
+        }
+        if (inputMode && data.state.players && data.state.players[myPlayerId]) {
+          reconcile(data.state.players[myPlayerId]);
+        }
         if (data.state.players) {
           Object.keys(data.state.players).forEach((pid) => {
             if (pid !== myPlayerId) {
               if (!remotePlayers[pid]) {
-                remotePlayers[pid] = { ...data.state.players[pid] };
+                remotePlayers[pid] = { ...data.state.players[pid], snapshots: [] };
               } else {
-                // 부드러운 보간 (lerp) - 위치만 보간, 능력치는 즉시 업데이트
+                // 위치는 스냅샷 버퍼에 쌓아두고 그려질 때 시각 기준으로 보간 (ts 가 없는 서버면 예전처럼 lerp)
+                // 능력치는 즉시 업데이트
                 const rp = remotePlayers[pid];
                 const sp = data.state.players[pid];
-                rp.x = lerp(rp.x, sp.x, 0.3);
-                rp.y = lerp(rp.y, sp.y, 0.3);
+                if (data.state.ts === undefined) {
+                  rp.x = lerp(rp.x, sp.x, 0.3);
+                  rp.y = lerp(rp.y, sp.y, 0.3);
+                }
                 // 능력치는 즉시 업데이트 (서버에서 받은 값 사용)
                 rp.hp = sp.hp;
                 rp.hpMax = sp.hpMax;
@@ -1365,6 +1401,11 @@
                 rp.projSize = sp.projSize;
                 rp.projCount = sp.projCount || 1;
               }
+              if (data.state.ts !== undefined) {
+                const buf = remotePlayers[pid].snapshots;
+                buf.push({ ts: data.state.ts, x: data.state.players[pid].x, y: data.state.players[pid].y });
+                if (buf.length > 30) buf.shift();
+              }
             }
           });
           // 서버에서 사라진 플레이어 제거
@@ -1414,6 +1455,43 @@
     }
   }
 
+  // 서버가 inputSeq 까지 처리한 위치에서 아직 처리하지 않은 입력을 다시 적용
+  function reconcile(sp) {
+    if (sp.inputSeq === undefined) return;
+    pendingInputs = pendingInputs.filter((i) => i.seq > sp.inputSeq);
+    player1.x = sp.x;
+    player1.y = sp.y;
+    player1.vx = sp.vx;
+    player1.vy = sp.vy;
+    player1.dashCd = sp.dashCd;
+    player1.dashTime = sp.dashTime || 0;
+    const step = 1 / inputHz;
+    for (const i of pendingInputs) {
+      stepMovement(player1, i.mx, i.my, i.dash, step);
+    }
+  }
+
+  // 원격 플레이어 위치: INTERP_DELAY_MS 전 서버 시각을 앞뒤 스냅샷 사이에서 보간 (외삽은 하지 않음)
+  function interpolateRemotePlayers(now) {
+    if (serverClockOffset === null) return;
+    const renderTs = now + serverClockOffset - INTERP_DELAY_MS;
+    Object.values(remotePlayers).forEach((rp) => {
+      const buf = rp.snapshots;
+      if (!buf || buf.length === 0) return;
+      while (buf.length >= 2 && buf[1].ts <= renderTs) buf.shift();
+      const a = buf[0];
+      const b = buf[1];
+      if (!b || renderTs <= a.ts) {
+        rp.x = a.x;
+        rp.y = a.y;
+      } else {
+        const k = (renderTs - a.ts) / (b.ts - a.ts);
+        rp.x = lerp(a.x, b.x, k);
+        rp.y = lerp(a.y, b.y, k);
+      }
+    });
+  }
+
   function sendToServer(data) {
     if (ws && ws.readyState === WebSocket.OPEN) {
       ws.send(JSON.stringify(data));
@@ -2052,11 +2130,41 @@
     if (!state.paused && !state.gameOver && !choosing) {
       update(state.dt);
     }
+    interpolateRemotePlayers(now);
     render();
 
     requestAnimationFrame(frame);
   }
 
+  // 대시 타이머 -> 대시 시작 -> 속도 보간 -> 위치 (서버 PlayerInput.applyTo 와 같은 순서/상수)
+  // 입력 모드에서는 서버 위치에서 입력을 다시 적용할 때도 씀. 대시를 시작했으면 true
+  function stepMovement(p, mx, my, dash, dt) {
+    if (p.dashCd > 0) p.dashCd -= dt;
+    if (p.dashTime > 0) p.dashTime -= dt;
+
+    let dashed = false;
+    if (dash && p.dashCd <= 0 && (mx !== 0 || my !== 0)) {
+      p.dashTime = p.dashTimeMax;
+      p.dashCd = p.dashCdMax;
+      dashed = true;
+    }
+
+    // Smooth movement
+    const speed = p.dashTime > 0 ? p.dashSpeed : p.speed;
+    const accel = p.dashTime > 0 ? 26 : 16;
+    p.vx = lerp(p.vx, mx * speed, 1 - Math.exp(-accel * dt));
+    p.vy = lerp(p.vy, my * speed, 1 - Math.exp(-accel * dt));
+
+    p.x += p.vx * dt;
+    p.y += p.vy * dt;
+    return dashed;
+  }
+
+  function onDashStart(p) {
+    p.invuln = Math.max(p.invuln, 0.12);
+    camera.shake = Math.max(camera.shake, 5);
+  }
+
   function update(dt) {
     if (!started) return;
     state.t += dt;
@@ -2075,10 +2183,7 @@
         p.hp = Math.min(p.hpMax, p.hp + p.regen * dt);
       }
 
-      // Dash timers
-      if (p.dashCd > 0) p.dashCd -= dt;
       if (p.invuln > 0) p.invuln -= dt;
-      if (p.dashTime > 0) p.dashTime -= dt;
 
       const ix = (inp.right ? 1 : 0) - (inp.left ? 1 : 0);
       const iy = (inp.down ? 1 : 0) - (inp.up ? 1 : 0);
@@ -2086,28 +2191,26 @@
     let my = iy;
       if (mx !== 0 || my !== 0) [mx, my] = norm(mx, my);
 
-      let speed = p.speed;
-
-    // Start dash
-      if (inp.dashPressed) {
+      const networked = ws && ws.readyState === WebSocket.OPEN && myPlayerId && p === player1;
+      if (inputMode && networked) {
+        // 입력 모드: 고정 주기로 입력을 보내고 같은 입력으로 바로 움직임 (서버 결과는 state 에서 맞춤)
+        const step = 1 / inputHz;
+        inputAcc += dt;
+        while (inputAcc >= step) {
+          inputAcc -= step;
+          const input = { seq: ++inputSeq, mx, my, dash: inp.dashPressed };
+          inp.dashPressed = false;
+          sendToServer({ type: "input", ...input });
+          pendingInputs.push(input);
+          // 서버 응답이 2초 넘게 없으면 오래된 것부터 버림
+          if (pendingInputs.length > inputHz * 2) pendingInputs.shift();
+          if (stepMovement(p, mx, my, input.dash, step)) onDashStart(p);
+        }
+      } else {
+        const dash = inp.dashPressed;
         inp.dashPressed = false;
-        if (p.dashCd <= 0 && (mx !== 0 || my !== 0)) {
-          p.dashTime = p.dashTimeMax;
-          p.dashCd = p.dashCdMax;
-          p.invuln = Math.max(p.invuln, 0.12);
-        camera.shake = Math.max(camera.shake, 5);
+        if (stepMovement(p, mx, my, dash, dt)) onDashStart(p);
       }
-    }
-
-      if (p.dashTime > 0) speed = p.dashSpeed;
-
-    // Smooth movement
-    const targetVx = mx * speed;
-    const targetVy = my * speed;
-      const accel = p.dashTime > 0 ? 26 : 16;
-
-      p.vx = lerp(p.vx, targetVx, 1 - Math.exp(-accel * dt));
-      p.vy = lerp(p.vy, targetVy, 1 - Math.exp(-accel * dt));
 
       // 마지막 이동 방향 저장 (칼 캐릭터 시야 방향용)
       if (Math.abs(p.vx) > 0.1 || Math.abs(p.vy) > 0.1) {
@@ -2116,11 +2219,37 @@
         p.lastFacingAngle = 0; // 기본 방향 (오른쪽)
       }
 
-      p.x += p.vx * dt;
-      p.y += p.vy * dt;
+      // 입력 모드: 위치는 입력으로 가므로 능력치만 가끔 보냄
+      if (inputMode && networked) {
+        statSyncAcc += dt;
+        if (statSyncAcc >= 0.5) {
+          statSyncAcc = 0;
+          sendToServer({
+            type: "playerUpdate",
+            playerId: myPlayerId,
+            player: {
+              hp: p.hp,
+              hpMax: p.hpMax,
+              level: p.level,
+              damage: p.damage,
+              fireRate: p.fireRate,
+              pierce: p.pierce,
+              pickup: p.pickup,
+              dashCdMax: p.dashCdMax,
+              projSize: p.projSize,
+              projCount: p.projCount || 1,
+              speed: p.speed,
+            },
+          });
+        }
+      }
 
-      // 네트워크 멀티플레이: 플레이어 위치와 능력치를 서버에 전송 (호스트만)
-      if (ws && ws.readyState === WebSocket.OPEN && isHost && myPlayerId && p === player1) {
+      // 네트워크 멀티플레이: 플레이어 위치와 능력치를 서버에 전송 (호스트만, 최대 60Hz)
+      if (!inputMode && networked && isHost) {
+        positionSendAcc += dt;
+      }
+      if (!inputMode && networked && isHost && positionSendAcc >= POSITION_SEND_INTERVAL) {
+        positionSendAcc = Math.min(positionSendAcc - POSITION_SEND_INTERVAL, POSITION_SEND_INTERVAL);
         sendToServer({
           type: "playerUpdate",
           playerId: myPlayerId,
@@ -0,0 +1,143 @@
+package com.vampiresurvivor.server;
+
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+// 벤치마크용 게임 상태 (Room.join 과 같은 초기값의 플레이어 n명), 엔티티, 가짜 연결로 채운 방
+// 난수는 고정 시드라서 실행마다 같은 상태가 만들어짐
+final class BenchFixtures {
+    // 벤치마크 방은 start() 하지 않으므로 틱은 돌지 않음
+    // 방 명령 비우기는 부른 스레드에서 바로 실행 (벤치마크 스레드가 방 스레드 역할. 큐에 넣고 꺼내는 비용까지 측정에 포함)
+    private static final ScheduledExecutorService WORKER = new ScheduledThreadPoolExecutor(0) {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private BenchFixtures() {
+    }
+
+    static GameServer.GameState stateWithPlayers(int players) {
+        GameServer.GameState state = new GameServer.GameState();
+        for (int i = 0; i < players; i++) {
+            GameServer.PlayerData p = new GameServer.PlayerData();
+            p.id = "P" + (i + 1);
+            p.x = i * 40 + 0.37f * i;
+            p.y = -13.25f * i;
+            p.vx = 120.5f;
+            p.vy = -33.125f;
+            p.hp = 100;
+            p.hpMax = 100;
+            p.level = 1 + i % 7;
+            p.color = i == 0 ? "rgba(232,238,255,0.92)" : "rgba(124,92,255,0.95)";
+            p.damage = 9;
+            p.fireRate = 2.24f;
+            p.pickup = 70;
+            p.projSize = 4;
+            p.projCount = 1;
+            p.dashCdMax = 1.1f;
+            state.players.put(p.id, p);
+        }
+        state.started = true;
+        state.t = 42.125;
+        state.playersVersion++;
+        return state;
+    }
+
+    // 브라우저(main.js)가 보내는 것과 같은 모양의 playerUpdate
+    static String playerUpdateMessage(String playerId) {
+        return "{\"type\":\"playerUpdate\",\"playerId\":\"" + playerId + "\",\"player\":{"
+            + "\"x\":-412.83154296875,\"y\":187.06219482421875,\"vx\":-168.2,\"vy\":96.1,"
+            + "\"hp\":87.5,\"hpMax\":120,\"level\":6,\"damage\":13.5,\"fireRate\":3.02,\"pierce\":1,"
+            + "\"pickup\":91,\"dashCd\":0.43000000000000005,\"dashCdMax\":1.1,\"projSize\":5.2,\"projCount\":2}}";
+    }
+
+    // 엔티티 n개를 플레이어들 주변에 흩어 놓음 (적 70%, 투사체 20%, 경험치 구슬 10%)
+    static void addEntities(GameServer.GameState state, int entities) {
+        Random rng = new Random(42);
+        GameServer.PlayerData[] players = state.players.values().toArray(new GameServer.PlayerData[0]);
+        Simulation sim = state.sim;
+        for (int n = 0; n < entities; n++) {
+            GameServer.PlayerData around = players[n % players.length];
+            float x = around.x + (rng.nextFloat() - 0.5f) * 1600;
+            float y = around.y + (rng.nextFloat() - 0.5f) * 1200;
+            int kind = n % 10;
+            if (kind < 7) {
+                int e = sim.enemies.add();
+                sim.enemies.kind[e] = (byte) (n % Simulation.KIND_NAMES.length);
+                sim.enemies.x[e] = x;
+                sim.enemies.y[e] = y;
+                sim.enemies.r[e] = 12;
+                sim.enemies.hp[e] = 26 + rng.nextInt(40);
+                sim.enemies.hpMax[e] = 66;
+                sim.enemies.speed[e] = 60;
+                sim.enemies.damage[e] = 12;
+            } else if (kind < 9) {
+                int p = sim.projectiles.add();
+                sim.projectiles.x[p] = x;
+                sim.projectiles.y[p] = y;
+                sim.projectiles.vx[p] = (rng.nextFloat() - 0.5f) * 2 * Simulation.PROJ_SPEED;
+                sim.projectiles.vy[p] = (rng.nextFloat() - 0.5f) * 2 * Simulation.PROJ_SPEED;
+                sim.projectiles.r[p] = 4;
+                sim.projectiles.timer[p] = Simulation.PROJ_LIFE;
+            } else {
+                int o = sim.orbs.add();
+                sim.orbs.x[o] = x;
+                sim.orbs.y[o] = y;
+                sim.orbs.r[o] = Simulation.ORB_RADIUS;
+                sim.orbs.value[o] = 1 + rng.nextInt(5);
+            }
+        }
+    }
+
+    // 한 틱 동안 움직인 것처럼 위치를 조금씩 바꿈 (델타에 바뀐 필드가 생기도록)
+    static void advance(GameServer.GameState state, Random rng) {
+        for (GameServer.PlayerData p : state.players.values()) {
+            p.x += p.vx / 30;
+            p.y += p.vy / 30;
+        }
+        EntityStore[] stores = {state.sim.enemies, state.sim.projectiles, state.sim.orbs};
+        for (EntityStore es : stores) {
+            for (int i = 0; i < es.size; i++) {
+                if (es == state.sim.orbs && rng.nextInt(8) != 0) continue;
+                es.x[i] += (rng.nextFloat() - 0.5f) * 4;
+                es.y[i] += (rng.nextFloat() - 0.5f) * 4;
+            }
+        }
+        state.t += 1.0 / 30;
+    }
+
+    // 가짜 연결 clients 개가 들어와 있는 방 (binaryClients 개는 바이너리 프로토콜)
+    static Room roomWithClients(int clients, int binaryClients, int entities) {
+        return roomWithClients(clients, binaryClients, entities, false);
+    }
+
+    // deflate 면 모든 가짜 연결이 permessage-deflate 를 협상한 상태
+    static Room roomWithClients(int clients, int binaryClients, int entities, boolean deflate) {
+        Room room = new Room("bench", "벤치마크", WORKER);
+        for (int i = 0; i < clients; i++) {
+            MockConnection conn = new MockConnection(deflate);
+            ClientSession session = new ClientSession("bench-" + i, conn, i < binaryClients);
+            conn.setAttachment(session);
+            room.join(session);
+        }
+        addEntities(room.gameState, entities);
+        return room;
+    }
+
+    static MockConnection connection(ClientSession session) {
+        return (MockConnection) session.conn;
+    }
+
+    // 클라이언트가 보내는 투사체 메시지 (main.js 와 같은 모양)
+    static String projectileMessage(String playerId) {
+        return "{\"type\":\"projectile\",\"playerId\":\"" + playerId + "\",\"projectile\":{"
+            + "\"x\":-398.5,\"y\":171.25,\"vx\":412.7,\"vy\":-80.3,\"r\":4,\"damage\":9,\"pierce\":0,\"knock\":120,\"life\":1.35}}";
+    }
+
+    static String ackMessage(long seq) {
+        return "{\"type\":\"ack\",\"seq\":" + seq + "}";
+    }
+}
@@ -0,0 +1,77 @@
+package com.vampiresurvivor.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 같은 상태 메시지를 방의 모든 클라이언트에게 보내기 (가짜 연결이라 소켓 쓰기는 빠지고 프레이밍까지만)
+// - perClientString: 연결마다 conn.send(String) (연결마다 UTF-8 인코딩과 프레임 생성)
+// - sharedFrame: room.broadcast() (SharedFrame 으로 한 번만 인코딩)
+// - stateTick: 스냅샷 생성부터 전송까지 상태 틱 한 번 전체 (Room.tickState)
+//   기본 설정이면 공유 스냅샷 하나를 모두에게 보냄
+//   (관심 영역 필터로 클라이언트마다 따로 만드는 경로는 -jvmArgsAppend -Dsurvivors.aoiRadius=800)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadcastFanoutBench {
+    @Param({"4", "16", "64"})
+    int clients;
+
+    @Param({"300"})
+    int entities;
+
+    private Room room;
+    private List<ClientSession> sessions;
+    private String message;
+
+    @Setup
+    public void setup() {
+        room = BenchFixtures.roomWithClients(clients, 0, entities);
+        sessions = room.sessions();
+        JsonStringWriter w = JsonStringWriter.local();
+        w.beginObject();
+        w.name("type").value("state");
+        w.name("seq").value(1L);
+        w.name("state");
+        room.gameState.writeJson(w, null);
+        w.endObject();
+        message = w.toString();
+    }
+
+    @Benchmark
+    public long perClientString() {
+        long bytes = 0;
+        for (ClientSession client : sessions) {
+            client.send(message);
+            bytes += BenchFixtures.connection(client).bytes;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public long sharedFrame() {
+        room.broadcast(message, null);
+        return BenchFixtures.connection(sessions.get(0)).bytes;
+    }
+
+    @Benchmark
+    public long stateTick() {
+        room.markStateDirty();
+        room.tickState();
+        return BenchFixtures.connection(sessions.get(0)).bytes;
+    }
+}
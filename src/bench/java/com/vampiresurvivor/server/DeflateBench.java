@@ -0,0 +1,109 @@
+package com.vampiresurvivor.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// permessage-deflate 의 대역폭 대 CPU (가짜 연결이 deflate 를 협상한 상태, 프레이밍과 압축까지)
+// - sharedFrame: 같은 state 메시지를 방 전체에 (room.broadcast, 압축은 한 번)
+// - perClientString: 연결마다 send(String) (연결마다 압축. 공유 프레임 없이 라이브러리 확장만 쓰는 경우와 같음)
+// - stateTick: 한 틱 진행 후 상태 틱 전체 (관심 영역 필터가 켜져 있으면 클라이언트마다 다른 스냅샷이라 연결마다 압축)
+// 시행(trial)이 끝나면 한 번에 나간 바이트(프레임 헤더 포함, wire)와 압축 전 크기(raw)를 출력
+// 압축 레벨/임계값/컨텍스트 이어 쓰기는 -jvmArgsAppend -Dsurvivors.deflateLevel=6 등으로 바꿔서 비교
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeflateBench {
+    @Param({"4", "16", "64"})
+    int clients;
+
+    @Param({"300", "1500"})
+    int entities;
+
+    @Param({"false", "true"})
+    boolean deflate;
+
+    private Room room;
+    private List<ClientSession> sessions;
+    private String message;
+    private final Random rng = new Random(11);
+    private long ops = 0;
+    private long wireAtStart = 0;
+    private long rawAtStart = 0;
+
+    @Setup
+    public void setup() {
+        room = BenchFixtures.roomWithClients(clients, 0, entities, deflate);
+        sessions = room.sessions();
+        JsonStringWriter w = JsonStringWriter.local();
+        w.beginObject();
+        w.name("type").value("state");
+        w.name("seq").value(1L);
+        w.name("state");
+        room.gameState.writeJson(w, null);
+        w.endObject();
+        message = w.toString();
+        wireAtStart = wireBytes();
+        rawAtStart = Metrics.bytesOut.sum();
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        if (ops == 0) return;
+        System.out.println(String.format("%n   [clients=%d entities=%d deflate=%s] wire %.0f B/op (raw %.0f B/op, %.1f%%)",
+            clients, entities, deflate, (wireBytes() - wireAtStart) / (double) ops, (Metrics.bytesOut.sum() - rawAtStart) / (double) ops,
+            (wireBytes() - wireAtStart) * 100.0 / (Metrics.bytesOut.sum() - rawAtStart)));
+    }
+
+    @Benchmark
+    public long sharedFrame() {
+        ops++;
+        room.broadcast(message, null);
+        return BenchFixtures.connection(sessions.get(0)).bytes;
+    }
+
+    @Benchmark
+    public long perClientString() {
+        ops++;
+        long bytes = 0;
+        for (ClientSession client : sessions) {
+            client.send(message);
+            bytes += BenchFixtures.connection(client).bytes;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public long stateTick() {
+        ops++;
+        BenchFixtures.advance(room.gameState, rng);
+        room.markStateDirty();
+        room.tickState();
+        return BenchFixtures.connection(sessions.get(0)).bytes;
+    }
+
+    private long wireBytes() {
+        long sum = 0;
+        for (ClientSession client : sessions) {
+            sum += BenchFixtures.connection(client).bytes;
+        }
+        return sum;
+    }
+}
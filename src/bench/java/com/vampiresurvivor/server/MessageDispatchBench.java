@@ -0,0 +1,100 @@
+package com.vampiresurvivor.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// 받은 텍스트 메시지 하나 처리 (GameServer.handleText: 파싱 -> 방 명령 큐 -> 처리. 벤치마크에서는 큐를 바로 비움)
+// - playerUpdate: PlayerUpdate 로 바로 읽어 플레이어에 반영
+// - projectile: Gson 파싱 후 방의 다른 클라이언트 (clients - 1명) 에게 중계 (가짜 연결에서 프레이밍까지)
+// - ack: Gson 파싱 후 델타 기준 갱신
+// - malformed: 파싱에 실패하는 메시지 (오류 로그 경로)
+// -p record=true 면 경기 기록을 켠 채로 (반복마다 임시 디렉터리에 새 파일, 끝나면 지움)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageDispatchBench {
+    @Param({"4", "16"})
+    int clients;
+
+    @Param({"false"})
+    boolean record;
+
+    private Room room;
+    private Path recordDir;
+    private ClientSession sender;
+    private String playerUpdate;
+    private String projectile;
+    private String ack;
+    private String malformed;
+
+    @Setup
+    public void setup() {
+        room = BenchFixtures.roomWithClients(clients, 0, 0);
+        sender = room.sessions().get(0);
+        playerUpdate = BenchFixtures.playerUpdateMessage(sender.playerId);
+        projectile = BenchFixtures.projectileMessage(sender.playerId);
+        ack = BenchFixtures.ackMessage(0);
+        malformed = "{\"type\":\"projectile\",\"projectile\":";
+    }
+
+    @Setup(Level.Iteration)
+    public void startRecording() throws IOException {
+        if (!record) return;
+        recordDir = Files.createTempDirectory("bench-rec");
+        room.startRecording(recordDir);
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopRecording() throws IOException {
+        if (!record) return;
+        room.stopRecording();
+        try (Stream<Path> files = Files.walk(recordDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long playerUpdate() {
+        GameServer.handleText(sender, playerUpdate);
+        return sender.messagesIn;
+    }
+
+    @Benchmark
+    public long projectile() {
+        GameServer.handleText(sender, projectile);
+        return sender.messagesIn;
+    }
+
+    @Benchmark
+    public long ack() {
+        GameServer.handleText(sender, ack);
+        return sender.messagesIn;
+    }
+
+    @Benchmark
+    public long malformed() {
+        GameServer.handleText(sender, malformed);
+        return sender.messagesIn;
+    }
+}
@@ -0,0 +1,187 @@
+package com.vampiresurvivor.server;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.enums.HandshakeState;
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.enums.ReadyState;
+import org.java_websocket.exceptions.InvalidHandshakeException;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.handshake.HandshakeImpl1Client;
+import org.java_websocket.protocols.IProtocol;
+
+import javax.net.ssl.SSLSession;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+
+// 소켓 없는 WebSocket 연결 (벤치마크용)
+// send/sendFrame 은 WebSocketImpl 과 같이 Draft_6455 로 프레임을 만들고 헤더를 붙인 바이트까지 만든 뒤 버림
+// (소켓 쓰기와 셀렉터 스레드 비용은 빠지고, 연결마다 드는 인코딩/프레이밍 비용만 남음)
+// deflate 면 서버처럼 DeflateExtension 으로 permessage-deflate 를 협상한 상태 (압축 비용까지 포함)
+final class MockConnection implements WebSocket {
+    private final Draft_6455 draft;
+    private Object attachment;
+    // 만든 프레임 수와 바이트 수 (JIT 가 프레이밍을 없애지 않도록 결과를 남김)
+    long frames = 0;
+    long bytes = 0;
+
+    MockConnection() {
+        this(false);
+    }
+
+    MockConnection(boolean deflate) {
+        if (!deflate) {
+            draft = new Draft_6455();
+            return;
+        }
+        Draft_6455 server = new Draft_6455(new DeflateExtension());
+        HandshakeImpl1Client handshake = new HandshakeImpl1Client();
+        handshake.put("Sec-WebSocket-Version", "13");
+        handshake.put("Sec-WebSocket-Extensions", "permessage-deflate; client_max_window_bits");
+        try {
+            if (server.acceptHandshakeAsServer(handshake) != HandshakeState.MATCHED) {
+                throw new IllegalStateException("permessage-deflate 협상 실패");
+            }
+        } catch (InvalidHandshakeException e) {
+            throw new IllegalStateException(e);
+        }
+        draft = server;
+    }
+
+    @Override
+    public void send(String text) {
+        write(draft.createFrames(text, false));
+    }
+
+    @Override
+    public void send(ByteBuffer buffer) {
+        write(draft.createFrames(buffer, false));
+    }
+
+    @Override
+    public void send(byte[] data) {
+        send(ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public void sendFrame(Framedata framedata) {
+        write(Collections.singletonList(framedata));
+    }
+
+    @Override
+    public void sendFrame(Collection<Framedata> frames) {
+        write(frames);
+    }
+
+    private void write(Collection<Framedata> list) {
+        for (Framedata f : list) {
+            ByteBuffer out = draft.createBinaryFrame(f);
+            frames++;
+            bytes += out.remaining();
+        }
+    }
+
+    @Override
+    public void sendPing() {
+    }
+
+    @Override
+    public void sendFragmentedFrame(Opcode op, ByteBuffer buffer, boolean fin) {
+        write(draft.continuousFrame(op, buffer, fin));
+    }
+
+    @Override
+    public void close(int code, String message) {
+    }
+
+    @Override
+    public void close(int code) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void closeConnection(int code, String message) {
+    }
+
+    @Override
+    public boolean hasBufferedData() {
+        return false;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteSocketAddress() {
+        return new InetSocketAddress("127.0.0.1", 50000);
+    }
+
+    @Override
+    public InetSocketAddress getLocalSocketAddress() {
+        return new InetSocketAddress("127.0.0.1", 8080);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public boolean isClosing() {
+        return false;
+    }
+
+    @Override
+    public boolean isFlushAndClose() {
+        return false;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
+    @Override
+    public Draft getDraft() {
+        return draft;
+    }
+
+    @Override
+    public ReadyState getReadyState() {
+        return ReadyState.OPEN;
+    }
+
+    @Override
+    public String getResourceDescriptor() {
+        return "/";
+    }
+
+    @Override
+    public <T> void setAttachment(T attachment) {
+        this.attachment = attachment;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T getAttachment() {
+        return (T) attachment;
+    }
+
+    @Override
+    public boolean hasSSLSupport() {
+        return false;
+    }
+
+    @Override
+    public SSLSession getSSLSession() {
+        throw new IllegalArgumentException("SSL 없음");
+    }
+
+    @Override
+    public IProtocol getProtocol() {
+        return null;
+    }
+}
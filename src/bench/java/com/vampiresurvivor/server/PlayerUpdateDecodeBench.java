@@ -0,0 +1,62 @@
+package com.vampiresurvivor.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// playerUpdate 읽기: Gson 으로 JsonObject 를 만든 뒤 필드를 꺼내던 예전 방식 대 PlayerUpdate
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayerUpdateDecodeBench {
+    private final Gson gson = new Gson();
+    private final String message = BenchFixtures.playerUpdateMessage("P1");
+    private final GameServer.PlayerData player = BenchFixtures.stateWithPlayers(1).players.get("P1");
+
+    @Benchmark
+    public GameServer.PlayerData gsonTree() {
+        JsonObject data = gson.fromJson(message, JsonObject.class);
+        if (data.get("type").getAsString().equals("playerUpdate") && data.get("playerId").getAsString().equals(player.id)) {
+            JsonObject p = data.getAsJsonObject("player");
+            if (p.has("x")) player.x = p.get("x").getAsFloat();
+            if (p.has("y")) player.y = p.get("y").getAsFloat();
+            if (p.has("vx")) player.vx = p.get("vx").getAsFloat();
+            if (p.has("vy")) player.vy = p.get("vy").getAsFloat();
+            if (p.has("hp")) player.hp = p.get("hp").getAsInt();
+            if (p.has("hpMax")) player.hpMax = p.get("hpMax").getAsInt();
+            if (p.has("level")) player.level = p.get("level").getAsInt();
+            if (p.has("damage")) player.damage = p.get("damage").getAsFloat();
+            if (p.has("fireRate")) player.fireRate = p.get("fireRate").getAsFloat();
+            if (p.has("pierce")) player.pierce = p.get("pierce").getAsInt();
+            if (p.has("pickup")) player.pickup = p.get("pickup").getAsFloat();
+            if (p.has("dashCd")) player.dashCd = p.get("dashCd").getAsFloat();
+            if (p.has("dashCdMax")) player.dashCdMax = p.get("dashCdMax").getAsFloat();
+            if (p.has("projSize")) player.projSize = p.get("projSize").getAsFloat();
+            if (p.has("projCount")) player.projCount = p.get("projCount").getAsInt();
+            if (p.has("characterType")) player.characterType = p.get("characterType").getAsString();
+        }
+        return player;
+    }
+
+    @Benchmark
+    public GameServer.PlayerData streaming() {
+        PlayerUpdate update = PlayerUpdate.decode(message);
+        if (update != null && update.isFrom(player.id)) {
+            update.applyTo(player);
+        }
+        return player;
+    }
+}
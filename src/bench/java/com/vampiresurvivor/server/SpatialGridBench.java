@@ -0,0 +1,70 @@
+package com.vampiresurvivor.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 시뮬레이션/관심 영역이 틱마다 하는 격자 작업 (적 n 명, 플레이어 16명 주변)
+// - build: 격자 재구성
+// - queryCircle: 플레이어마다 접촉 판정 반경 질의
+// - kNearest: 플레이어마다 조준용 가장 가까운 적 8개
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpatialGridBench {
+    @Param({"300", "1500", "5000"})
+    int entities;
+
+    private GameServer.GameState state;
+    private GameServer.PlayerData[] players;
+    private SpatialGrid grid;
+
+    @Setup
+    public void setup() {
+        state = BenchFixtures.stateWithPlayers(16);
+        // addEntities 는 70% 만 적이므로 적이 entities 명이 되도록
+        BenchFixtures.addEntities(state, entities * 10 / 7);
+        players = state.players.values().toArray(new GameServer.PlayerData[0]);
+        grid = new SpatialGrid(Simulation.GRID_CELL);
+        EntityStore es = state.sim.enemies;
+        grid.build(es.x, es.y, es.r, es.size);
+    }
+
+    @Benchmark
+    public int build() {
+        EntityStore es = state.sim.enemies;
+        grid.build(es.x, es.y, es.r, es.size);
+        return grid.size();
+    }
+
+    @Benchmark
+    public int queryCircle() {
+        int hits = 0;
+        for (GameServer.PlayerData p : players) {
+            hits += grid.queryCircle(p.x, p.y, Simulation.PLAYER_RADIUS + 40);
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int kNearest() {
+        int hits = 0;
+        for (GameServer.PlayerData p : players) {
+            hits += grid.kNearest(p.x, p.y, 8, Simulation.AIM_RANGE);
+        }
+        return hits;
+    }
+}
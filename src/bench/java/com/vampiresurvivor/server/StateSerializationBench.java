@@ -0,0 +1,103 @@
+package com.vampiresurvivor.server;
+
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 스냅샷 하나 만들기 (플레이어 수 x 엔티티 수)
+// - gsonTree: toJson().toString() (델타 클라이언트가 있을 때 쓰는 경로)
+// - streaming: JsonStringWriter (기본 경로)
+// - binary: BinaryCodec.encodeState (survivors.bin.v1 클라이언트)
+// - delta: 트리를 만들고 한 틱 전 트리와 비교한 stateDelta 메시지 (그 사이 엔티티가 모두 조금씩 움직이고 2% 가 사라지고 새로 생김)
+// 시행(trial)이 끝나면 전체 state 와 stateDelta 메시지 크기를 출력
+// 할당량은 -prof gc 의 gc.alloc.rate.norm (B/op)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateSerializationBench {
+    @Param({"4", "16", "64"})
+    int players;
+
+    @Param({"0", "300", "1500"})
+    int entities;
+
+    private GameServer.GameState state;
+    private JsonObject previous;
+    private long seq = 0;
+
+    @Setup
+    public void setup() {
+        state = BenchFixtures.stateWithPlayers(players);
+        BenchFixtures.addEntities(state, entities);
+        previous = state.toJson();
+        // 델타 기준은 고정하고 현재 상태만 한 틱 진행 (매번 같은 크기의 델타)
+        BenchFixtures.advance(state, new Random(7));
+        EntityStore[] stores = {state.sim.enemies, state.sim.projectiles, state.sim.orbs};
+        for (EntityStore es : stores) {
+            for (int i = es.size - 1; i >= 0; i -= 50) {
+                es.remove(i);
+            }
+        }
+        BenchFixtures.addEntities(state, entities / 50);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.println(String.format("%n   [players=%d entities=%d] state %d B, stateDelta %d B",
+            players, entities, gsonTree().length(), delta().length()));
+    }
+
+    @Benchmark
+    public String gsonTree() {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "state");
+        msg.addProperty("seq", ++seq);
+        msg.add("state", state.toJson());
+        return msg.toString();
+    }
+
+    @Benchmark
+    public String streaming() {
+        JsonStringWriter w = JsonStringWriter.local();
+        w.beginObject();
+        w.name("type").value("state");
+        w.name("seq").value(++seq);
+        w.name("state");
+        state.writeJson(w, null);
+        w.endObject();
+        return w.toString();
+    }
+
+    @Benchmark
+    public ByteBuffer binary() {
+        return BinaryCodec.encodeState(++seq, state);
+    }
+
+    @Benchmark
+    public String delta() {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "stateDelta");
+        msg.addProperty("seq", ++seq);
+        msg.addProperty("base", seq - 1);
+        msg.add("delta", StateDelta.diff(previous, state.toJson()));
+        return msg.toString();
+    }
+}
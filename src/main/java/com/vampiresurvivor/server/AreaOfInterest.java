@@ -0,0 +1,231 @@
+package com.vampiresurvivor.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// 관심 영역(AOI) 필터: 클라이언트마다 자기 플레이어 주변 RADIUS 안의 적/투사체/구슬만 보냄
+// - 플레이어 목록은 거르지 않음: main.js 는 state.players 에 없는 플레이어를 지우고 인원수로 스폰/경험치를 정하며,
+//   비권한 모드에서는 호스트만 위치를 보내므로 게스트의 서버 쪽 위치는 입장 자리에 머물러 있음
+// - 스냅샷마다 엔티티 종류별 격자를 한 번 만들고, 클라이언트마다 원 질의 한 번씩
+// - 직전에 보낸 목록과 비교해 새로 보이게 된 것(enter)과 사라진 것(leave)을 같이 알려줌
+// - 자기 플레이어가 아직 없으면(입장 직후) 전체를 보냄
+final class AreaOfInterest {
+    // 화면(960x540) 대각선 절반 ~550 + 스폰 거리(360~520) 여유. 0 이면 끔
+    // 거를 엔티티는 서버 권한 시뮬레이션에만 있으므로 그때만 기본으로 켬 (아니면 클라이언트별 직렬화 비용만 듦)
+    static final float RADIUS = Float.parseFloat(System.getProperty("survivors.aoiRadius", GameServer.AUTHORITATIVE ? "800" : "0"));
+    static final boolean ENABLED = RADIUS > 0;
+
+    private final SpatialGrid enemyGrid = new SpatialGrid(128);
+    private final SpatialGrid projectileGrid = new SpatialGrid(128);
+    private final SpatialGrid orbGrid = new SpatialGrid(128);
+
+    // 스냅샷을 만들 때 한 번 (방 워커 스레드)
+    void rebuild(Simulation sim) {
+        enemyGrid.build(sim.enemies.x, sim.enemies.y, sim.enemies.r, sim.enemies.size);
+        projectileGrid.build(sim.projectiles.x, sim.projectiles.y, sim.projectiles.r, sim.projectiles.size);
+        orbGrid.build(sim.orbs.x, sim.orbs.y, sim.orbs.r, sim.orbs.size);
+    }
+
+    // 클라이언트 한 명의 보이는 목록을 view 에 채움
+    void compute(View view, GameServer.GameState state, String selfId) {
+        Simulation sim = state.sim;
+        GameServer.PlayerData self = selfId != null ? state.players.get(selfId) : null;
+        if (self == null) {
+            view.enemies.all(sim.enemies);
+            view.projectiles.all(sim.projectiles);
+            view.orbs.all(sim.orbs);
+        } else {
+            float cx = self.x, cy = self.y;
+            view.enemies.query(enemyGrid, sim.enemies, cx, cy);
+            view.projectiles.query(projectileGrid, sim.projectiles, cx, cy);
+            view.orbs.query(orbGrid, sim.orbs, cx, cy);
+        }
+        // 플레이어는 항상 전원 (enter/leave 는 입장/퇴장)
+        view.players.clear();
+        view.players.addAll(state.players.values());
+        view.diffPlayers();
+    }
+
+    // 한 클라이언트가 지금 보는 것 (클라이언트마다 하나씩 두고 재사용)
+    static final class View {
+        final Visible enemies = new Visible();
+        final Visible projectiles = new Visible();
+        final Visible orbs = new Visible();
+        final List<GameServer.PlayerData> players = new ArrayList<>();
+        private Set<String> knownPlayers = new HashSet<>();
+        private Set<String> visiblePlayers = new HashSet<>();
+        final List<String> enteredPlayers = new ArrayList<>();
+        final List<String> leftPlayers = new ArrayList<>();
+
+        int entityCount() {
+            return enemies.count + projectiles.count + orbs.count;
+        }
+
+        private void diffPlayers() {
+            enteredPlayers.clear();
+            leftPlayers.clear();
+            visiblePlayers.clear();
+            for (GameServer.PlayerData p : players) {
+                visiblePlayers.add(p.id);
+                if (!knownPlayers.contains(p.id)) enteredPlayers.add(p.id);
+            }
+            for (String id : knownPlayers) {
+                if (!visiblePlayers.contains(id)) leftPlayers.add(id);
+            }
+            Set<String> swap = knownPlayers;
+            knownPlayers = visiblePlayers;
+            visiblePlayers = swap;
+        }
+
+        // {"enter":{"players":[..],"enemies":[..],...},"leave":{...}} 바뀐 게 없으면 null
+        JsonObject eventsJson() {
+            JsonObject enter = new JsonObject();
+            JsonObject leave = new JsonObject();
+            addIds(enter, "players", enteredPlayers);
+            addIds(leave, "players", leftPlayers);
+            enemies.addEvents(enter, leave, "enemies");
+            projectiles.addEvents(enter, leave, "projectiles");
+            orbs.addEvents(enter, leave, "orbs");
+            if (enter.size() == 0 && leave.size() == 0) return null;
+            JsonObject events = new JsonObject();
+            if (enter.size() > 0) events.add("enter", enter);
+            if (leave.size() > 0) events.add("leave", leave);
+            return events;
+        }
+
+        // eventsJson() 과 같은 내용을 "aoi" 키로 바로 씀. 바뀐 게 없으면 아무것도 쓰지 않음
+        void writeEvents(JsonStringWriter w) {
+            boolean anyEnter = !enteredPlayers.isEmpty() || enemies.enteredCount > 0
+                || projectiles.enteredCount > 0 || orbs.enteredCount > 0;
+            boolean anyLeave = !leftPlayers.isEmpty() || enemies.leftCount > 0
+                || projectiles.leftCount > 0 || orbs.leftCount > 0;
+            if (!anyEnter && !anyLeave) return;
+            w.name("aoi").beginObject();
+            if (anyEnter) {
+                w.name("enter").beginObject();
+                writeIds(w, "players", enteredPlayers);
+                writeIds(w, "enemies", enemies.entered, enemies.enteredCount);
+                writeIds(w, "projectiles", projectiles.entered, projectiles.enteredCount);
+                writeIds(w, "orbs", orbs.entered, orbs.enteredCount);
+                w.endObject();
+            }
+            if (anyLeave) {
+                w.name("leave").beginObject();
+                writeIds(w, "players", leftPlayers);
+                writeIds(w, "enemies", enemies.left, enemies.leftCount);
+                writeIds(w, "projectiles", projectiles.left, projectiles.leftCount);
+                writeIds(w, "orbs", orbs.left, orbs.leftCount);
+                w.endObject();
+            }
+            w.endObject();
+        }
+
+        private static void writeIds(JsonStringWriter w, String key, List<String> ids) {
+            if (ids.isEmpty()) return;
+            w.name(key).beginArray();
+            for (String id : ids) w.value(id);
+            w.endArray();
+        }
+
+        private static void writeIds(JsonStringWriter w, String key, int[] ids, int n) {
+            if (n == 0) return;
+            w.name(key).beginArray();
+            for (int i = 0; i < n; i++) w.value(ids[i]);
+            w.endArray();
+        }
+
+        private static void addIds(JsonObject into, String key, List<String> ids) {
+            if (ids.isEmpty()) return;
+            JsonArray arr = new JsonArray(ids.size());
+            for (String id : ids) arr.add(id);
+            into.add(key, arr);
+        }
+    }
+
+    // 엔티티 한 종류의 보이는 인덱스 목록과 enter/leave 계산용 정렬된 핸들 목록
+    static final class Visible {
+        int[] index = new int[64];
+        int count = 0;
+        private int[] handles = new int[64];
+        private int[] knownHandles = new int[64];
+        private int knownCount = 0;
+        private int[] entered = new int[16];
+        private int enteredCount = 0;
+        private int[] left = new int[16];
+        private int leftCount = 0;
+
+        private void all(EntityStore store) {
+            ensure(store.size);
+            for (int i = 0; i < store.size; i++) {
+                index[i] = i;
+            }
+            count = store.size;
+            diff(store);
+        }
+
+        private void query(SpatialGrid grid, EntityStore store, float cx, float cy) {
+            int n = grid.queryCircle(cx, cy, RADIUS);
+            ensure(n);
+            System.arraycopy(grid.hits, 0, index, 0, n);
+            count = n;
+            diff(store);
+        }
+
+        // 이번 핸들 목록을 정렬해서 직전 목록과 병합 비교
+        private void diff(EntityStore store) {
+            for (int i = 0; i < count; i++) {
+                handles[i] = store.handle[index[i]];
+            }
+            Arrays.sort(handles, 0, count);
+            enteredCount = 0;
+            leftCount = 0;
+            int a = 0, b = 0;
+            while (a < count || b < knownCount) {
+                if (b >= knownCount || (a < count && handles[a] < knownHandles[b])) {
+                    entered = push(entered, enteredCount++, handles[a++]);
+                } else if (a >= count || knownHandles[b] < handles[a]) {
+                    left = push(left, leftCount++, knownHandles[b++]);
+                } else {
+                    a++;
+                    b++;
+                }
+            }
+            int[] swap = knownHandles;
+            knownHandles = handles;
+            handles = swap;
+            knownCount = count;
+        }
+
+        private void addEvents(JsonObject enter, JsonObject leave, String key) {
+            if (enteredCount > 0) enter.add(key, toJson(entered, enteredCount));
+            if (leftCount > 0) leave.add(key, toJson(left, leftCount));
+        }
+
+        private void ensure(int n) {
+            if (index.length < n) {
+                int cap = Math.max(n, index.length * 2);
+                index = new int[cap];
+                handles = new int[cap];
+                knownHandles = Arrays.copyOf(knownHandles, cap);
+            }
+        }
+
+        private static int[] push(int[] arr, int at, int value) {
+            if (at == arr.length) arr = Arrays.copyOf(arr, arr.length * 2);
+            arr[at] = value;
+            return arr;
+        }
+
+        private static JsonArray toJson(int[] values, int n) {
+            JsonArray arr = new JsonArray(n);
+            for (int i = 0; i < n; i++) arr.add(values[i]);
+            return arr;
+        }
+    }
+}
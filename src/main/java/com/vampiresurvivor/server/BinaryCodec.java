@@ -0,0 +1,403 @@
+package com.vampiresurvivor.server;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.java_websocket.WebSocket;
+import org.java_websocket.protocols.IProtocol;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// 바이너리 와이어 프로토콜 (서브프로토콜 "survivors.bin.v1")
+// 모든 값은 리틀 엔디언. 첫 바이트가 메시지 종류.
+// - 위치: int32, 1/16 단위로 양자화
+// - 속도: int16, 1/4 단위로 양자화 (±8191)
+// - 쿨다운/수명: uint16 밀리초
+// - 플레이어 ID "P12" 는 숫자 부분만 uint16 으로 전송
+final class BinaryCodec {
+    static final String SUBPROTOCOL = "survivors.bin.v1";
+
+    static final byte MSG_PLAYER_UPDATE = 1;
+    static final byte MSG_PROJECTILE = 2;
+    static final byte MSG_STATE = 3;
+
+    static final float POS_SCALE = 16f;
+    static final float VEL_SCALE = 4f;
+
+    private static final int FLAG_STARTED = 1;
+    private static final int FLAG_PAUSED = 2;
+    private static final int FLAG_GAME_OVER = 4;
+
+    private static final ThreadLocal<ByteBuffer> scratch =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(16 * 1024).order(ByteOrder.LITTLE_ENDIAN));
+
+    private BinaryCodec() {
+    }
+
+    static boolean isNegotiated(WebSocket conn) {
+        IProtocol protocol = conn.getProtocol();
+        return protocol != null && SUBPROTOCOL.equals(protocol.getProvidedProtocol());
+    }
+
+    static byte peekType(ByteBuffer in) {
+        return in.get(in.position());
+    }
+
+    // 클라이언트가 보내는 메시지는 종류마다 크기가 정해져 있음. WebSocket 스레드에서 방 스레드로 넘기기 전에 확인
+    // (짧은 메시지를 읽다가 중간에 BufferUnderflowException 이 나면 플레이어가 반만 바뀐 채로 남음)
+    static void checkInbound(ByteBuffer in) {
+        byte type = peekType(in);
+        int size;
+        switch (type) {
+            case MSG_PLAYER_UPDATE:
+                size = PLAYER_UPDATE_SIZE;
+                break;
+            case MSG_PROJECTILE:
+                size = PROJECTILE_SIZE;
+                break;
+            default:
+                throw new IllegalArgumentException("알 수 없는 메시지 종류: " + type);
+        }
+        if (in.remaining() != size) {
+            throw new IllegalArgumentException("메시지 크기가 맞지 않음: 종류 " + type + ", " + in.remaining() + "바이트 (" + size + "바이트여야 함)");
+        }
+    }
+
+    static int playerNumber(String playerId) {
+        return Integer.parseInt(playerId.substring(1));
+    }
+
+    static String playerId(int number) {
+        return "P" + number;
+    }
+
+    // ===== playerUpdate (클라이언트 -> 서버) =====
+    // [u8 type][i32 x][i32 y][i16 vx][i16 vy][u16 hp][u16 hpMax][u16 level]
+    // [f32 damage][f32 fireRate][u8 pierce][f32 pickup][u16 dashCd ms][u16 dashCdMax ms][f32 projSize][u8 projCount]
+    static final int PLAYER_UPDATE_SIZE = 1 + 4 + 4 + 2 + 2 + 2 + 2 + 2 + 4 + 4 + 1 + 4 + 2 + 2 + 4 + 1;
+
+    static ByteBuffer encodePlayerUpdate(GameServer.PlayerData p) {
+        ByteBuffer out = ByteBuffer.allocate(PLAYER_UPDATE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(MSG_PLAYER_UPDATE);
+        out.putInt(pos(p.x));
+        out.putInt(pos(p.y));
+        out.putShort(vel(p.vx));
+        out.putShort(vel(p.vy));
+        out.putShort(u16(p.hp));
+        out.putShort(u16(p.hpMax));
+        out.putShort(u16(p.level));
+        out.putFloat(p.damage);
+        out.putFloat(p.fireRate);
+        out.put(u8(p.pierce));
+        out.putFloat(p.pickup);
+        out.putShort(millis(p.dashCd));
+        out.putShort(millis(p.dashCdMax));
+        out.putFloat(p.projSize);
+        out.put(u8(p.projCount));
+        out.flip();
+        return out;
+    }
+
+    static void decodePlayerUpdate(ByteBuffer in, GameServer.PlayerData p) {
+        in = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.get() != MSG_PLAYER_UPDATE) {
+            throw new IllegalArgumentException("playerUpdate 가 아닙니다");
+        }
+        if (p.inputDriven) {
+            // 입력 모드 플레이어는 위치/속도/대시 쿨다운을 서버가 계산하므로 건너뜀
+            in.position(in.position() + 12);
+        } else {
+            p.x = in.getInt() / POS_SCALE;
+            p.y = in.getInt() / POS_SCALE;
+            p.vx = in.getShort() / VEL_SCALE;
+            p.vy = in.getShort() / VEL_SCALE;
+        }
+        p.hp = Short.toUnsignedInt(in.getShort());
+        p.hpMax = Short.toUnsignedInt(in.getShort());
+        p.level = Short.toUnsignedInt(in.getShort());
+        p.damage = in.getFloat();
+        p.fireRate = in.getFloat();
+        p.pierce = Byte.toUnsignedInt(in.get());
+        p.pickup = in.getFloat();
+        float dashCd = Short.toUnsignedInt(in.getShort()) / 1000f;
+        if (!p.inputDriven) p.dashCd = dashCd;
+        p.dashCdMax = Short.toUnsignedInt(in.getShort()) / 1000f;
+        p.projSize = in.getFloat();
+        p.projCount = Byte.toUnsignedInt(in.get());
+    }
+
+    // ===== projectile (양방향 중계) =====
+    // [u8 type][u16 player][i32 x][i32 y][i16 vx][i16 vy][u16 r x16][u16 life ms][f32 damage][u8 pierce][f32 knock]
+    static final int PROJECTILE_SIZE = 1 + 2 + 4 + 4 + 2 + 2 + 2 + 2 + 4 + 1 + 4;
+
+    static int projectilePlayer(ByteBuffer in) {
+        return Short.toUnsignedInt(in.duplicate().order(ByteOrder.LITTLE_ENDIAN).getShort(in.position() + 1));
+    }
+
+    // encodeProjectile 이 읽는 필드
+    private static final String[] PROJECTILE_FIELDS = {"x", "y", "vx", "vy", "r", "life", "damage", "pierce", "knock"};
+
+    // JSON projectile 객체를 바이너리로 바꿀 수 있는지 (필드는 없거나 null 이거나 숫자). 아니면 IllegalArgumentException
+    static void checkProjectile(JsonObject proj) {
+        for (String key : PROJECTILE_FIELDS) {
+            JsonElement e = proj.get(key);
+            if (e != null && !e.isJsonNull() && !(e.isJsonPrimitive() && e.getAsJsonPrimitive().isNumber())) {
+                throw new IllegalArgumentException("projectile." + key + " 가 숫자가 아님");
+            }
+        }
+    }
+
+    // JSON 중계 메시지의 projectile 객체를 바이너리로 변환
+    static ByteBuffer encodeProjectile(String playerId, JsonObject proj) {
+        ByteBuffer out = ByteBuffer.allocate(PROJECTILE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(MSG_PROJECTILE);
+        out.putShort((short) playerNumber(playerId));
+        out.putInt(pos(num(proj, "x")));
+        out.putInt(pos(num(proj, "y")));
+        out.putShort(vel(num(proj, "vx")));
+        out.putShort(vel(num(proj, "vy")));
+        out.putShort(u16(Math.round(num(proj, "r") * POS_SCALE)));
+        out.putShort(millis(num(proj, "life")));
+        out.putFloat(num(proj, "damage"));
+        out.put(u8((int) num(proj, "pierce")));
+        out.putFloat(num(proj, "knock"));
+        out.flip();
+        return out;
+    }
+
+    // 바이너리 projectile 을 기존 JSON 중계 메시지 형태로 변환
+    static JsonObject decodeProjectile(ByteBuffer in) {
+        in = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.get() != MSG_PROJECTILE) {
+            throw new IllegalArgumentException("projectile 이 아닙니다");
+        }
+        String playerId = playerId(Short.toUnsignedInt(in.getShort()));
+        JsonObject proj = new JsonObject();
+        proj.addProperty("x", in.getInt() / POS_SCALE);
+        proj.addProperty("y", in.getInt() / POS_SCALE);
+        proj.addProperty("vx", in.getShort() / VEL_SCALE);
+        proj.addProperty("vy", in.getShort() / VEL_SCALE);
+        proj.addProperty("r", Short.toUnsignedInt(in.getShort()) / POS_SCALE);
+        proj.addProperty("life", Short.toUnsignedInt(in.getShort()) / 1000f);
+        proj.addProperty("damage", in.getFloat());
+        proj.addProperty("pierce", Byte.toUnsignedInt(in.get()));
+        proj.addProperty("knock", in.getFloat());
+
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "projectile");
+        msg.addProperty("playerId", playerId);
+        msg.add("projectile", proj);
+        return msg;
+    }
+
+    // ===== state (서버 -> 클라이언트) =====
+    // [u8 type][u32 seq][u8 flags][f32 t][u8 playerCount] + playerCount * player
+    // player: [u16 id][i32 x][i32 y][i16 vx][i16 vy][u16 hp][u16 hpMax][u16 level][u8 colorLen][color utf8]
+    //         [f32 damage][f32 fireRate][u8 pierce][f32 pickup][f32 regen][f32 projSize][u8 projCount]
+    //         [u16 dashCd ms][u16 dashCdMax ms]
+    // 이어서 [u16 enemyCount] + enemy:      [u32 id][i32 x][i32 y][u8 kind][u16 r x16][f32 hp][f32 hpMax]
+    //        [u16 projectileCount] + proj:  [u32 id][i32 x][i32 y][i16 vx][i16 vy][u16 r x16]
+    //        [u16 orbCount] + orb:          [u32 id][i32 x][i32 y][u16 amount]
+    static ByteBuffer encodeState(long seq, GameServer.GameState state) {
+        return encodeState(seq, state, null);
+    }
+
+    // view 가 있으면 그 클라이언트의 관심 영역 안의 플레이어/엔티티만
+    static ByteBuffer encodeState(long seq, GameServer.GameState state, AreaOfInterest.View view) {
+        ByteBuffer out = scratch.get();
+        while (true) {
+            try {
+                out.clear();
+                writeState(out, seq, state, view);
+                break;
+            } catch (BufferOverflowException e) {
+                out = ByteBuffer.allocate(out.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                scratch.set(out);
+            }
+        }
+        out.flip();
+        ByteBuffer copy = ByteBuffer.allocate(out.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+        copy.put(out).flip();
+        return copy;
+    }
+
+    private static void writeState(ByteBuffer out, long seq, GameServer.GameState state, AreaOfInterest.View view) {
+        out.put(MSG_STATE);
+        out.putInt((int) seq);
+        int flags = (state.started ? FLAG_STARTED : 0) | (state.paused ? FLAG_PAUSED : 0) | (state.gameOver ? FLAG_GAME_OVER : 0);
+        out.put((byte) flags);
+        out.putFloat((float) state.t);
+        // 인원 수는 순회가 끝난 뒤에 기록 (동시 입장/퇴장 대비)
+        int countPos = out.position();
+        out.put((byte) 0);
+        int count = 0;
+        for (GameServer.PlayerData p : view != null ? view.players : state.players.values()) {
+            writePlayer(out, p);
+            count++;
+        }
+        out.put(countPos, (byte) count);
+
+        Simulation sim = state.sim;
+        EntityStore es = sim.enemies;
+        int enemyCount = Math.min(view != null ? view.enemies.count : es.size, 0xFFFF);
+        out.putShort(u16(enemyCount));
+        for (int k = 0; k < enemyCount; k++) {
+            int i = view != null ? view.enemies.index[k] : k;
+            out.putInt(es.handle[i]);
+            out.putInt(pos(es.x[i]));
+            out.putInt(pos(es.y[i]));
+            out.put(es.kind[i]);
+            out.putShort(u16(Math.round(es.r[i] * POS_SCALE)));
+            out.putFloat(es.hp[i]);
+            out.putFloat(es.hpMax[i]);
+        }
+        EntityStore ps = sim.projectiles;
+        int projectileCount = Math.min(view != null ? view.projectiles.count : ps.size, 0xFFFF);
+        out.putShort(u16(projectileCount));
+        for (int k = 0; k < projectileCount; k++) {
+            int i = view != null ? view.projectiles.index[k] : k;
+            out.putInt(ps.handle[i]);
+            out.putInt(pos(ps.x[i]));
+            out.putInt(pos(ps.y[i]));
+            out.putShort(vel(ps.vx[i]));
+            out.putShort(vel(ps.vy[i]));
+            out.putShort(u16(Math.round(ps.r[i] * POS_SCALE)));
+        }
+        EntityStore os = sim.orbs;
+        int orbCount = Math.min(view != null ? view.orbs.count : os.size, 0xFFFF);
+        out.putShort(u16(orbCount));
+        for (int k = 0; k < orbCount; k++) {
+            int i = view != null ? view.orbs.index[k] : k;
+            out.putInt(os.handle[i]);
+            out.putInt(pos(os.x[i]));
+            out.putInt(pos(os.y[i]));
+            out.putShort(u16(os.value[i]));
+        }
+    }
+
+    private static void writePlayer(ByteBuffer out, GameServer.PlayerData p) {
+        out.putShort((short) playerNumber(p.id));
+        out.putInt(pos(p.x));
+        out.putInt(pos(p.y));
+        out.putShort(vel(p.vx));
+        out.putShort(vel(p.vy));
+        out.putShort(u16(p.hp));
+        out.putShort(u16(p.hpMax));
+        out.putShort(u16(p.level));
+        byte[] color = p.color != null ? p.color.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        out.put(u8(color.length));
+        out.put(color, 0, Math.min(color.length, 255));
+        out.putFloat(p.damage);
+        out.putFloat(p.fireRate);
+        out.put(u8(p.pierce));
+        out.putFloat(p.pickup);
+        out.putFloat(p.regen);
+        out.putFloat(p.projSize);
+        out.put(u8(p.projCount));
+        out.putShort(millis(p.dashCd));
+        out.putShort(millis(p.dashCdMax));
+    }
+
+    static GameServer.GameState decodeState(ByteBuffer in) {
+        in = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.get() != MSG_STATE) {
+            throw new IllegalArgumentException("state 가 아닙니다");
+        }
+        GameServer.GameState state = new GameServer.GameState();
+        in.getInt();
+        int flags = in.get();
+        state.started = (flags & FLAG_STARTED) != 0;
+        state.paused = (flags & FLAG_PAUSED) != 0;
+        state.gameOver = (flags & FLAG_GAME_OVER) != 0;
+        state.t = in.getFloat();
+        int count = Byte.toUnsignedInt(in.get());
+        for (int i = 0; i < count; i++) {
+            GameServer.PlayerData p = new GameServer.PlayerData();
+            p.id = playerId(Short.toUnsignedInt(in.getShort()));
+            p.x = in.getInt() / POS_SCALE;
+            p.y = in.getInt() / POS_SCALE;
+            p.vx = in.getShort() / VEL_SCALE;
+            p.vy = in.getShort() / VEL_SCALE;
+            p.hp = Short.toUnsignedInt(in.getShort());
+            p.hpMax = Short.toUnsignedInt(in.getShort());
+            p.level = Short.toUnsignedInt(in.getShort());
+            byte[] color = new byte[Byte.toUnsignedInt(in.get())];
+            in.get(color);
+            p.color = new String(color, StandardCharsets.UTF_8);
+            p.damage = in.getFloat();
+            p.fireRate = in.getFloat();
+            p.pierce = Byte.toUnsignedInt(in.get());
+            p.pickup = in.getFloat();
+            p.regen = in.getFloat();
+            p.projSize = in.getFloat();
+            p.projCount = Byte.toUnsignedInt(in.get());
+            p.dashCd = Short.toUnsignedInt(in.getShort()) / 1000f;
+            p.dashCdMax = Short.toUnsignedInt(in.getShort()) / 1000f;
+            state.players.put(p.id, p);
+        }
+
+        // 디코딩 쪽은 핸들을 보존할 필요가 없으므로 값만 채움 (id 는 handle 열에 그대로 기록)
+        Simulation sim = state.sim;
+        EntityStore es = sim.enemies;
+        int enemyCount = Short.toUnsignedInt(in.getShort());
+        for (int n = 0; n < enemyCount; n++) {
+            int i = es.add();
+            es.handle[i] = in.getInt();
+            es.x[i] = in.getInt() / POS_SCALE;
+            es.y[i] = in.getInt() / POS_SCALE;
+            es.kind[i] = in.get();
+            es.r[i] = Short.toUnsignedInt(in.getShort()) / POS_SCALE;
+            es.hp[i] = in.getFloat();
+            es.hpMax[i] = in.getFloat();
+        }
+        EntityStore ps = sim.projectiles;
+        int projectileCount = Short.toUnsignedInt(in.getShort());
+        for (int n = 0; n < projectileCount; n++) {
+            int i = ps.add();
+            ps.handle[i] = in.getInt();
+            ps.x[i] = in.getInt() / POS_SCALE;
+            ps.y[i] = in.getInt() / POS_SCALE;
+            ps.vx[i] = in.getShort() / VEL_SCALE;
+            ps.vy[i] = in.getShort() / VEL_SCALE;
+            ps.r[i] = Short.toUnsignedInt(in.getShort()) / POS_SCALE;
+        }
+        EntityStore os = sim.orbs;
+        int orbCount = Short.toUnsignedInt(in.getShort());
+        for (int n = 0; n < orbCount; n++) {
+            int i = os.add();
+            os.handle[i] = in.getInt();
+            os.x[i] = in.getInt() / POS_SCALE;
+            os.y[i] = in.getInt() / POS_SCALE;
+            os.value[i] = Short.toUnsignedInt(in.getShort());
+        }
+        return state;
+    }
+
+    // ===== 양자화 도우미 =====
+    static int pos(float v) {
+        return Math.round(v * POS_SCALE);
+    }
+
+    static short vel(float v) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(v * VEL_SCALE)));
+    }
+
+    private static short millis(float seconds) {
+        return u16(Math.round(seconds * 1000f));
+    }
+
+    private static short u16(int v) {
+        return (short) Math.max(0, Math.min(0xFFFF, v));
+    }
+
+    private static byte u8(int v) {
+        return (byte) Math.max(0, Math.min(0xFF, v));
+    }
+
+    private static float num(JsonObject obj, String key) {
+        JsonElement e = obj.get(key);
+        return e != null && !e.isJsonNull() ? e.getAsFloat() : 0f;
+    }
+}
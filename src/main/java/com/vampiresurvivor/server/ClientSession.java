@@ -0,0 +1,346 @@
+package com.vampiresurvivor.server;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.DataFrame;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+// 연결 하나의 세션 정보. onOpen 에서 conn.setAttachment() 로 연결에 붙여두고
+// onMessage/onClose/onError 에서는 conn.getAttachment() 로 바로 꺼냄 (clients 맵을 뒤지지 않음)
+// - 보내는 메시지는 모두 send()/sendState() 를 거치므로 여기서 전송 통계를 셈
+//   (bytesOut 은 문자열이면 글자 수, 프레임/바이너리면 바이트 수. permessage-deflate 압축 전 크기)
+// - 송신 대기열: 라이브러리 송신 버퍼(상한 없음)에 SEND_WINDOW 개 넘게 밀려 있으면 그 뒤 메시지는 여기 보관
+//   이벤트(connected, hostChanged, 투사체 등)는 순서대로 다 보내고, 상태 스냅샷은 최신 하나만 남김
+//   대기열이 OUTBOX_LIMIT 를 넘거나 SLOW_CLIENT_MILLIS 동안 계속 밀려 있으면 연결을 끊음 (서버 힙 보호)
+// - 생존 확인: ConnectionWheel 에서 PING_MILLIS 마다 ping 을 보내고 pong 으로 왕복 시간(RTT)을 잼
+//   IDLE_TIMEOUT_MILLIS 동안 아무것도(메시지, pong) 못 받으면 끊음
+// - 받는 메시지는 종류별 토큰 버킷(RateLimiter)을 거쳐야 파싱함. 파싱 실패가 쌓이면 끊음 (1008)
+final class ClientSession {
+    // 라이브러리 송신 버퍼에 이만큼 프레임이 쌓여 있으면 대기열에 보관. -Dsurvivors.sendWindow
+    static final int SEND_WINDOW = Integer.getInteger("survivors.sendWindow", 64);
+    // 대기열 최대 길이 (넘치면 바로 끊음). -Dsurvivors.outboxLimit
+    static final int OUTBOX_LIMIT = Integer.getInteger("survivors.outboxLimit", 256);
+    // 대기열이 이 시간 넘게 비지 않으면 끊음. -Dsurvivors.slowClientMillis
+    static final long SLOW_CLIENT_MILLIS = Long.getLong("survivors.slowClientMillis", 5000);
+    // ping 간격, 아무것도 받지 못하면 끊는 시간. -Dsurvivors.pingMillis, -Dsurvivors.idleTimeoutMillis
+    static final long PING_MILLIS = Long.getLong("survivors.pingMillis", 5000);
+    static final long IDLE_TIMEOUT_MILLIS = Long.getLong("survivors.idleTimeoutMillis", 30000);
+
+    final String clientId;
+    final WebSocket conn;
+    // 들어가 있는 방과 그 방에서의 플레이어 ID (방을 옮기면 바뀜, playerId 는 로그용)
+    // 호스트 여부, 스냅샷/델타 기준 같은 방 안의 상태는 Room.Member 에 있음 (방 스레드 전용)
+    volatile Room room;
+    volatile String playerId;
+    // "survivors.bin.v1" 서브프로토콜로 접속한 클라이언트
+    final boolean binary;
+    // permessage-deflate 를 협상한 클라이언트 (공유 프레임은 압축해 둔 것을 보냄)
+    final boolean deflate;
+    final long connectedAt = System.currentTimeMillis();
+    // 받는 메시지 속도 제한 (WebSocket 스레드 전용)
+    final RateLimiter limiter = new RateLimiter();
+    private boolean rejectedTooMany = false;
+    // 마지막으로 방을 만든 시각 (WebSocket 스레드 전용, createRoom 간격 제한)
+    long roomCreatedAt = 0;
+
+    // 생존 확인 (휠 스레드가 읽고 씀, lastSeen 은 WebSocket 스레드가 메시지마다 갱신)
+    private ConnectionWheel.Timeout liveness;
+    volatile long lastSeenNanos = System.nanoTime();
+    // 답을 기다리는 ping 을 보낸 시각 (없으면 0)
+    private volatile long pingSentNanos = 0;
+    // 마지막 RTT, 평활 RTT (TCP 처럼 1/8 가중 이동 평균). 아직 못 쟀으면 -1
+    volatile double rttMillis = -1;
+    volatile double smoothedRttMillis = -1;
+
+    // 송신 대기열 (방 스레드와 WebSocket 스레드 양쪽에서 보내므로 this 로 잠금)
+    // 항목은 String, ByteBuffer (호출하는 쪽에서 duplicate), DataFrame (SharedFrame 에서 떼어낸 것)
+    private final ArrayDeque<Object> outbox = new ArrayDeque<>();
+    // 아직 못 보낸 최신 상태 스냅샷 (이벤트를 다 보낸 뒤에 보냄, 새 스냅샷이 오면 교체)
+    private Object pendingState;
+    // 대기열이 밀리기 시작한 시각 (비어 있으면 0)
+    private long backlogSince = 0;
+    private boolean evicted = false;
+    // 대기 중인 메시지 수 (pendingState 포함). 잠금 없이 읽는 용도
+    private volatile int queued = 0;
+
+    // 통계 (보내기는 여러 스레드에서 일어날 수 있으므로 대략적인 값)
+    volatile long messagesIn = 0;
+    volatile long messagesOut = 0;
+    volatile long bytesOut = 0;
+    // 밀려서 만들지 않았거나 새 것으로 교체된 상태 스냅샷 수, 대기열 최대 길이
+    volatile long statesDropped = 0;
+    volatile int outboxPeak = 0;
+
+    ClientSession(String clientId, WebSocket conn, boolean binary) {
+        this.clientId = clientId;
+        this.conn = conn;
+        this.binary = binary;
+        this.deflate = DeflateExtension.isNegotiated(conn);
+    }
+
+    boolean isOpen() {
+        return conn.isOpen();
+    }
+
+    int queued() {
+        return queued;
+    }
+
+    // 이전에 보낸 것이 아직 나가지 않았는지 (밀려 있으면 방은 이번 스냅샷을 만들지 않음)
+    boolean isBacklogged() {
+        return queued > 0 || conn.hasBufferedData();
+    }
+
+    void send(String message) {
+        Metrics.eventsOut.increment();
+        offer(message);
+    }
+
+    // 공유 버퍼를 보낼 때는 호출하는 쪽에서 duplicate() 해서 넘김
+    void send(ByteBuffer message) {
+        Metrics.eventsOut.increment();
+        offer(message);
+    }
+
+    // 여러 클라이언트에게 같이 보내는 프레임 (인코딩은 만든 쪽에서 한 번만)
+    void send(SharedFrame frame) {
+        Metrics.eventsOut.increment();
+        GameServer.sharedFramesSent.increment();
+        GameServer.sharedBytesSent.add(frame.payloadBytes);
+        synchronized (this) {
+            if (canWriteNow()) {
+                write(frame.frameFor(deflate));
+            } else {
+                enqueue(frame.detachFor(deflate));
+            }
+        }
+    }
+
+    // 상태 스냅샷: 밀려 있으면 못 보낸 이전 스냅샷을 버리고 이것만 남김
+    void sendState(String message) {
+        Metrics.statesOut.increment();
+        offerState(message);
+    }
+
+    void sendState(ByteBuffer message) {
+        Metrics.statesOut.increment();
+        offerState(message);
+    }
+
+    void sendState(SharedFrame frame) {
+        Metrics.statesOut.increment();
+        GameServer.sharedFramesSent.increment();
+        GameServer.sharedBytesSent.add(frame.payloadBytes);
+        synchronized (this) {
+            if (canWriteNow()) {
+                write(frame.frameFor(deflate));
+            } else {
+                replaceState(frame.detachFor(deflate));
+            }
+        }
+    }
+
+    // 연결이 열리면 (onOpen) 첫 ping 예약. 이후로는 ping 을 보낼 때마다 다음 것을 예약
+    void startLiveness(ConnectionWheel wheel) {
+        liveness = wheel.schedule(() -> checkLiveness(wheel), PING_MILLIS);
+    }
+
+    private void checkLiveness(ConnectionWheel wheel) {
+        if (!conn.isOpen()) return;
+        long now = System.nanoTime();
+        long idleMillis = (now - lastSeenNanos) / 1_000_000;
+        if (idleMillis > IDLE_TIMEOUT_MILLIS) {
+            Metrics.idleTimeouts.increment();
+            Log.warn("⏱️  응답 없는 클라이언트 연결 끊음: " + this + " - " + idleMillis + "ms 동안 받은 것 없음");
+            conn.closeConnection(CloseFrame.ABNORMAL_CLOSE, "idle timeout");
+            return;
+        }
+        // 답을 못 받은 ping 이 있으면 그 시각을 그대로 둠 (다음 pong 은 그 ping 의 답)
+        if (pingSentNanos == 0) {
+            pingSentNanos = now;
+        }
+        try {
+            conn.sendPing();
+        } catch (Exception e) {
+            return;
+        }
+        liveness = wheel.schedule(() -> checkLiveness(wheel), PING_MILLIS);
+    }
+
+    // WebSocket 스레드 (onWebsocketPong)
+    void onPong() {
+        long now = System.nanoTime();
+        lastSeenNanos = now;
+        long sent = pingSentNanos;
+        if (sent == 0) return;
+        pingSentNanos = 0;
+        Metrics.rtt.record(now - sent);
+        double rtt = (now - sent) / 1e6;
+        rttMillis = rtt;
+        double smoothed = smoothedRttMillis;
+        smoothedRttMillis = smoothed < 0 ? rtt : smoothed + (rtt - smoothed) / 8;
+    }
+
+    // 파싱 실패가 한도를 넘었으면 끊음 (WebSocket 스레드)
+    void checkRejects() {
+        if (rejectedTooMany || !limiter.overLimit()) return;
+        rejectedTooMany = true;
+        Metrics.abusiveClientsClosed.increment();
+        Log.warn("🚫 잘못된 메시지가 너무 많아 연결 끊음: " + this + " - " + RateLimiter.REJECT_WINDOW_MILLIS / 1000 + "초 안에 "
+            + RateLimiter.REJECT_LIMIT + "개 넘음 (누적 " + limiter.totalRejected() + "개)");
+        cancelLiveness();
+        try {
+            conn.close(CloseFrame.POLICY_VALIDATION, "invalid messages");
+        } catch (Exception e) {
+            // 무시
+        }
+    }
+
+    // 연결 종료 (onClose), 직접 끊을 때
+    void cancelLiveness() {
+        ConnectionWheel.Timeout timeout = liveness;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    // 방 스레드가 틱마다 부름: 라이브러리 버퍼에 자리가 나는 만큼 대기열을 내보내고, 너무 오래 밀려 있으면 끊음
+    void flush() {
+        if (queued == 0) return;
+        synchronized (this) {
+            if (evicted) return;
+            Object message;
+            while (libraryQueued() < SEND_WINDOW && (message = outbox.poll()) != null) {
+                write(message);
+            }
+            if (outbox.isEmpty() && pendingState != null && libraryQueued() < SEND_WINDOW) {
+                write(pendingState);
+                pendingState = null;
+            }
+            updateQueued();
+            if (queued == 0) {
+                backlogSince = 0;
+            } else if (System.currentTimeMillis() - backlogSince > SLOW_CLIENT_MILLIS) {
+                evict("송신 대기열이 " + SLOW_CLIENT_MILLIS + "ms 넘게 밀림 (" + queued + "개)");
+            }
+        }
+    }
+
+    private synchronized void offer(Object message) {
+        if (canWriteNow()) {
+            write(message);
+        } else {
+            enqueue(message);
+        }
+    }
+
+    private synchronized void offerState(Object message) {
+        if (canWriteNow()) {
+            write(message);
+        } else {
+            replaceState(message);
+        }
+    }
+
+    // 앞에 기다리는 것이 없고 라이브러리 버퍼에 자리가 있으면 바로 보냄 (보통은 항상 이 경우)
+    private boolean canWriteNow() {
+        return queued == 0 && libraryQueued() < SEND_WINDOW;
+    }
+
+    private void enqueue(Object message) {
+        if (evicted) return;
+        if (outbox.size() >= OUTBOX_LIMIT) {
+            evict("송신 대기열 초과 (" + OUTBOX_LIMIT + "개)");
+            return;
+        }
+        markBacklog();
+        outbox.add(message);
+        updateQueued();
+    }
+
+    private void replaceState(Object message) {
+        if (evicted) return;
+        if (pendingState != null) {
+            statesDropped++;
+            GameServer.statesSuperseded.increment();
+        }
+        markBacklog();
+        pendingState = message;
+        updateQueued();
+    }
+
+    private void markBacklog() {
+        if (queued == 0) {
+            backlogSince = System.currentTimeMillis();
+        }
+    }
+
+    private void updateQueued() {
+        int n = outbox.size() + (pendingState != null ? 1 : 0);
+        queued = n;
+        if (n > outboxPeak) {
+            outboxPeak = n;
+        }
+    }
+
+    // 라이브러리 송신 버퍼에 쌓인 프레임 수 (가짜 연결이면 있음/없음만)
+    private int libraryQueued() {
+        if (conn instanceof WebSocketImpl) {
+            return ((WebSocketImpl) conn).outQueue.size();
+        }
+        return conn.hasBufferedData() ? 1 : 0;
+    }
+
+    private void write(Object message) {
+        int bytes;
+        if (message instanceof String) {
+            String text = (String) message;
+            conn.send(text);
+            bytes = text.length();
+        } else if (message instanceof ByteBuffer) {
+            ByteBuffer buffer = (ByteBuffer) message;
+            bytes = buffer.remaining();
+            conn.send(buffer);
+        } else {
+            DataFrame frame = (DataFrame) message;
+            bytes = frame instanceof SharedFrame.Deflated ? ((SharedFrame.Deflated) frame).rawBytes : frame.getPayloadData().remaining();
+            conn.sendFrame(frame);
+        }
+        messagesOut++;
+        bytesOut += bytes;
+        Metrics.bytesOut.add(bytes);
+    }
+
+    // 대기열을 버리고 바로 끊음 (close 핸드셰이크는 밀린 데이터 뒤에 줄을 서야 하므로 소켓을 닫음)
+    private void evict(String reason) {
+        evicted = true;
+        outbox.clear();
+        pendingState = null;
+        queued = 0;
+        GameServer.slowClientsEvicted.increment();
+        Log.warn("🐢 느린 클라이언트 연결 끊음: " + this + " - " + reason);
+        cancelLiveness();
+        try {
+            conn.closeConnection(CloseFrame.TRY_AGAIN_LATER, "slow consumer");
+        } catch (Exception e) {
+            // 무시
+        }
+    }
+
+    void close() {
+        cancelLiveness();
+        try {
+            conn.close();
+        } catch (Exception e) {
+            // 무시
+        }
+    }
+
+    @Override
+    public String toString() {
+        return clientId + " (" + playerId + ")";
+    }
+}
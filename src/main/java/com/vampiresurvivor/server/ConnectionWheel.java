@@ -0,0 +1,153 @@
+package com.vampiresurvivor.server;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// 모든 연결의 시간 제한(핸드셰이크 기한, keepalive ping, 응답 없는 연결 끊기)을 스레드 하나로 처리하는 해시 타이밍 휠
+// - 연결마다 ScheduledExecutorService 작업을 두지 않음 (예전에는 연결마다 scheduleAtFixedRate 가 하나씩 쌓였음)
+//   등록/취소는 O(1), 틱마다 슬롯 하나만 봄. 기한은 TICK_MILLIS 단위로 반올림 (늦으면 최대 한 틱)
+// - 슬롯 = 기한 틱 % SLOTS. 한 바퀴보다 먼 기한은 rounds 로 남은 바퀴 수를 셈
+// - 등록/취소는 아무 스레드에서나: 큐에 넣고 휠 스레드가 틱마다 반영 (슬롯 목록은 휠 스레드 전용이라 잠금 없음)
+// - 작업은 휠 스레드에서 실행되므로 짧아야 함 (ping 보내기, 연결 닫기, 다음 기한 등록)
+final class ConnectionWheel {
+    static final long TICK_MILLIS = 100;
+    private static final int SLOTS = 512;
+    private static final int MASK = SLOTS - 1;
+    private static final long TICK_NANOS = TICK_MILLIS * 1_000_000;
+
+    private final Timeout[] slots = new Timeout[SLOTS];
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    private final Thread thread;
+    private volatile boolean running = true;
+    // 다음에 처리할 틱 (휠 스레드 전용)
+    private long tick = 0;
+
+    ConnectionWheel(String name) {
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // delayMillis 뒤에 휠 스레드에서 task 실행
+    Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startNanos + delayMillis * 1_000_000);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    // 등록된 (아직 실행도 취소도 안 된) 기한 수
+    int pending() {
+        return pending.get();
+    }
+
+    void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (running) {
+            long wait = startNanos + (tick + 1) * TICK_NANOS - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            removeCancelled();
+            transferAdded();
+            expire(tick & MASK);
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.slot >= 0) {
+                unlink(timeout);
+            }
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() != Timeout.PENDING) continue;
+            long due = Math.max(timeout.deadlineNanos / TICK_NANOS, tick);
+            timeout.rounds = (due - tick) / SLOTS;
+            int slot = (int) (due & MASK);
+            timeout.slot = slot;
+            timeout.next = slots[slot];
+            if (slots[slot] != null) {
+                slots[slot].prev = timeout;
+            }
+            slots[slot] = timeout;
+        }
+    }
+
+    private void expire(long slot) {
+        Timeout timeout = slots[(int) slot];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else {
+                unlink(timeout);
+                if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                    pending.decrementAndGet();
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable t) {
+                        Log.limited(Log.Level.ERROR, "wheel", "연결 타이머 작업 오류: " + t, t);
+                    }
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.slot = -1;
+    }
+
+    // 등록된 기한 하나. cancel() 은 아무 스레드에서나 (이미 실행됐으면 false)
+    final class Timeout {
+        static final int PENDING = 0, CANCELLED = 1, EXPIRED = 2;
+
+        private final Runnable task;
+        // 휠 시작 후 나노초
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // 아래는 휠 스레드 전용 (slot 이 -1 이면 아직 슬롯에 안 들어갔거나 이미 빠짐)
+        private int slot = -1;
+        private long rounds;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) return false;
+            pending.decrementAndGet();
+            cancelled.add(this);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.vampiresurvivor.server;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.exceptions.LimitExceededException;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.ContinuousFrame;
+import org.java_websocket.framing.DataFrame;
+import org.java_websocket.framing.Framedata;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// WebSocket permessage-deflate (RFC 7692). 큰 state 프레임(반복되는 JSON)만 압축하고 작은 투사체 중계 등은 그대로 보냄
+// - 라이브러리 PerMessageDeflateExtension 을 그대로 쓰지 않는 이유
+//   copyInstance() 가 설정(임계값/레벨)을 버림, 보낼 프레임의 페이로드를 바꿔 버려 SharedFrame 을 여러 연결에 못 씀,
+//   array() 전체를 압축해서 slice 한 버퍼가 깨짐, 메시지마다 Deflater 를 새로 만듦
+// - 기본(서버 컨텍스트 이어 쓰기 끔): 메시지마다 처음부터 압축하므로 같은 공유 프레임은 한 번만 압축해서
+//   deflate 를 협상한 모든 연결에 그대로 보냄 (SharedFrame.deflated()). Deflater 는 보내는 스레드마다 하나
+// - CONTEXT_TAKEOVER: 연결마다 Deflater 를 두고 앞 메시지를 사전처럼 씀. 연속된 state 는 더 작아지지만
+//   공유 프레임도 연결마다 따로 압축해야 하고 연결마다 zlib 메모리(수백 KB)가 듦
+// - 받는 쪽은 연결마다 Inflater 하나 (클라이언트가 원하는 대로 컨텍스트 이어 쓰기). 라이브러리처럼 다 풀고 재지 않고
+//   조금씩 풀면서 메시지 전체가 MAX_FRAME_BYTES 를 넘는 순간 끊음 (작은 압축 프레임으로 메모리를 채우는 공격 차단)
+final class DeflateExtension extends PerMessageDeflateExtension {
+    // -Dsurvivors.deflate=false 면 협상하지 않음
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("survivors.deflate"));
+    // 이보다 작은 페이로드는 압축하지 않음 (바이트). -Dsurvivors.deflateThreshold
+    static final int THRESHOLD = Integer.getInteger("survivors.deflateThreshold", 512);
+    // zlib 압축 레벨 1(빠름) ~ 9(작음). -Dsurvivors.deflateLevel
+    static final int LEVEL = Integer.getInteger("survivors.deflateLevel", 1);
+    // 서버 쪽 컨텍스트 이어 쓰기. -Dsurvivors.deflateContextTakeover
+    static final boolean CONTEXT_TAKEOVER = Boolean.getBoolean("survivors.deflateContextTakeover");
+
+    private static final byte[] TAIL = {0x00, 0x00, (byte) 0xFF, (byte) 0xFF};
+    // 컨텍스트 이어 쓰기를 끈 경우 보내는 스레드(방 워커, WebSocket 스레드)마다 하나씩 쓰고 reset
+    private static final ThreadLocal<Deflater> LOCAL = ThreadLocal.withInitial(() -> new Deflater(LEVEL, true));
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[16 * 1024]);
+
+    // CONTEXT_TAKEOVER 일 때 이 연결 전용 (협상된 뒤 처음 압축할 때 만듦)
+    private Deflater connectionDeflater;
+    // 받는 쪽 (WebSocket 스레드 전용). 처음 압축된 메시지를 받을 때 만듦
+    private Inflater inflater;
+    // 압축된 메시지의 첫 프레임을 받았고 fin 을 아직 못 받음 (이어지는 프레임도 풀어야 함)
+    private boolean inflating = false;
+    // 지금 메시지에서 지금까지 풀린 바이트 (이어지는 프레임 포함)
+    private int inflatedBytes = 0;
+
+    DeflateExtension() {
+        // 부모가 만든 Deflater/Inflater 는 쓰지 않으므로 zlib 메모리를 바로 돌려줌 (연결마다 복사본이 생김)
+        getDeflater().end();
+        getInflater().end();
+        setThreshold(THRESHOLD);
+        setServerNoContextTakeover(!CONTEXT_TAKEOVER);
+    }
+
+    // 이 연결이 permessage-deflate 를 협상했는지
+    static boolean isNegotiated(WebSocket conn) {
+        Draft draft = conn.getDraft();
+        return draft instanceof Draft_6455 && ((Draft_6455) draft).getExtension() instanceof DeflateExtension;
+    }
+
+    // payload 의 현재 위치부터 끝까지 한 메시지로 압축 (이어 쓰기 없음). 원본 위치는 건드리지 않음
+    static ByteBuffer compress(ByteBuffer payload) {
+        Deflater deflater = LOCAL.get();
+        try {
+            return compress(deflater, payload);
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    private static ByteBuffer compress(Deflater deflater, ByteBuffer payload) {
+        deflater.setInput(payload.duplicate());
+        byte[] out = SCRATCH.get();
+        int length = 0;
+        while (true) {
+            length += deflater.deflate(out, length, out.length - length, Deflater.SYNC_FLUSH);
+            // 출력 버퍼가 남은 채로 끝났으면 다 나온 것
+            if (length < out.length) break;
+            out = Arrays.copyOf(out, out.length * 2);
+            SCRATCH.set(out);
+        }
+        // SYNC_FLUSH 가 붙이는 00 00 FF FF 는 빼고 보냄 (받는 쪽이 다시 붙임)
+        if (length >= TAIL.length && Arrays.equals(out, length - TAIL.length, length, TAIL, 0, TAIL.length)) {
+            length -= TAIL.length;
+        }
+        Metrics.deflateIn.add(payload.remaining());
+        Metrics.deflateOut.add(length);
+        return ByteBuffer.wrap(Arrays.copyOf(out, length));
+    }
+
+    // 라이브러리가 프레임을 보내기 직전에 부름 (보내는 스레드)
+    // RSV1 이 이미 켜진 프레임은 SharedFrame 에서 미리 압축한 것이라 그대로 보냄
+    @Override
+    public void encodeFrame(Framedata inputFrame) {
+        if (!(inputFrame instanceof DataFrame) || inputFrame instanceof ContinuousFrame || inputFrame.isRSV1()) return;
+        ByteBuffer payload = inputFrame.getPayloadData();
+        if (payload.remaining() < THRESHOLD) return;
+        ByteBuffer compressed;
+        if (CONTEXT_TAKEOVER) {
+            if (connectionDeflater == null) {
+                connectionDeflater = new Deflater(LEVEL, true);
+            }
+            compressed = compress(connectionDeflater, payload);
+        } else {
+            compressed = compress(payload);
+        }
+        DataFrame frame = (DataFrame) inputFrame;
+        frame.setRSV1(true);
+        frame.setPayload(compressed);
+    }
+
+    // 라이브러리가 프레임을 받은 직후 부름 (WebSocket 스레드). 라이브러리 구현은 다 풀고 나서야 크기를 볼 수 있으므로
+    // 직접 풀면서 메시지 전체(이어지는 프레임 포함)가 MAX_FRAME_BYTES 를 넘는 순간 멈추고 끊음 (1009)
+    @Override
+    public void decodeFrame(Framedata inputFrame) throws InvalidDataException {
+        if (!(inputFrame instanceof DataFrame)) return;
+        if (inputFrame.getOpcode() == Opcode.CONTINUOUS) {
+            if (inputFrame.isRSV1()) {
+                throw new InvalidDataException(CloseFrame.POLICY_VALIDATION, "RSV1 은 첫 프레임에만 켤 수 있음");
+            }
+            // 압축하지 않은 메시지의 이어지는 프레임은 그대로
+            if (!inflating) return;
+        } else {
+            if (!inputFrame.isRSV1()) return;
+            inflating = true;
+            inflatedBytes = 0;
+        }
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        int length;
+        try {
+            length = inflate(inputFrame.getPayloadData().duplicate(), 0);
+            if (inputFrame.isFin()) {
+                // 보낸 쪽이 뺀 00 00 FF FF 를 붙여서 마저 풂
+                length = inflate(ByteBuffer.wrap(TAIL), length);
+                inflating = false;
+                if (isClientNoContextTakeover()) {
+                    inflater.reset();
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new InvalidDataException(CloseFrame.POLICY_VALIDATION, e.getMessage());
+        }
+        ((DataFrame) inputFrame).setPayload(ByteBuffer.wrap(Arrays.copyOf(SCRATCH.get(), length)));
+    }
+
+    // input 을 SCRATCH 의 length 위치부터 풀고 새 길이를 돌려줌. 한 번에 남은 한도 + 1 바이트까지만 풀어서 넘으면 바로 멈춤
+    private int inflate(ByteBuffer input, int length) throws DataFormatException, LimitExceededException {
+        inflater.setInput(input);
+        byte[] out = SCRATCH.get();
+        while (true) {
+            if (length == out.length) {
+                out = Arrays.copyOf(out, out.length * 2);
+                SCRATCH.set(out);
+            }
+            int n = inflater.inflate(out, length, Math.min(out.length - length, GameServer.MAX_FRAME_BYTES - inflatedBytes + 1));
+            length += n;
+            inflatedBytes += n;
+            if (inflatedBytes > GameServer.MAX_FRAME_BYTES) {
+                throw new LimitExceededException("압축을 푼 메시지가 너무 큼", GameServer.MAX_FRAME_BYTES);
+            }
+            if (n > 0) continue;
+            // 마지막 블록(BFINAL)으로 끝낸 뒤에도 데이터가 이어지면 새 스트림으로 계속 풂
+            if (!inflater.finished()) break;
+            inflater.reset();
+            if (!input.hasRemaining()) break;
+            inflater.setInput(input);
+        }
+        return length;
+    }
+
+    @Override
+    public String getProvidedExtensionAsServer() {
+        return "permessage-deflate"
+            + (CONTEXT_TAKEOVER ? "" : "; server_no_context_takeover")
+            + (isClientNoContextTakeover() ? "; client_no_context_takeover" : "");
+    }
+
+    @Override
+    public IExtension copyInstance() {
+        return new DeflateExtension();
+    }
+
+    @Override
+    public String toString() {
+        return "DeflateExtension";
+    }
+}
@@ -0,0 +1,144 @@
+package com.vampiresurvivor.server;
+
+import java.util.Arrays;
+
+// 구조체 배열(SoA) 엔티티 저장소: 엔티티마다 객체를 만들지 않고 열(column)별 원시 배열에 저장
+// - 0..size-1 구간이 살아있는 엔티티 (빈틈 없이 채움)
+// - 삭제는 마지막 원소를 옮겨오는 swap-remove 로 O(1)
+// - 핸들은 삭제/이동과 무관하게 유지되는 ID. 하위 24비트는 슬롯, 상위 8비트는 세대(재사용 구분용)
+// - 배열이 커질 때만 할당하고, 그 이후 추가/삭제는 할당 없음
+final class EntityStore {
+    private static final int SLOT_BITS = 24;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+    int size = 0;
+
+    // 열(column)
+    float[] x, y, vx, vy, r, hp, hpMax, speed, damage;
+    float[] timer;   // 적: 접촉 피해 쿨다운, 투사체: 남은 수명
+    int[] value;     // 적: 마지막으로 맞은 칼 휘두르기 번호, 투사체: 관통 횟수, 구슬: 경험치 양
+    byte[] kind;
+    int[] handle;
+
+    // 핸들 슬롯 -> 현재 인덱스 (-1 이면 비어 있음), 슬롯 세대, 비어 있는 슬롯 스택
+    private int[] slotIndex;
+    private byte[] slotGeneration;
+    private int[] freeSlots;
+    private int freeCount = 0;
+    private int slotCount = 0;
+
+    EntityStore(int initialCapacity) {
+        int cap = Math.max(16, initialCapacity);
+        x = new float[cap];
+        y = new float[cap];
+        vx = new float[cap];
+        vy = new float[cap];
+        r = new float[cap];
+        hp = new float[cap];
+        hpMax = new float[cap];
+        speed = new float[cap];
+        damage = new float[cap];
+        timer = new float[cap];
+        value = new int[cap];
+        kind = new byte[cap];
+        handle = new int[cap];
+        slotIndex = new int[cap];
+        slotGeneration = new byte[cap];
+        freeSlots = new int[cap];
+    }
+
+    int capacity() {
+        return x.length;
+    }
+
+    // 새 엔티티 추가 후 인덱스 반환 (모든 열은 0 으로 초기화됨)
+    int add() {
+        if (size == x.length) {
+            grow(x.length * 2);
+        }
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount > SLOT_MASK) {
+                throw new IllegalStateException("엔티티 슬롯 초과: " + slotCount);
+            }
+            slot = slotCount++;
+        }
+        int i = size++;
+        slotIndex[slot] = i;
+        handle[i] = ((slotGeneration[slot] & 0xFF) << SLOT_BITS) | slot;
+        x[i] = 0;
+        y[i] = 0;
+        vx[i] = 0;
+        vy[i] = 0;
+        r[i] = 0;
+        hp[i] = 0;
+        hpMax[i] = 0;
+        speed[i] = 0;
+        damage[i] = 0;
+        timer[i] = 0;
+        value[i] = 0;
+        kind[i] = 0;
+        return i;
+    }
+
+    // swap-remove: 마지막 엔티티를 i 자리로 옮김. 역순 순회 중 삭제해도 안전.
+    void remove(int i) {
+        int slot = handle[i] & SLOT_MASK;
+        slotIndex[slot] = -1;
+        slotGeneration[slot]++;
+        freeSlots[freeCount++] = slot;
+
+        int last = --size;
+        if (i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+            r[i] = r[last];
+            hp[i] = hp[last];
+            hpMax[i] = hpMax[last];
+            speed[i] = speed[last];
+            damage[i] = damage[last];
+            timer[i] = timer[last];
+            value[i] = value[last];
+            kind[i] = kind[last];
+            handle[i] = handle[last];
+            slotIndex[handle[i] & SLOT_MASK] = i;
+        }
+    }
+
+    // 핸들로 현재 인덱스 조회. 이미 삭제된 엔티티면 -1
+    int indexOf(int h) {
+        int slot = h & SLOT_MASK;
+        if (slot >= slotCount) return -1;
+        int i = slotIndex[slot];
+        return i >= 0 && handle[i] == h ? i : -1;
+    }
+
+    void clear() {
+        while (size > 0) {
+            remove(size - 1);
+        }
+    }
+
+    private void grow(int cap) {
+        x = Arrays.copyOf(x, cap);
+        y = Arrays.copyOf(y, cap);
+        vx = Arrays.copyOf(vx, cap);
+        vy = Arrays.copyOf(vy, cap);
+        r = Arrays.copyOf(r, cap);
+        hp = Arrays.copyOf(hp, cap);
+        hpMax = Arrays.copyOf(hpMax, cap);
+        speed = Arrays.copyOf(speed, cap);
+        damage = Arrays.copyOf(damage, cap);
+        timer = Arrays.copyOf(timer, cap);
+        value = Arrays.copyOf(value, cap);
+        kind = Arrays.copyOf(kind, cap);
+        handle = Arrays.copyOf(handle, cap);
+        slotIndex = Arrays.copyOf(slotIndex, cap);
+        slotGeneration = Arrays.copyOf(slotGeneration, cap);
+        freeSlots = Arrays.copyOf(freeSlots, cap);
+    }
+}
@@ -1,64 +1,201 @@
 package com.vampiresurvivor.server;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketAdapter;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.enums.ReadyState;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
 import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.protocols.IProtocol;
+import org.java_websocket.protocols.Protocol;
+import org.java_websocket.server.DefaultWebSocketServerFactory;
 import org.java_websocket.server.WebSocketServer;
 
 import java.io.*;
 import java.net.*;
 import java.awt.Desktop;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import com.sun.net.httpserver.HttpServer;
 
 public class GameServer {
     private static final int WS_PORT = 8080;
     private static final int HTTP_PORT = 8081;
     private static int GAME_PORT = 5173;
-
-    private static String tailscaleIP = null;
-    private static final Map<String, ClientInfo> clients = new ConcurrentHashMap<>();
-    private static final GameState gameState = new GameState();
-    private static int nextPlayerId = 1;
-    private static String hostId = null;
+    // 상태 브로드캐스트 주기 (Hz). -Dsurvivors.tickHz=20|30|60
+    static final int TICK_HZ = Integer.getInteger("survivors.tickHz", 30);
+    // 델타 스냅샷: N번째마다 전체 키프레임, 기준 스냅샷 보관 개수 (이보다 뒤처지면 전체 전송)
+    static final int KEYFRAME_INTERVAL = Integer.getInteger("survivors.keyframeInterval", 60);
+    static final int SNAPSHOT_HISTORY = Integer.getInteger("survivors.snapshotHistory", 64);
+    // 서버 권한 시뮬레이션 (적/투사체/구슬을 서버가 계산). -Dsurvivors.authoritative=true
+    static final boolean AUTHORITATIVE = Boolean.getBoolean("survivors.authoritative");
+    static final int SIM_HZ = Integer.getInteger("survivors.simHz", 60);
+    // 입력 모드: 클라이언트가 위치 대신 번호 붙은 입력을 INPUT_HZ 로 보내고 서버가 이동을 계산. -Dsurvivors.inputMode=true
+    // (connected 로 알려줌. 꺼져 있어도 input 메시지를 보내는 클라이언트는 그렇게 처리)
+    static final boolean INPUT_MODE = Boolean.getBoolean("survivors.inputMode");
+    static final int INPUT_HZ = Integer.getInteger("survivors.inputHz", 60);
+    // 접속이 없고 브라우저 요청도 끊기면 프로세스 종료 (로컬 실행용). 전용 서버는 -Dsurvivors.exitWhenIdle=false
+    private static final boolean EXIT_WHEN_IDLE = Boolean.parseBoolean(System.getProperty("survivors.exitWhenIdle", "true"));
+    // TCP 연결 후 WebSocket 핸드셰이크를 끝내야 하는 시간. -Dsurvivors.handshakeTimeoutMillis
+    static final long HANDSHAKE_TIMEOUT_MILLIS = Long.getLong("survivors.handshakeTimeoutMillis", 5000);
+    // 받는 WebSocket 메시지 최대 크기 (클라이언트 메시지는 1KB 안팎). -Dsurvivors.maxFrameBytes
+    static final int MAX_FRAME_BYTES = Integer.getInteger("survivors.maxFrameBytes", 65536);
+    // 한 연결이 createRoom 을 다시 할 수 있을 때까지 (RoomManager 는 전체 방 수만 제한). -Dsurvivors.createRoomCooldownMillis
+    static final long CREATE_ROOM_COOLDOWN_MILLIS = Long.getLong("survivors.createRoomCooldownMillis", 5000);
+
+    // 시작할 때 다른 스레드에서 감지하고 이후 5초마다 다시 확인 (여러 스레드가 읽음)
+    private static volatile String tailscaleIP = null;
+    private static RoomManager rooms;
     private static long lastRequestTime = System.currentTimeMillis();
 
     private static WebSocketServer wss;
     private static HttpServer httpServer;
     private static HttpServer gameServer;
+    private static StaticAssetCache assets;
     private static final Gson gson = new Gson();
+    private static final TypeAdapter<JsonElement> JSON_ELEMENT = gson.getAdapter(JsonElement.class);
     private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    // 연결별 시간 제한 (핸드셰이크 기한, keepalive ping, 응답 없는 연결 끊기)
+    static final ConnectionWheel wheel = new ConnectionWheel("Conn-wheel");
+
+    // 브로드캐스트 통계 (모든 방 합계)
+    static final LongAdder snapshotsBuilt = new LongAdder();
+    static final LongAdder updatesCoalesced = new LongAdder();
+    static final LongAdder snapshotsSkipped = new LongAdder();
+    // 송신 대기열: 못 보낸 채 새 것으로 교체된 스냅샷, 대기열이 넘치거나 오래 밀려서 끊은 클라이언트
+    static final LongAdder statesSuperseded = new LongAdder();
+    static final LongAdder slowClientsEvicted = new LongAdder();
+    // 입력 모드: 적용한 입력, 버린 입력 (대기 초과나 순서가 지난 것)
+    static final LongAdder inputsApplied = new LongAdder();
+    static final LongAdder inputsDropped = new LongAdder();
+    static volatile int maxCoalescedPerTick = 0;
+    static volatile int lastCoalesced = 0;
+    static final LongAdder keyframesSent = new LongAdder();
+    static final LongAdder deltasSent = new LongAdder();
+    static final LongAdder keyframeBytes = new LongAdder();
+    static final LongAdder deltaBytes = new LongAdder();
+    static final LongAdder aoiEntitiesSent = new LongAdder();
+    static final LongAdder aoiEntitiesTotal = new LongAdder();
+    // 공유 프레임: 인코딩한 양 대 실제로 보낸 양 (브로드캐스트 한 번 인코딩해서 여러 명에게)
+    static final LongAdder sharedFramesEncoded = new LongAdder();
+    static final LongAdder sharedBytesEncoded = new LongAdder();
+    static final LongAdder sharedFramesSent = new LongAdder();
+    static final LongAdder sharedBytesSent = new LongAdder();
+    // permessage-deflate 연결용으로 한 번 압축해 둔 공유 프레임
+    static final LongAdder sharedFramesDeflated = new LongAdder();
+    // HTTP 요청 처리 시간
+    static final LatencyHistogram httpAssetLatency = new LatencyHistogram("assets");
+    static final LatencyHistogram httpIpLatency = new LatencyHistogram("ip");
 
     public static void main(String[] args) {
         System.out.println("Starting Mini Survivors server...\n");
 
-        // Tailscale IP 감지
-        detectTailscaleIP();
+        // JDK HttpServer 는 헤더와 본문을 따로 쓰므로 Nagle 알고리즘 + 지연 ACK 때문에 응답마다 ~40ms 가 붙음
+        // (HttpServer 를 처음 만들기 전에 설정해야 적용됨)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
 
-        // WebSocket 서버 시작
-        startWebSocketServer();
+        // 시작 단계는 서로 기다릴 필요가 없으므로 동시에 (Startup.java 참고)
+        // Tailscale IP 감지(tailscale 프로세스 실행)는 리스너를 여는 것과 상관없으므로 따로
+        CompletableFuture<Void> address = Startup.run("address", GameServer::detectTailscaleIP);
 
-        // HTTP 서버 시작 (IP 정보 제공)
-        startHttpServer();
+        // 방 틱 워커 시작 (기본 방 포함)
+        rooms = new RoomManager();
+        System.out.println("🏠 방 틱 워커 " + rooms.workerCount() + "개, 상태 브로드캐스트 " + TICK_HZ + "Hz"
+            + (AUTHORITATIVE ? ", 서버 권한 시뮬레이션 " + SIM_HZ + "Hz 고정 타임스텝" : ""));
 
-        // 게임 파일 제공용 HTTP 서버 시작
-        startGameServer();
+        // WebSocket 서버 시작 (바인딩은 라이브러리 스레드에서, 끝나면 onStart)
+        startWebSocketServer();
+
+        // HTTP 서버 (IP 정보 제공), 게임 파일 제공용 HTTP 서버
+        CompletableFuture<Void> http = Startup.run("http", GameServer::startHttpServer);
+        CompletableFuture<Void> game = Startup.run("game", GameServer::startGameServer);
+        // 포트가 정해지면 바로 브라우저를 열고, 주소 안내는 Tailscale 감지까지 끝난 뒤에 한 번에 출력
+        if (!Startup.CDS_TRAINING) {
+            game.thenRun(() -> Startup.run("browser", () -> openBrowser("http://localhost:" + GAME_PORT)));
+        }
+        CompletableFuture.allOf(address, game).thenRun(() -> Startup.run("interfaces", GameServer::printAddresses));
+        CompletableFuture.allOf(http, game).join();
+        Startup.ready();
+        if (Startup.CDS_TRAINING) {
+            Startup.run("cds-training", () -> {
+                Startup.train(WS_PORT, HTTP_PORT, GAME_PORT);
+                shutdownServer();
+            });
+        }
 
         // 브라우저 모니터링 시작
-        startBrowserMonitoring();
+        if (EXIT_WHEN_IDLE) {
+            startBrowserMonitoring();
+        }
+
+        // 빈 방 정리
+        scheduler.scheduleAtFixedRate(() -> rooms.reapIdleRooms(), 10, 10, TimeUnit.SECONDS);
 
         // 서버 상태 주기적 출력
         scheduler.scheduleAtFixedRate(() -> {
-            System.out.println(String.format("📊 서버 상태: %d명 연결 중, 게임 상태: %s",
-                clients.size(), gameState.started ? "진행 중" : "대기 중"));
+            long built = snapshotsBuilt.sum();
+            long coalesced = updatesCoalesced.sum();
+            Log.info(String.format("📊 서버 상태: %d명 연결 중", rooms.totalClients()));
+            Log.info(String.format("   스냅샷 %d회 (%dHz), 병합된 업데이트 %d건 (틱당 평균 %.1f, 최대 %d, 최근 %d), 느린 클라이언트 건너뜀 %d회",
+                built, TICK_HZ, coalesced, built > 0 ? (double) coalesced / built : 0.0,
+                maxCoalescedPerTick, lastCoalesced, snapshotsSkipped.sum()));
+            printLaggingClients();
+            if (Metrics.rtt.count() > 0) {
+                Log.info("   연결 RTT (ping/pong): " + Metrics.rtt.summary()
+                    + String.format(", 응답 없어 끊음 %d, 핸드셰이크 시간 초과 %d", Metrics.idleTimeouts.sum(), Metrics.handshakeTimeouts.sum()));
+            }
+            if (inputsApplied.sum() > 0) {
+                Log.info(String.format("   입력 %d개 적용 (%dHz), 버림 %d개", inputsApplied.sum(), INPUT_HZ, inputsDropped.sum()));
+            }
+            long deltas = deltasSent.sum();
+            long keyframes = keyframesSent.sum();
+            if (deltas > 0) {
+                Log.info(String.format("   델타 %d회 (평균 %dB), 전체 스냅샷 %d회 (평균 %dB)",
+                    deltas, deltaBytes.sum() / deltas, keyframes, keyframes > 0 ? keyframeBytes.sum() / keyframes : 0));
+            }
+            long aoiTotal = aoiEntitiesTotal.sum();
+            if (aoiTotal > 0) {
+                Log.info(String.format("   관심 영역(반경 %.0f): 엔티티 %d/%d개 전송 (%.1f%%)",
+                    AreaOfInterest.RADIUS, aoiEntitiesSent.sum(), aoiTotal, aoiEntitiesSent.sum() * 100.0 / aoiTotal));
+            }
+            long framesEncoded = sharedFramesEncoded.sum();
+            if (framesEncoded > 0) {
+                Log.info(String.format("   공유 프레임 %d개 인코딩 (%.1fKB) -> %d회 전송 (%.1fKB), 프레임당 평균 %.1f명",
+                    framesEncoded, sharedBytesEncoded.sum() / 1024.0, sharedFramesSent.sum(), sharedBytesSent.sum() / 1024.0,
+                    (double) sharedFramesSent.sum() / framesEncoded));
+            }
+            long deflateIn = Metrics.deflateIn.sum();
+            if (deflateIn > 0) {
+                Log.info(String.format("   permessage-deflate: %.1fKB -> %.1fKB 로 압축 (%.0f%%), 공유 프레임 %d개는 한 번만 압축",
+                    deflateIn / 1024.0, Metrics.deflateOut.sum() / 1024.0, Metrics.deflateOut.sum() * 100.0 / deflateIn,
+                    sharedFramesDeflated.sum()));
+            }
+            rooms.printStats();
+            if (httpAssetLatency.count() > 0) {
+                Log.info("   HTTP 게임 파일: " + httpAssetLatency.summary()
+                    + (HttpExecutors.rejected.get() > 0 ? ", 풀 포화 " + HttpExecutors.rejected.get() + "회" : ""));
+            }
         }, 30, 30, TimeUnit.SECONDS);
 
         // Tailscale IP 주기적 재확인
@@ -67,140 +204,88 @@ public class GameServer {
         }, 5, 5, TimeUnit.SECONDS);
     }
 
+    // 송신이 밀리고 있거나 스냅샷을 버린 클라이언트 (많이 버린 순으로 3명)
+    private static void printLaggingClients() {
+        List<ClientSession> lagging = new ArrayList<>();
+        for (WebSocket conn : wss.getConnections()) {
+            ClientSession client = conn.getAttachment();
+            if (client != null && (client.queued() > 0 || client.statesDropped > 0)) {
+                lagging.add(client);
+            }
+        }
+        if (lagging.isEmpty() && slowClientsEvicted.sum() == 0) return;
+        Log.info(String.format("   송신 대기열: 밀린 클라이언트 %d명, 교체된 스냅샷 %d회, 느려서 끊은 클라이언트 %d명",
+            lagging.size(), statesSuperseded.sum(), slowClientsEvicted.sum()));
+        lagging.sort(Comparator.comparingLong((ClientSession c) -> c.statesDropped).reversed());
+        for (int i = 0; i < Math.min(3, lagging.size()); i++) {
+            ClientSession client = lagging.get(i);
+            Room room = client.room;
+            Log.info(String.format("   [%s] %s: 대기 %d개 (최대 %d), 버린 스냅샷 %d개, RTT %s",
+                room != null ? room.id : "-", client, client.queued(), client.outboxPeak, client.statesDropped,
+                client.smoothedRttMillis >= 0 ? String.format("%.1fms", client.smoothedRttMillis) : "-"));
+        }
+    }
+
     private static void startWebSocketServer() {
-        wss = new WebSocketServer(new InetSocketAddress("0.0.0.0", WS_PORT)) {
+        // 서브프로토콜 협상: "survivors.bin.v1" 을 요청한 클라이언트는 바이너리, 나머지는 JSON
+        List<IProtocol> protocols = Arrays.asList(new Protocol(BinaryCodec.SUBPROTOCOL), new Protocol(""));
+        // 한 프레임(조각난 메시지는 합친 크기)이 MAX_FRAME_BYTES 를 넘으면 헤더의 길이만 보고 끊음 (1009)
+        // permessage-deflate 를 제안한 클라이언트(브라우저는 기본으로 제안)에는 큰 프레임을 압축해서 보냄
+        List<IExtension> extensions = DeflateExtension.ENABLED ? Collections.singletonList(new DeflateExtension()) : Collections.emptyList();
+        Draft_6455 draft = new Draft_6455(extensions, protocols, MAX_FRAME_BYTES);
+
+        wss = new WebSocketServer(new InetSocketAddress("0.0.0.0", WS_PORT), Collections.singletonList(draft)) {
             @Override
             public void onOpen(WebSocket conn, ClientHandshake handshake) {
                 String clientId = System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 9);
                 String clientIP = conn.getRemoteSocketAddress().getAddress().getHostAddress();
+                boolean binary = BinaryCodec.isNegotiated(conn);
 
-                // 마스터 결정: 첫 번째 클라이언트가 항상 마스터 (localhost든 Tailscale IP든 상관없이)
-                boolean isHost = clients.isEmpty();
-
-                if (isHost) {
-                    hostId = clientId;
+                // 핸드셰이크 기한 취소 (그 자리에 세션을 붙임)
+                Object handshakeDeadline = conn.getAttachment();
+                if (handshakeDeadline instanceof ConnectionWheel.Timeout) {
+                    ((ConnectionWheel.Timeout) handshakeDeadline).cancel();
                 }
-
-                String playerId = "P" + nextPlayerId++;
-                clients.put(clientId, new ClientInfo(conn, playerId, isHost));
+                ClientSession session = new ClientSession(clientId, conn, binary);
+                conn.setAttachment(session);
+                Metrics.connectionsOpened.increment();
+                Startup.firstAccept();
                 lastRequestTime = System.currentTimeMillis();
 
-                System.out.println("\n✅ 클라이언트 연결 성공!");
-                System.out.println("   클라이언트 ID: " + clientId);
-                System.out.println("   플레이어 ID: " + playerId + (isHost ? " [HOST/MASTER]" : " [GUEST]"));
-                System.out.println("   연결 주소: " + clientIP);
-                System.out.println("   현재 연결된 클라이언트 수: " + clients.size());
+                Log.info("✅ 클라이언트 연결 성공!"
+                    + "\n   클라이언트 ID: " + clientId
+                    + "\n   연결 주소: " + clientIP
+                    + "\n   프로토콜: " + (binary ? "binary (" + BinaryCodec.SUBPROTOCOL + ")" : "json"));
 
-                // 초기 상태 전송
-                JsonObject response = new JsonObject();
-                response.addProperty("type", "connected");
-                response.addProperty("clientId", clientId);
-                response.addProperty("playerId", playerId);
-                response.addProperty("isHost", isHost);
-                response.add("state", gameState.toJson());
-                response.addProperty("tailscaleIP", tailscaleIP);
-                response.addProperty("wsUrl", tailscaleIP != null ? "ws://" + tailscaleIP + ":" + WS_PORT : null);
-                conn.send(response.toString());
-
-                // 플레이어 추가
-                if (!gameState.players.containsKey(playerId)) {
-                    PlayerData player = new PlayerData();
-                    player.id = playerId;
-                    player.x = (gameState.players.size()) * 40;
-                    player.y = 0;
-                    player.hp = 100;
-                    player.hpMax = 100;
-                    player.level = 1;
-                    player.color = isHost ? "rgba(232,238,255,0.92)" : "rgba(124,92,255,0.95)";
-                    player.damage = 9;
-                    player.fireRate = 2.24f; // 30% 감소: 3.2 * 0.7
-                    player.pierce = 0;
-                    player.pickup = 70;
-                    player.regen = 0;
-                    player.projSize = 4;
-                    player.projCount = 1;
-                    player.dashCd = 0;
-                    player.dashCdMax = 1.1f;
-
-                    gameState.players.put(playerId, player);
-
-                    // 게스트가 들어오면 게임 시작
-                    if (!isHost && gameState.players.size() > 1) {
-                        if (!gameState.started) {
-                            gameState.started = true;
-                            gameState.t = 0;
-                            gameState.paused = false;
-                            gameState.gameOver = false;
-                            System.out.println("🎮 게스트가 들어와서 게임 시작 (총 " + gameState.players.size() + "명)");
-                        }
-                    } else if (isHost && gameState.players.size() > 1 && !gameState.started) {
-                        gameState.started = true;
-                        gameState.t = 0;
-                        gameState.paused = false;
-                        gameState.gameOver = false;
-                        System.out.println("🎮 게스트가 들어와서 게임 시작 (총 " + gameState.players.size() + "명)");
-                    }
-
-                    broadcastState(null);
+                // ws://host:8080/?room=<id> 로 특정 방에 바로 입장, 없으면 기본 방
+                // (첫 번째로 들어온 클라이언트가 그 방의 마스터)
+                Room room = rooms.get(roomFromQuery(handshake.getResourceDescriptor()));
+                if (room == null || !room.join(session)) {
+                    rooms.defaultRoom().join(session);
                 }
+                Log.info("   현재 연결된 클라이언트 수: " + rooms.totalClients());
 
-                // Keepalive
-                scheduler.scheduleAtFixedRate(() -> {
-                    if (conn.isOpen()) {
-                        conn.sendPing();
-                    }
-                }, 30, 30, TimeUnit.SECONDS);
+                // keepalive ping / 응답 없는 연결 끊기 (연결이 끊기면 onClose 에서 취소)
+                session.startLiveness(wheel);
             }
 
             @Override
             public void onClose(WebSocket conn, int code, String reason, boolean remote) {
-                String clientId = findClientId(conn);
-                if (clientId != null) {
-                    ClientInfo client = clients.get(clientId);
-                    if (client != null) {
-                        System.out.println("\n❌ 클라이언트 연결 종료: " + clientId + " (" + client.playerId + ")");
-                        System.out.println("   종료 코드: " + code + ", 이유: " + (reason != null ? reason : "없음"));
-
-                        gameState.players.remove(client.playerId);
-
-                        if (clientId.equals(hostId)) {
-                            System.out.println("⚠️  호스트가 연결을 끊었습니다.");
-                            Optional<Map.Entry<String, ClientInfo>> remaining = clients.entrySet().stream()
-                                .filter(e -> !e.getKey().equals(clientId))
-                                .findFirst();
-                            if (remaining.isPresent()) {
-                                hostId = remaining.get().getKey();
-                                remaining.get().getValue().isHost = true;
-                                System.out.println("   새 호스트: " + hostId + " (" + remaining.get().getValue().playerId + ")");
-
-                                JsonObject msg = new JsonObject();
-                                msg.addProperty("type", "hostChanged");
-                                msg.addProperty("newHostId", hostId);
-                                GameServer.broadcast(msg.toString(), null);
-                            } else {
-                                System.out.println("   모든 클라이언트가 연결을 끊었습니다.");
-                                gameState.started = false;
-                            }
-                        }
+                ClientSession client = conn.getAttachment();
+                if (client != null) {
+                    Metrics.connectionsClosed.increment();
+                    if (code == CloseFrame.TOOBIG) {
+                        Metrics.oversizedIn.increment();
+                    }
+                    client.cancelLiveness();
+                    Log.info("❌ 클라이언트 연결 종료: " + client
+                        + "\n   종료 코드: " + code + ", 이유: " + (reason != null ? reason : "없음"));
 
-                        clients.remove(clientId);
-                        System.out.println("   남은 클라이언트 수: " + clients.size());
-                        broadcastState(null);
-
-                        // 모든 클라이언트가 연결을 끊었으면 즉시 서버 종료
-                        if (clients.isEmpty()) {
-                            System.out.println("\n⚠️  모든 클라이언트가 연결을 끊었습니다. 서버를 종료합니다...");
-                            // 즉시 종료 (별도 스레드에서 실행하여 onClose 핸들러가 완료되도록)
-                            new Thread(() -> {
-                                try {
-                                    Thread.sleep(200); // 200ms 대기하여 종료 신호가 전달되도록
-                                } catch (InterruptedException e) {
-                                    Thread.currentThread().interrupt();
-                                }
-                                shutdownServer();
-                            }, "ServerShutdownThread").start();
-                        }
+                    Room room = client.room;
+                    if (room != null) {
+                        room.leave(client);
                     }
+                    Log.info("   남은 클라이언트 수: " + rooms.totalClients());
                 }
             }
 
@@ -208,124 +293,95 @@ public class GameServer {
             public void onMessage(WebSocket conn, String message) {
                 lastRequestTime = System.currentTimeMillis();
 
+                ClientSession client = conn.getAttachment();
+                if (client != null) {
+                    client.lastSeenNanos = System.nanoTime();
+                    // 파싱하기 전에 종류별 속도 제한 (넘친 메시지는 앞부분만 보고 버림)
+                    // {"type":"..." 로 시작하지 않는 메시지(공백, 다른 키 순서)는 handleText 에서 파싱한 종류로 셈
+                    int category = RateLimiter.categoryOf(message);
+                    if (category != RateLimiter.UNKNOWN && !client.limiter.tryAcquire(category)) {
+                        client.checkRejects();
+                        return;
+                    }
+                    handleText(client, message);
+                }
+            }
+
+            @Override
+            public void onMessage(WebSocket conn, ByteBuffer message) {
+                lastRequestTime = System.currentTimeMillis();
+
+                ClientSession client = conn.getAttachment();
+                if (client == null || !client.binary || !message.hasRemaining()) return;
+                client.lastSeenNanos = System.nanoTime();
+                byte type = BinaryCodec.peekType(message);
+                if (!client.limiter.tryAcquire(RateLimiter.categoryOf(type))) {
+                    client.checkRejects();
+                    return;
+                }
+                client.messagesIn++;
+                Metrics.countIn(type);
+
                 try {
-                    JsonObject data = gson.fromJson(message, JsonObject.class);
-                    String type = data.get("type").getAsString();
-                    String clientId = findClientId(conn);
-                    ClientInfo client = clientId != null ? clients.get(clientId) : null;
-
-                    if (client == null) return;
-
-                    switch (type) {
-                        case "playerUpdate":
-                            // 모든 플레이어가 자신의 플레이어 데이터를 업데이트할 수 있음
-                            String updatePlayerId = data.get("playerId").getAsString();
-                            if (gameState.players.containsKey(updatePlayerId)) {
-                                // 자신의 플레이어만 업데이트 가능 (보안)
-                                if (updatePlayerId.equals(client.playerId)) {
-                                    PlayerData player = gameState.players.get(updatePlayerId);
-                                    JsonObject playerData = data.getAsJsonObject("player");
-                                    updatePlayerData(player, playerData);
-                                    broadcastState(null);
-                                }
-                            }
-                            break;
-
-                        case "startGame":
-                            // 호스트가 게임을 시작할 수 있음 (1명 이상, 솔로 플레이 포함)
-                            if (client.isHost && gameState.players.size() >= 1) {
-                                gameState.started = true;
-                                gameState.t = 0;
-                                gameState.paused = false;
-                                gameState.gameOver = false;
-                                System.out.println("🎮 호스트가 게임 시작 (총 " + gameState.players.size() + "명)");
-                                broadcastState(null);
-                            }
-                            break;
-
-                        case "reset":
-                            if (client.isHost) {
-                                gameState.t = 0;
-                                gameState.paused = false;
-                                gameState.gameOver = false;
-                                gameState.enemies.clear();
-                                gameState.projectiles.clear();
-                                gameState.orbs.clear();
-                                int idx = 0;
-                                for (PlayerData p : gameState.players.values()) {
-                                    p.x = idx * 40;
-                                    p.y = 0;
-                                    p.vx = 0;
-                                    p.vy = 0;
-                                    p.hp = 100;
-                                    p.hpMax = 100;
-                                    idx++;
-                                }
-                                broadcastState(null);
-                            }
-                            break;
-
-                        case "levelUp":
-                            // 모든 플레이어가 자신의 레벨을 업데이트할 수 있음
-                            String levelUpPlayerId = data.get("playerId").getAsString();
-                            if (gameState.players.containsKey(levelUpPlayerId)) {
-                                if (levelUpPlayerId.equals(client.playerId)) {
-                                    PlayerData p = gameState.players.get(levelUpPlayerId);
-                                    p.level = data.get("level").getAsInt();
-                                    broadcastState(null);
-                                }
-                            }
-                            break;
-
-                        case "projectile":
-                            // 모든 플레이어가 자신의 투사체를 브로드캐스트할 수 있음
-                            if (data.has("playerId") && data.has("projectile")) {
-                                String projPlayerId = data.get("playerId").getAsString();
-                                // 자신의 투사체만 브로드캐스트 가능
-                                if (projPlayerId.equals(client.playerId)) {
-                                    JsonObject msg = new JsonObject();
-                                    msg.addProperty("type", "projectile");
-                                    msg.add("playerId", data.get("playerId"));
-                                    msg.add("projectile", data.get("projectile"));
-                                    GameServer.broadcast(msg.toString(), clientId);
-                                }
-                            }
-                            break;
+                    // 크기가 맞지 않는 메시지는 방 스레드로 넘기지 않음
+                    BinaryCodec.checkInbound(message);
+                    Room room = client.room;
+                    if (room != null) {
+                        room.handleBinary(client, message);
                     }
                 } catch (Exception e) {
-                    System.err.println("메시지 파싱 오류: " + e.getMessage());
-                    e.printStackTrace();
+                    client.limiter.malformed();
+                    Log.limited(Log.Level.WARN, "binaryParse", "바이너리 메시지 파싱 오류 (" + client.clientId + "): " + e.getMessage(), null);
+                    client.checkRejects();
                 }
             }
 
             @Override
-            public void onError(WebSocket conn, Exception ex) {
-                String clientId = findClientId(conn);
-                System.err.println("\n❌ 클라이언트 오류 발생");
-                if (clientId != null) {
-                    System.err.println("   클라이언트 ID: " + clientId);
+            public void onWebsocketPong(WebSocket conn, Framedata f) {
+                Object attachment = conn.getAttachment();
+                if (attachment instanceof ClientSession) {
+                    ((ClientSession) attachment).onPong();
                 }
-                System.err.println("   오류 메시지: " + ex.getMessage());
-                ex.printStackTrace();
+            }
+
+            @Override
+            public void onError(WebSocket conn, Exception ex) {
+                ClientSession client = conn != null ? conn.getAttachment() : null;
+                // 연결이 끊길 때 한꺼번에 올라오는 경우가 많으므로 횟수 제한
+                Log.limited(Log.Level.ERROR, "wsError", "❌ 클라이언트 오류 발생"
+                    + (client != null ? "\n   클라이언트 ID: " + client.clientId : "")
+                    + "\n   오류 메시지: " + ex.getMessage(), ex);
             }
 
             @Override
             public void onStart() {
-                System.out.println("\n✅ WebSocket 서버가 포트 " + WS_PORT + "에서 리스닝 중입니다.");
-                System.out.println("   바인딩 주소: 0.0.0.0 (모든 네트워크 인터페이스)");
-                System.out.println("   로컬 주소: ws://localhost:" + WS_PORT);
-                if (tailscaleIP != null) {
-                    System.out.println("   Tailscale 주소: ws://" + tailscaleIP + ":" + WS_PORT);
-                    System.out.println("\n💡 다른 플레이어는 이 주소로 연결하세요:");
-                    System.out.println("   " + tailscaleIP);
-                    System.out.println("   또는: ws://" + tailscaleIP + ":" + WS_PORT);
-                } else {
-                    System.out.println("   ⚠️  Tailscale IP: 확인 필요 (tailscale ip 명령 실행)");
-                }
-                System.out.println("\n📡 서버가 모든 인터페이스에서 연결을 기다리는 중...\n");
+                Startup.wsListening();
+                // 다른 시작 단계와 줄이 섞이지 않도록 한 번에 출력
+                System.out.println("\n✅ WebSocket 서버가 포트 " + WS_PORT + "에서 리스닝 중입니다."
+                    + "\n   바인딩 주소: 0.0.0.0 (모든 네트워크 인터페이스)"
+                    + "\n   로컬 주소: ws://localhost:" + WS_PORT
+                    + "\n\n📡 서버가 모든 인터페이스에서 연결을 기다리는 중...\n");
             }
         };
 
+        // 핸드셰이크 기한: 연결을 받자마자 등록하고 onOpen 에서 취소 (끝내 열리지 않은 연결은 휠이 닫음)
+        wss.setWebSocketFactory(new DefaultWebSocketServerFactory() {
+            @Override
+            public WebSocketImpl createWebSocket(WebSocketAdapter adapter, List<Draft> drafts) {
+                WebSocketImpl conn = super.createWebSocket(adapter, drafts);
+                conn.setAttachment(wheel.schedule(() -> {
+                    if (conn.getReadyState() != ReadyState.NOT_YET_CONNECTED) return;
+                    Metrics.handshakeTimeouts.increment();
+                    Log.limited(Log.Level.WARN, "handshake", "⏱️  핸드셰이크 시간 초과로 연결 끊음: " + conn.getRemoteSocketAddress(), null);
+                    conn.closeConnection(CloseFrame.NEVER_CONNECTED, "handshake timeout");
+                }, HANDSHAKE_TIMEOUT_MILLIS));
+                return conn;
+            }
+        });
+        // 라이브러리의 연결 확인 타이머(모든 연결을 주기적으로 훑음)는 끄고 휠로 대신함
+        wss.setConnectionLostTimeout(0);
+        // 재시작 직후 이전 연결이 TIME_WAIT 으로 남아 있어도 바로 바인딩 (라이브러리 기본값은 false)
+        wss.setReuseAddr(true);
         wss.start();
     }
 
@@ -352,141 +408,125 @@ public class GameServer {
                 exchange.close();
             };
 
+            ipHandler = HttpExecutors.timed(httpIpLatency, ipHandler);
             httpServer.createContext("/ip", ipHandler);
             httpServer.createContext("/api/ip", ipHandler);
 
-            httpServer.setExecutor(null);
+            // 서버 지표 (Prometheus 텍스트 형식)
+            httpServer.createContext("/metrics", exchange -> {
+                byte[] body = Metrics.render(wss.getConnections(), rooms).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+
+            String executor = HttpExecutors.install(httpServer, "HttpIp");
             httpServer.start();
-            System.out.println("📡 HTTP 서버 시작: http://localhost:" + HTTP_PORT + "/ip (IP 정보 제공)");
+            System.out.println("📡 HTTP 서버 시작: http://localhost:" + HTTP_PORT + "/ip (IP 정보 제공), /metrics (서버 지표), 실행기: " + executor);
         } catch (IOException e) {
             System.err.println("HTTP 서버 시작 실패: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    // GAME_PORT 부터 5200 까지 차례로 바인딩을 시도
     private static void startGameServer() {
-        startGameServer(GAME_PORT);
+        assets = new StaticAssetCache(resolveWebRoot());
+        for (int port = GAME_PORT; ; port++) {
+            try {
+                gameServer = HttpServer.create(new InetSocketAddress("0.0.0.0", port), 0);
+                GAME_PORT = port;
+                break;
+            } catch (BindException e) {
+                if (port >= 5200) {
+                    System.err.println("❌ 사용 가능한 포트를 찾을 수 없습니다 (5173-5200).");
+                    System.exit(1);
+                }
+                System.out.println("⚠️  포트 " + port + "가 사용 중입니다. 포트 " + (port + 1) + "을 시도합니다...");
+            } catch (IOException e) {
+                System.err.println("❌ 게임 서버 오류: " + e.getMessage());
+                e.printStackTrace();
+                System.exit(1);
+            }
+        }
+        gameServer.createContext("/", HttpExecutors.timed(httpAssetLatency, exchange -> {
+            lastRequestTime = System.currentTimeMillis();
+            try {
+                assets.handle(exchange);
+            } catch (IOException e) {
+                Log.limited(Log.Level.WARN, "assetIo", "❌ 파일 전송 오류: " + e.getMessage(), null);
+            }
+        }));
+
+        String executor = HttpExecutors.install(gameServer, "HttpGame");
+        gameServer.start();
+
+        // 실제 바인딩 주소 확인
+        InetSocketAddress bindAddress = gameServer.getAddress();
+        System.out.println("🎮 게임 서버 시작:"
+            + "\n   바인딩 주소: " + bindAddress.getHostString() + ":" + bindAddress.getPort()
+            + "\n   로컬 주소: http://localhost:" + GAME_PORT
+            + "\n   파일 경로: " + assets.root()
+            + "\n   요청 처리: " + executor);
     }
 
-    private static void startGameServer(int port) {
+    // 접속 주소 안내: 모든 네트워크 인터페이스와 Tailscale 주소 (게임 서버 포트와 Tailscale 감지가 끝난 뒤)
+    private static void printAddresses() {
+        StringBuilder out = new StringBuilder("🌐 접속 주소:");
         try {
-            gameServer = HttpServer.create(new InetSocketAddress("0.0.0.0", port), 0);
-            gameServer.createContext("/", exchange -> {
-                lastRequestTime = System.currentTimeMillis();
-
-                String path = exchange.getRequestURI().getPath();
-                if (path.equals("/")) {
-                    path = "/index.html";
-                }
-
-                // JAR 파일 위치 또는 현재 작업 디렉토리 기준으로 파일 경로 설정
-                String currentDir = System.getProperty("user.dir");
-                // JAR 파일이 실행 중인 경우 JAR 파일이 있는 디렉토리 사용
-                try {
-                    String jarPath = GameServer.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath();
-                    if (jarPath != null && jarPath.endsWith(".jar")) {
-                        File jarFile = new File(jarPath);
-                        if (jarFile.exists()) {
-                            currentDir = jarFile.getParent();
-                        }
-                    }
-                } catch (Exception e) {
-                    // JAR 경로를 찾을 수 없으면 user.dir 사용
-                }
-                // path가 "/index.html" 형태이므로 첫 번째 '/'를 제거
-                String relativePath = path.startsWith("/") ? path.substring(1) : path;
-                Path filePath = Paths.get(currentDir, relativePath);
-
-                // 디버깅 정보 출력
-                System.out.println("📄 파일 요청: " + path + " -> " + filePath.toAbsolutePath());
-
-                String contentType = getContentType(filePath.toString());
-
-                try {
-                    if (Files.exists(filePath) && Files.isRegularFile(filePath)) {
-                        byte[] content = Files.readAllBytes(filePath);
-                        exchange.getResponseHeaders().set("Content-Type", contentType);
-                        exchange.sendResponseHeaders(200, content.length);
-                        exchange.getResponseBody().write(content);
-                    } else {
-                        // 404 오류 시 상세 정보 출력
-                        System.err.println("❌ 파일을 찾을 수 없습니다: " + filePath.toAbsolutePath());
-                        System.err.println("   현재 디렉토리: " + currentDir);
-                        String error = "<h1>404 - 파일을 찾을 수 없습니다</h1><p>요청한 경로: " + path + "</p><p>실제 경로: " + filePath.toAbsolutePath() + "</p>";
-                        exchange.getResponseHeaders().set("Content-Type", "text/html");
-                        exchange.sendResponseHeaders(404, error.getBytes().length);
-                        exchange.getResponseBody().write(error.getBytes());
-                    }
-                } catch (IOException e) {
-                    System.err.println("❌ 파일 읽기 오류: " + e.getMessage());
-                    String error = "서버 오류: " + e.getMessage();
-                    exchange.sendResponseHeaders(500, error.getBytes().length);
-                    exchange.getResponseBody().write(error.getBytes());
-                } finally {
-                    exchange.close();
-                }
-            });
-
-            gameServer.setExecutor(null);
-            gameServer.start();
-            GAME_PORT = port;
-
-            // 실제 바인딩 주소 확인
-            InetSocketAddress bindAddress = gameServer.getAddress();
-            System.out.println("🎮 게임 서버 시작:");
-            System.out.println("   바인딩 주소: " + bindAddress.getHostString() + ":" + bindAddress.getPort());
-            System.out.println("   로컬 주소: http://localhost:" + GAME_PORT);
-
-            // 모든 네트워크 인터페이스 정보 출력
-            try {
-                Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-                boolean hasTailscale = false;
-                while (interfaces.hasMoreElements()) {
-                    NetworkInterface iface = interfaces.nextElement();
-                    if (iface.isUp() && !iface.isLoopback()) {
-                        Enumeration<InetAddress> addresses = iface.getInetAddresses();
-                        while (addresses.hasMoreElements()) {
-                            InetAddress addr = addresses.nextElement();
-                            if (addr instanceof Inet4Address) {
-                                String ip = addr.getHostAddress();
-                                boolean isTailscale = ip.startsWith("100.");
-                                if (isTailscale) hasTailscale = true;
-                                System.out.println("   네트워크 인터페이스: " + iface.getName() + " -> " + ip + (isTailscale ? " (Tailscale)" : ""));
-                                System.out.println("     접속 주소: http://" + ip + ":" + GAME_PORT);
-                            }
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            boolean hasTailscale = false;
+            while (interfaces.hasMoreElements()) {
+                NetworkInterface iface = interfaces.nextElement();
+                if (iface.isUp() && !iface.isLoopback()) {
+                    Enumeration<InetAddress> addresses = iface.getInetAddresses();
+                    while (addresses.hasMoreElements()) {
+                        InetAddress addr = addresses.nextElement();
+                        if (addr instanceof Inet4Address) {
+                            String ip = addr.getHostAddress();
+                            boolean isTailscale = ip.startsWith("100.");
+                            if (isTailscale) hasTailscale = true;
+                            out.append("\n   네트워크 인터페이스: ").append(iface.getName()).append(" -> ").append(ip).append(isTailscale ? " (Tailscale)" : "");
+                            out.append("\n     접속 주소: http://").append(ip).append(':').append(GAME_PORT);
                         }
                     }
                 }
-                if (!hasTailscale && tailscaleIP == null) {
-                    System.out.println("   ⚠️  Tailscale 인터페이스를 찾을 수 없습니다.");
-                }
-            } catch (Exception e) {
-                System.err.println("   ⚠️  네트워크 인터페이스 정보를 가져올 수 없습니다: " + e.getMessage());
             }
-
-            if (tailscaleIP != null) {
-                System.out.println("\n💡 다른 플레이어는 이 주소로 접속하세요:");
-                System.out.println("   http://" + tailscaleIP + ":" + GAME_PORT);
+            if (!hasTailscale && tailscaleIP == null) {
+                out.append("\n   ⚠️  Tailscale 인터페이스를 찾을 수 없습니다.");
             }
+        } catch (Exception e) {
+            out.append("\n   ⚠️  네트워크 인터페이스 정보를 가져올 수 없습니다: ").append(e.getMessage());
+        }
 
-            // 브라우저 자동 열기
-            openBrowser("http://localhost:" + GAME_PORT);
+        if (tailscaleIP != null) {
+            out.append("\n   Tailscale 주소: ws://").append(tailscaleIP).append(':').append(WS_PORT);
+            out.append("\n\n💡 다른 플레이어는 이 주소로 접속하세요:");
+            out.append("\n   http://").append(tailscaleIP).append(':').append(GAME_PORT);
+            out.append("\n   (WebSocket: ws://").append(tailscaleIP).append(':').append(WS_PORT).append(')');
+        } else {
+            out.append("\n   ⚠️  Tailscale IP: 확인 필요 (tailscale ip 명령 실행)");
+        }
+        System.out.println(out);
+    }
 
-        } catch (IOException e) {
-            if (e.getMessage().contains("Address already in use")) {
-                if (port < 5200) {
-                    System.out.println("⚠️  포트 " + port + "가 사용 중입니다. 포트 " + (port + 1) + "을 시도합니다...");
-                    startGameServer(port + 1);
-                } else {
-                    System.err.println("❌ 사용 가능한 포트를 찾을 수 없습니다 (5173-5200).");
-                    System.exit(1);
+    // JAR 로 실행 중이면 JAR 파일이 있는 디렉토리, 아니면 현재 작업 디렉토리
+    private static Path resolveWebRoot() {
+        String currentDir = System.getProperty("user.dir");
+        try {
+            String jarPath = GameServer.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath();
+            if (jarPath != null && jarPath.endsWith(".jar")) {
+                File jarFile = new File(jarPath);
+                if (jarFile.exists()) {
+                    currentDir = jarFile.getParent();
                 }
-            } else {
-                System.err.println("❌ 게임 서버 오류: " + e.getMessage());
-                e.printStackTrace();
-                System.exit(1);
             }
+        } catch (Exception e) {
+            // JAR 경로를 찾을 수 없으면 user.dir 사용
         }
+        return Paths.get(currentDir);
     }
 
     private static void openBrowser(String url) {
@@ -552,7 +592,7 @@ public class GameServer {
         scheduler.scheduleAtFixedRate(() -> {
             long timeSinceLastRequest = System.currentTimeMillis() - lastRequestTime;
             long timeSinceServerStart = System.currentTimeMillis() - serverStartTime;
-            int activeClients = clients.size();
+            int activeClients = rooms.totalClients();
 
             // 활성 클라이언트가 있으면 계속 실행 (솔로 플레이 포함)
             // WebSocket 연결이 유지되면 브라우저가 열려있는 것으로 간주
@@ -585,6 +625,10 @@ public class GameServer {
         try {
             // 스케줄러 종료
             scheduler.shutdownNow();
+            wheel.stop();
+            if (rooms != null) {
+                rooms.stop();
+            }
             // 서버 종료
             if (wss != null) {
                 try {
@@ -602,7 +646,8 @@ public class GameServer {
         } catch (Exception e) {
             // 무시
         }
-        // 즉시 종료 (모든 스레드 강제 종료)
+        // 남은 로그를 내보내고 즉시 종료 (모든 스레드 강제 종료)
+        Log.shutdown();
         System.exit(0);
     }
 
@@ -653,88 +698,150 @@ public class GameServer {
         }
     }
 
-    private static void broadcastState(String excludeClientId) {
-        JsonObject msg = new JsonObject();
-        msg.addProperty("type", "state");
-        msg.add("state", gameState.toJson());
-        broadcast(msg.toString(), excludeClientId);
-    }
+    // 텍스트 메시지 처리 (WebSocket 스레드). 벤치마크(MessageDispatchBench)도 이 경로를 그대로 부름
+    static void handleText(ClientSession client, String message) {
+        try {
+            client.messagesIn++;
+            // onMessage 에서 앞부분으로 이미 센 종류 (UNKNOWN 이면 아직 안 셌음)
+            int charged = RateLimiter.categoryOf(message);
+
+            // 가장 자주 오는 playerUpdate 는 JsonObject 를 만들지 않고 바로 읽음
+            PlayerUpdate update = PlayerUpdate.decode(message);
+            if (update != null) {
+                if (charged == RateLimiter.UNKNOWN && !client.limiter.tryAcquire(RateLimiter.MOVE)) return;
+                Metrics.countIn("playerUpdate");
+                Room room = client.room;
+                if (room != null) {
+                    room.handlePlayerUpdate(client, update);
+                }
+                return;
+            }
 
-    private static void broadcast(String message, String excludeClientId) {
-        clients.forEach((id, client) -> {
-            if (!id.equals(excludeClientId) && client.conn.isOpen()) {
-                try {
-                    client.conn.send(message);
-                } catch (Exception e) {
-                    System.err.println("메시지 전송 실패 (" + id + "): " + e.getMessage());
-                    try {
-                        client.conn.close();
-                    } catch (Exception ex) {
-                        // 무시
-                    }
+            JsonObject data = parseStrict(message);
+            String type = data.get("type").getAsString();
+            int category = RateLimiter.categoryOfType(type);
+            if (charged == RateLimiter.UNKNOWN) {
+                // 앞부분으로 종류를 못 정한 메시지는 파싱한 종류로 셈 (모르는 종류는 UNKNOWN)
+                if (!client.limiter.tryAcquire(category)) {
+                    client.checkRejects();
+                    return;
                 }
+            } else if (category != charged) {
+                // 앞부분의 첫 "type" 으로 셌는데 Gson 은 마지막 "type" 을 씀
+                // ({"type":"ack","type":"createRoom"} 처럼 싼 종류로 세고 다른 종류를 보내는 것은 파싱 실패로 셈)
+                throw new IllegalArgumentException("type 이 중복됨: " + type);
             }
-        });
+            Metrics.countIn(type);
+
+            switch (type) {
+                case "listRooms":
+                    sendRoomList(client);
+                    break;
+
+                case "createRoom":
+                    // 새 방을 만들고 바로 입장 (만든 사람이 호스트). 한 연결이 방을 잔뜩 만들지 못하게 간격을 둠
+                    long now = System.currentTimeMillis();
+                    if (now - client.roomCreatedAt < CREATE_ROOM_COOLDOWN_MILLIS) {
+                        sendRoomError(client, "잠시 후에 다시 방을 만들어 주세요.");
+                        break;
+                    }
+                    client.roomCreatedAt = now;
+                    Room created = rooms.create(data.has("name") ? data.get("name").getAsString() : null);
+                    if (created == null) {
+                        sendRoomError(client, "방을 더 만들 수 없습니다.");
+                    } else {
+                        Log.info("🏠 방 생성: " + created.id + " (" + created.name + ")");
+                        switchRoom(client, created);
+                    }
+                    break;
+
+                case "joinRoom":
+                    Room target = rooms.get(data.has("roomId") ? data.get("roomId").getAsString() : null);
+                    if (target == null) {
+                        sendRoomError(client, "방을 찾을 수 없습니다.");
+                    } else if (target != client.room) {
+                        switchRoom(client, target);
+                    }
+                    break;
+
+                default:
+                    Room room = client.room;
+                    if (room != null) {
+                        room.handleMessage(client, type, data, message);
+                    }
+                    break;
+            }
+        } catch (Exception e) {
+            // 잘못된 메시지를 계속 보내는 클라이언트가 있어도 로그가 넘치지 않도록 횟수 제한 (스택은 남기지 않음)
+            client.limiter.malformed();
+            Log.limited(Log.Level.WARN, "parse", "메시지 파싱 오류 (" + client.clientId + "): " + e, null);
+            client.checkRejects();
+        }
     }
 
-    private static String findClientId(WebSocket conn) {
-        return clients.entrySet().stream()
-            .filter(e -> e.getValue().conn.equals(conn))
-            .map(Map.Entry::getKey)
-            .findFirst()
-            .orElse(null);
+    // 방을 옮김: 이전 방에서 나가고 새 방에 새 플레이어로 입장 ("connected" 를 다시 받음)
+    private static void switchRoom(ClientSession client, Room target) {
+        Room current = client.room;
+        if (current != null) {
+            current.leave(client);
+        }
+        if (!target.join(client)) {
+            roomClosed(client);
+        }
     }
 
-    private static void updatePlayerData(PlayerData player, JsonObject data) {
-        if (data.has("x")) player.x = data.get("x").getAsFloat();
-        if (data.has("y")) player.y = data.get("y").getAsFloat();
-        if (data.has("vx")) player.vx = data.get("vx").getAsFloat();
-        if (data.has("vy")) player.vy = data.get("vy").getAsFloat();
-        if (data.has("hp")) player.hp = data.get("hp").getAsInt();
-        if (data.has("hpMax")) player.hpMax = data.get("hpMax").getAsInt();
-        if (data.has("level")) player.level = data.get("level").getAsInt();
-        if (data.has("damage")) player.damage = data.get("damage").getAsFloat();
-        if (data.has("fireRate")) player.fireRate = data.get("fireRate").getAsFloat();
-        if (data.has("pierce")) player.pierce = data.get("pierce").getAsInt();
-        if (data.has("pickup")) player.pickup = data.get("pickup").getAsFloat();
-        if (data.has("dashCd")) player.dashCd = data.get("dashCd").getAsFloat();
-        if (data.has("dashCdMax")) player.dashCdMax = data.get("dashCdMax").getAsFloat();
-        if (data.has("projSize")) player.projSize = data.get("projSize").getAsFloat();
-        if (data.has("projCount")) player.projCount = data.get("projCount").getAsInt();
+    // 그 사이 정리된 방이면 기본 방으로 (입장 명령이 방 스레드에 도착하기 전에 닫힌 경우 방이 직접 부름)
+    static void roomClosed(ClientSession client) {
+        sendRoomError(client, "방이 닫혔습니다.");
+        rooms.defaultRoom().join(client);
     }
 
-    private static String getContentType(String filename) {
-        String ext = filename.substring(filename.lastIndexOf('.'));
-        switch (ext.toLowerCase()) {
-            case ".html": return "text/html";
-            case ".js": return "text/javascript";
-            case ".css": return "text/css";
-            case ".json": return "application/json";
-            case ".png": return "image/png";
-            case ".jpg": case ".jpeg": return "image/jpeg";
-            case ".gif": return "image/gif";
-            case ".svg": return "image/svg+xml";
-            case ".wav": return "audio/wav";
-            case ".mp4": return "video/mp4";
-            case ".woff": return "application/font-woff";
-            case ".ttf": return "application/font-ttf";
-            case ".eot": return "application/vnd.ms-fontobject";
-            case ".otf": return "application/font-otf";
-            case ".wasm": return "application/wasm";
-            default: return "application/octet-stream";
-        }
+    private static void sendRoomList(ClientSession client) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "rooms");
+        msg.add("rooms", rooms.listJson());
+        client.send(msg.toString());
     }
 
-    static class ClientInfo {
-        WebSocket conn;
-        String playerId;
-        boolean isHost;
+    private static void sendRoomError(ClientSession client, String message) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "roomError");
+        msg.addProperty("message", message);
+        client.send(msg.toString());
+    }
 
-        ClientInfo(WebSocket conn, String playerId, boolean isHost) {
-            this.conn = conn;
-            this.playerId = playerId;
-            this.isHost = isHost;
+    // 표준 JSON 만 받음. Gson 기본 파서는 작은따옴표, 따옴표 없는 키, NaN 등을 허용하는데
+    // projectile 은 받은 문자열을 그대로 다른 클라이언트에게 중계하므로 브라우저 JSON.parse 가 읽을 수 있는 것만 통과시킴
+    private static JsonObject parseStrict(String message) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(message));
+        JsonElement element = JSON_ELEMENT.read(reader);
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonSyntaxException("JSON 뒤에 다른 데이터가 있습니다");
         }
+        return element.getAsJsonObject();
+    }
+
+    // "/?room=abc123" -> "abc123"
+    private static String roomFromQuery(String resource) {
+        int q = resource != null ? resource.indexOf('?') : -1;
+        if (q < 0) return null;
+        for (String param : resource.substring(q + 1).split("&")) {
+            if (param.startsWith("room=")) {
+                return param.substring(5);
+            }
+        }
+        return null;
+    }
+
+    // "connected" 메시지에 외부 접속 주소 추가
+    static void addConnectionInfo(JsonObject response) {
+        response.addProperty("tailscaleIP", tailscaleIP);
+        response.addProperty("wsUrl", tailscaleIP != null ? "ws://" + tailscaleIP + ":" + WS_PORT : null);
+    }
+
+    static void dropClient(ClientSession client, Exception e) {
+        Log.limited(Log.Level.WARN, "send", "메시지 전송 실패 (" + client.clientId + "): " + e.getMessage(), null);
+        client.close();
     }
 
     static class GameState {
@@ -742,28 +849,67 @@ public class GameServer {
         double t = 0;
         boolean paused = false;
         boolean gameOver = false;
-        Map<String, PlayerData> players = new ConcurrentHashMap<>();
-        List<Object> enemies = new ArrayList<>();
-        List<Object> projectiles = new ArrayList<>();
-        List<Object> orbs = new ArrayList<>();
+        // 방 스레드에서만 읽고 씀 (다른 스레드는 Room.summary() 를 봄)
+        Map<String, PlayerData> players = new LinkedHashMap<>();
+        // 입장/퇴장 시 증가 (시뮬레이션이 플레이어 목록을 다시 만들지 판단)
+        int playersVersion = 0;
+        // 적/투사체/구슬 (서버 권한 모드에서만 채워짐)
+        final Simulation sim = new Simulation();
+        // 스냅샷을 만든 서버 시각 (방이 만들어진 뒤 ms). 클라이언트가 원격 플레이어를 시간 기준으로 보간할 때 씀
+        long ts = 0;
 
         JsonObject toJson() {
+            return toJson(null);
+        }
+
+        // view 가 있으면 관심 영역 안의 플레이어/엔티티만
+        JsonObject toJson(AreaOfInterest.View view) {
             JsonObject json = new JsonObject();
             json.addProperty("started", started);
             json.addProperty("t", t);
+            json.addProperty("ts", ts);
             json.addProperty("paused", paused);
             json.addProperty("gameOver", gameOver);
 
             JsonObject playersJson = new JsonObject();
-            players.forEach((id, player) -> playersJson.add(id, player.toJson()));
+            if (view != null) {
+                for (PlayerData player : view.players) {
+                    playersJson.add(player.id, player.toJson());
+                }
+            } else {
+                players.forEach((id, player) -> playersJson.add(id, player.toJson()));
+            }
             json.add("players", playersJson);
 
-            json.add("enemies", gson.toJsonTree(enemies));
-            json.add("projectiles", gson.toJsonTree(projectiles));
-            json.add("orbs", gson.toJsonTree(orbs));
+            sim.writeJson(json, view);
 
             return json;
         }
+
+        // toJson(view).toString() 과 같은 내용을 트리 없이 바로 씀
+        void writeJson(JsonStringWriter w, AreaOfInterest.View view) {
+            w.beginObject();
+            w.name("started").value(started);
+            w.name("t").value(t);
+            w.name("ts").value(ts);
+            w.name("paused").value(paused);
+            w.name("gameOver").value(gameOver);
+            w.name("players").beginObject();
+            if (view != null) {
+                for (PlayerData player : view.players) {
+                    w.name(player.id);
+                    player.writeJson(w);
+                }
+            } else {
+                for (PlayerData player : players.values()) {
+                    w.name(player.id);
+                    player.writeJson(w);
+                }
+            }
+            w.endObject();
+            sim.writeJson(w, view);
+            w.endObject();
+        }
     }
 
     static class PlayerData {
@@ -773,6 +919,18 @@ public class GameServer {
         String color;
         float damage, fireRate, pickup, regen, projSize, dashCd, dashCdMax;
         int pierce, projCount;
+        int xp = 0, xpToNext = 18;
+        // 입력 모드 (PlayerInput): 이동 속도, 대시 남은 시간, 마지막으로 적용한 입력 번호
+        // inputDriven 이면 위치/속도/대시를 서버가 계산하고 상태에 inputSeq, dashTime 을 붙임
+        float speed = 175, dashTime;
+        long inputSeq;
+        boolean inputDriven;
+        // "gun" (기본) 또는 "sword"
+        String characterType;
+        // 서버 시뮬레이션 전용 (전송하지 않음)
+        float invuln, shootAcc, regenAcc;
+        float facing, swordAngle, swordBase, swordCooldown;
+        int swingId;
 
         JsonObject toJson() {
             JsonObject json = new JsonObject();
@@ -794,8 +952,43 @@ public class GameServer {
             json.addProperty("projCount", projCount);
             json.addProperty("dashCd", dashCd);
             json.addProperty("dashCdMax", dashCdMax);
+            json.addProperty("xp", xp);
+            json.addProperty("xpToNext", xpToNext);
+            if (inputDriven) {
+                json.addProperty("dashTime", dashTime);
+                json.addProperty("inputSeq", inputSeq);
+            }
             return json;
         }
+
+        void writeJson(JsonStringWriter w) {
+            w.beginObject();
+            w.name("id").value(id);
+            w.name("x").value(x);
+            w.name("y").value(y);
+            w.name("vx").value(vx);
+            w.name("vy").value(vy);
+            w.name("hp").value(hp);
+            w.name("hpMax").value(hpMax);
+            w.name("level").value(level);
+            w.name("color").value(color);
+            w.name("damage").value(damage);
+            w.name("fireRate").value(fireRate);
+            w.name("pierce").value(pierce);
+            w.name("pickup").value(pickup);
+            w.name("regen").value(regen);
+            w.name("projSize").value(projSize);
+            w.name("projCount").value(projCount);
+            w.name("dashCd").value(dashCd);
+            w.name("dashCdMax").value(dashCdMax);
+            w.name("xp").value(xp);
+            w.name("xpToNext").value(xpToNext);
+            if (inputDriven) {
+                w.name("dashTime").value(dashTime);
+                w.name("inputSeq").value(inputSeq);
+            }
+            w.endObject();
+        }
     }
 }
 
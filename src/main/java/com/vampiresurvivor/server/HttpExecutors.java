@@ -0,0 +1,99 @@
+package com.vampiresurvivor.server;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// JDK HttpServer 실행기 선택
+// setExecutor(null) 이면 요청 헤더 읽기부터 응답 쓰기까지 전부 디스패처 스레드 하나에서 돌아서
+// 느린 클라이언트 하나가 다른 모든 요청을 막음. -Dsurvivors.httpExecutor=
+//   auto       가상 스레드가 있으면(JDK 21+) 가상 스레드, 없으면 pool (기본)
+//   virtual    가상 스레드 (없으면 pool 로 대체)
+//   pool       크기 제한 있는 플랫폼 스레드 풀 (survivors.httpThreads, 대기열 survivors.httpQueue)
+//   dispatcher 예전처럼 디스패처 스레드에서 처리
+final class HttpExecutors {
+    static final String MODE = System.getProperty("survivors.httpExecutor", "auto");
+    static final int POOL_THREADS = Integer.getInteger("survivors.httpThreads",
+        Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+    static final int POOL_QUEUE = Integer.getInteger("survivors.httpQueue", 1024);
+
+    // 풀과 대기열이 모두 찬 경우 (디스패처 스레드에서 직접 처리됨)
+    static final AtomicLong rejected = new AtomicLong();
+
+    private HttpExecutors() {
+    }
+
+    // 서버에 실행기를 붙이고 실제로 적용된 방식을 돌려줌
+    static String install(HttpServer server, String name) {
+        String mode = MODE.toLowerCase();
+        if (mode.equals("dispatcher")) {
+            server.setExecutor(null);
+            return "dispatcher";
+        }
+        if (mode.equals("auto") || mode.equals("virtual")) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                server.setExecutor(virtual);
+                return "virtual";
+            }
+            if (mode.equals("virtual")) {
+                System.out.println("⚠️  가상 스레드를 쓸 수 없는 JDK 입니다 (" + Runtime.version() + "). 스레드 풀을 사용합니다.");
+            }
+        } else if (!mode.equals("pool")) {
+            System.out.println("⚠️  알 수 없는 survivors.httpExecutor 값: " + MODE + " (pool 사용)");
+        }
+        server.setExecutor(newPool(name));
+        return "pool(" + POOL_THREADS + ")";
+    }
+
+    // 요청 처리 시간을 histogram 에 기록하는 핸들러 래퍼 (헤더 읽기 이후 ~ 응답 완료)
+    static HttpHandler timed(LatencyHistogram histogram, HttpHandler handler) {
+        return exchange -> {
+            long start = System.nanoTime();
+            try {
+                handler.handle(exchange);
+            } finally {
+                histogram.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() (JDK 21+). 17 에서도 빌드되도록 리플렉션으로 찾음
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPool(String name) {
+        AtomicInteger seq = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_THREADS, POOL_THREADS, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(POOL_QUEUE),
+            r -> {
+                Thread t = new Thread(r, name + "-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            (r, executor) -> {
+                // 꽉 차면 요청을 버리지 않고 디스패처 스레드에서 처리 (자연스럽게 accept 가 늦춰짐)
+                rejected.incrementAndGet();
+                if (!executor.isShutdown()) {
+                    r.run();
+                }
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
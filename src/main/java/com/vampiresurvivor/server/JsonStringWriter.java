@@ -0,0 +1,158 @@
+package com.vampiresurvivor.server;
+
+// 상태 스냅샷용 JSON 직렬화기. JsonObject 트리와 박싱된 숫자를 만들지 않고 StringBuilder 에 바로 씀
+// - 스레드마다 하나씩 두고 재사용 (local()). 방 틱은 워커 스레드에서만 돌므로 다른 스레드와 섞이지 않음
+// - 숫자는 StringBuilder.append(float/int) 로 쓰므로 중간 문자열이 생기지 않음
+// - 쉼표는 직전에 값이 있었는지만 기억해서 붙임 (이름 다음에는 붙이지 않음)
+final class JsonStringWriter {
+    // 큰 스냅샷 한 번 때문에 커진 버퍼를 계속 들고 있지 않도록
+    private static final int MAX_RETAINED_CHARS = 1 << 20;
+    private static final ThreadLocal<JsonStringWriter> LOCAL = ThreadLocal.withInitial(JsonStringWriter::new);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private StringBuilder sb = new StringBuilder(4096);
+    private boolean needComma = false;
+
+    // 이 스레드의 직렬화기를 비워서 돌려줌
+    static JsonStringWriter local() {
+        JsonStringWriter w = LOCAL.get();
+        w.reset();
+        return w;
+    }
+
+    void reset() {
+        if (sb.capacity() > MAX_RETAINED_CHARS) {
+            sb = new StringBuilder(4096);
+        } else {
+            sb.setLength(0);
+        }
+        needComma = false;
+    }
+
+    JsonStringWriter beginObject() {
+        comma();
+        sb.append('{');
+        needComma = false;
+        return this;
+    }
+
+    JsonStringWriter endObject() {
+        sb.append('}');
+        needComma = true;
+        return this;
+    }
+
+    JsonStringWriter beginArray() {
+        comma();
+        sb.append('[');
+        needComma = false;
+        return this;
+    }
+
+    JsonStringWriter endArray() {
+        sb.append(']');
+        needComma = true;
+        return this;
+    }
+
+    JsonStringWriter name(String name) {
+        comma();
+        string(name);
+        sb.append(':');
+        needComma = false;
+        return this;
+    }
+
+    JsonStringWriter value(String value) {
+        comma();
+        if (value == null) {
+            sb.append("null");
+        } else {
+            string(value);
+        }
+        needComma = true;
+        return this;
+    }
+
+    JsonStringWriter value(boolean value) {
+        comma();
+        sb.append(value);
+        needComma = true;
+        return this;
+    }
+
+    JsonStringWriter value(int value) {
+        comma();
+        sb.append(value);
+        needComma = true;
+        return this;
+    }
+
+    JsonStringWriter value(long value) {
+        comma();
+        sb.append(value);
+        needComma = true;
+        return this;
+    }
+
+    // NaN/무한대는 JSON 에 없으므로 null (Gson 트리는 "NaN" 을 그대로 써서 브라우저 JSON.parse 가 실패함)
+    JsonStringWriter value(float value) {
+        comma();
+        if (Float.isFinite(value)) {
+            sb.append(value);
+        } else {
+            sb.append("null");
+        }
+        needComma = true;
+        return this;
+    }
+
+    JsonStringWriter value(double value) {
+        comma();
+        if (Double.isFinite(value)) {
+            sb.append(value);
+        } else {
+            sb.append("null");
+        }
+        needComma = true;
+        return this;
+    }
+
+    int length() {
+        return sb.length();
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+
+    private void comma() {
+        if (needComma) {
+            sb.append(',');
+        }
+    }
+
+    private void string(String s) {
+        sb.append('"');
+        int n = s.length();
+        int run = 0;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            sb.append(s, run, i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    sb.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+            }
+            run = i + 1;
+        }
+        sb.append(s, run, n);
+        sb.append('"');
+    }
+}
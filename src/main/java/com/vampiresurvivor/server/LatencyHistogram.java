@@ -0,0 +1,99 @@
+package com.vampiresurvivor.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// 고정 버킷 지연 시간 히스토그램 (여러 스레드에서 기록, 잠금 없음)
+// - 버킷 상한은 10us ~ 5s 로그 간격. 백분위수는 해당 버킷의 상한으로 근사
+// - 버킷/합계는 LongAdder 라 여러 워커가 동시에 기록해도 같은 캐시 줄을 두고 다투지 않음 (읽을 때 합산)
+// - 값은 누적. 구간별 값이 필요하면 snapshot() 두 개의 차이를 씀
+final class LatencyHistogram {
+    // 버킷 상한 (마이크로초). 마지막 버킷은 그보다 큰 값 전부
+    static final long[] BOUNDS_MICROS = {
+        10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+        100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000
+    };
+
+    final String name;
+    private final LongAdder[] counts = new LongAdder[BOUNDS_MICROS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        long micros = nanos / 1000;
+        int i = 0;
+        while (i < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[i]) {
+            i++;
+        }
+        counts[i].increment();
+        count.increment();
+        sumNanos.add(nanos);
+        if (nanos > maxNanos.get()) {
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    long maxNanos() {
+        return maxNanos.get();
+    }
+
+    // 버킷별 개수 복사본 (길이 BOUNDS_MICROS.length + 1)
+    long[] snapshot() {
+        long[] copy = new long[counts.length];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts[i].sum();
+        }
+        return copy;
+    }
+
+    // p(0~1) 백분위수가 들어 있는 버킷의 상한(ms). 최대값보다 클 수는 없으므로 최대값으로 자름
+    static double percentileMillis(long[] buckets, double p, long maxNanos) {
+        long total = 0;
+        for (long c : buckets) total += c;
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return i < BOUNDS_MICROS.length ? Math.min(BOUNDS_MICROS[i] / 1000.0, maxNanos / 1e6) : maxNanos / 1e6;
+            }
+        }
+        return maxNanos / 1e6;
+    }
+
+    double percentileMillis(double p) {
+        return percentileMillis(snapshot(), p, maxNanos.get());
+    }
+
+    // "1234건, 평균 1.20ms, p50 ≤1ms, p99 ≤25ms, 최대 31.20ms"
+    String summary() {
+        long[] buckets = snapshot();
+        long n = count.sum();
+        long max = maxNanos.get();
+        return String.format("%d건, 평균 %.2fms, p50 ≤%sms, p90 ≤%sms, p99 ≤%sms, 최대 %.2fms",
+            n, n > 0 ? sumNanos.sum() / 1e6 / n : 0.0,
+            format(percentileMillis(buckets, 0.50, max)), format(percentileMillis(buckets, 0.90, max)),
+            format(percentileMillis(buckets, 0.99, max)), max / 1e6);
+    }
+
+    private static String format(double millis) {
+        return millis == Math.rint(millis) ? String.valueOf((long) millis) : String.format("%.2f", millis);
+    }
+}
@@ -0,0 +1,378 @@
+package com.vampiresurvivor.server;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// 서버 실행 중 로그 (시작 안내 문구는 그대로 System.out)
+// - 부르는 스레드(WebSocket, 방 워커, HTTP)는 고정 크기 링 버퍼에 항목을 넣기만 하고 바로 돌아감
+//   콘솔/파일 쓰기는 "Log-writer" 스레드 하나가 모아서 함. 버퍼가 가득 차면 그 항목은 버리고 개수만 셈 (기다리지 않음)
+// - limited(): 같은 키의 로그는 LIMIT_WINDOW_MILLIS 마다 LIMIT_BURST 건까지만 (잘못된 메시지가 쏟아질 때 등)
+//   생략한 건수는 그 키의 다음 로그에 붙임
+// - survivors.logFile 을 지정하면 JSON Lines 로도 씀 (MAX_BYTES 마다 .1, .2 ... 로 돌림)
+final class Log {
+    enum Level { DEBUG, INFO, WARN, ERROR }
+
+    static final Level LEVEL = parseLevel(System.getProperty("survivors.logLevel", "info"));
+    // 링 버퍼 크기 (2의 거듭제곱으로 올림). -Dsurvivors.logBuffer
+    static final int BUFFER = Integer.highestOneBit(Math.max(64, Integer.getInteger("survivors.logBuffer", 8192) * 2 - 1));
+    static final String FILE = System.getProperty("survivors.logFile");
+    static final long MAX_BYTES = Long.getLong("survivors.logMaxBytes", 10L * 1024 * 1024);
+    static final int MAX_FILES = Integer.getInteger("survivors.logFiles", 5);
+    static final boolean CONSOLE = !"false".equals(System.getProperty("survivors.logConsole"));
+    static final int LIMIT_BURST = Integer.getInteger("survivors.logBurst", 5);
+    static final long LIMIT_WINDOW_MILLIS = Long.getLong("survivors.logWindowMillis", 10_000);
+
+    // 버퍼가 가득 차서 버린 항목, limited() 로 생략한 항목
+    static final LongAdder dropped = new LongAdder();
+    static final LongAdder suppressed = new LongAdder();
+
+    // 링 버퍼 (여러 생산자, 소비자는 쓰기 스레드 하나)
+    // 칸마다 순번을 두고, 순번이 맞는 칸만 채우거나 꺼냄 (채운 뒤 순번을 올려서 소비자에게 보임)
+    private static final int MASK = BUFFER - 1;
+    private static final Entry[] slots = new Entry[BUFFER];
+    private static final AtomicLongArray sequences = new AtomicLongArray(BUFFER);
+    private static final AtomicLong tail = new AtomicLong();
+    private static long head = 0;
+
+    private static final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+    private static final Thread writer;
+    private static volatile boolean writerIdle = false;
+    private static volatile boolean stopping = false;
+
+    private static PrintStream out;
+    private static PrintStream err;
+    private static BufferedWriter file;
+    private static long fileBytes;
+    private static long reportedDropped = 0;
+
+    static {
+        for (int i = 0; i < BUFFER; i++) {
+            sequences.set(i, i);
+        }
+        writer = new Thread(Log::run, "Log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::shutdown, "Log-shutdown"));
+    }
+
+    private Log() {
+    }
+
+    static boolean enabled(Level level) {
+        return level.compareTo(LEVEL) >= 0;
+    }
+
+    static void debug(String message) {
+        log(Level.DEBUG, null, message, null, 0);
+    }
+
+    static void info(String message) {
+        log(Level.INFO, null, message, null, 0);
+    }
+
+    static void warn(String message) {
+        log(Level.WARN, null, message, null, 0);
+    }
+
+    static void error(String message, Throwable error) {
+        log(Level.ERROR, null, message, error, 0);
+    }
+
+    // 같은 key 로는 LIMIT_WINDOW_MILLIS 마다 LIMIT_BURST 건까지만 남김 (key 는 몇 가지 고정 문자열만 쓸 것)
+    static void limited(Level level, String key, String message, Throwable error) {
+        if (!enabled(level)) return;
+        Limiter limiter = limiters.computeIfAbsent(key, k -> new Limiter());
+        int skipped = limiter.acquire();
+        if (skipped < 0) {
+            suppressed.increment();
+            return;
+        }
+        log(level, key, message, error, skipped);
+    }
+
+    private static void log(Level level, String key, String message, Throwable error, int skipped) {
+        if (!enabled(level) || stopping) return;
+        Entry entry = new Entry(System.currentTimeMillis(), level, Thread.currentThread().getName(), key, message, error, skipped);
+        if (!offer(entry)) {
+            dropped.increment();
+            return;
+        }
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private static boolean offer(Entry entry) {
+        long pos = tail.get();
+        while (true) {
+            int i = (int) (pos & MASK);
+            long diff = sequences.get(i) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots[i] = entry;
+                    sequences.set(i, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // 한 바퀴 앞 칸을 아직 쓰기 스레드가 꺼내지 않음 = 가득 참
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    // 쓰기 스레드 전용
+    private static Entry poll() {
+        int i = (int) (head & MASK);
+        if (sequences.get(i) != head + 1) return null;
+        Entry entry = slots[i];
+        slots[i] = null;
+        sequences.set(i, head + BUFFER);
+        head++;
+        return entry;
+    }
+
+    // 남은 로그를 다 쓰고 멈춤 (종료 훅, GameServer.shutdownServer)
+    static void shutdown() {
+        if (stopping) return;
+        stopping = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void run() {
+        out = console(FileDescriptor.out, "stdout.encoding", "sun.stdout.encoding");
+        err = console(FileDescriptor.err, "stderr.encoding", "sun.stderr.encoding");
+        if (FILE != null) {
+            openFile();
+        }
+        while (true) {
+            Entry entry = poll();
+            if (entry != null) {
+                write(entry);
+                continue;
+            }
+            // 비었으면 모아 둔 것을 내보내고 잠듦 (생산자가 writerIdle 을 보고 깨움)
+            flushAll();
+            if (stopping) break;
+            writerIdle = true;
+            if (nothingToWrite()) {
+                LockSupport.parkNanos(100_000_000L);
+            }
+            writerIdle = false;
+        }
+        flushAll();
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // 무시
+            }
+        }
+    }
+
+    // writerIdle 을 켠 뒤에 한 번 더 확인 (그 사이에 들어온 항목을 놓치지 않도록)
+    private static boolean nothingToWrite() {
+        return sequences.get((int) (head & MASK)) != head + 1 && !stopping;
+    }
+
+    private static void write(Entry entry) {
+        long droppedNow = dropped.sum();
+        String note = null;
+        if (droppedNow > reportedDropped) {
+            note = "⚠️  로그 버퍼가 가득 차서 " + (droppedNow - reportedDropped) + "건을 버렸습니다.";
+            reportedDropped = droppedNow;
+        }
+        if (CONSOLE) {
+            PrintStream stream = entry.level.compareTo(Level.WARN) >= 0 ? err : out;
+            if (note != null) stream.println(note);
+            stream.println(entry.skipped > 0 ? entry.message + " (같은 로그 " + entry.skipped + "건 생략)" : entry.message);
+            if (entry.error != null) {
+                entry.error.printStackTrace(stream);
+            }
+        }
+        if (file != null) {
+            if (note != null) {
+                writeJson(new Entry(entry.time, Level.WARN, Thread.currentThread().getName(), null, note, null, 0));
+            }
+            writeJson(entry);
+        }
+    }
+
+    // {"ts":"2026-01-01T00:00:00.123Z","level":"WARN","thread":"...","key":"parse","msg":"...","suppressed":3,"error":"...","stack":"..."}
+    private static void writeJson(Entry entry) {
+        JsonStringWriter w = JsonStringWriter.local();
+        w.beginObject();
+        w.name("ts").value(Instant.ofEpochMilli(entry.time).toString());
+        w.name("level").value(entry.level.name());
+        w.name("thread").value(entry.thread);
+        if (entry.key != null) w.name("key").value(entry.key);
+        w.name("msg").value(entry.message);
+        if (entry.skipped > 0) w.name("suppressed").value(entry.skipped);
+        if (entry.error != null) {
+            w.name("error").value(entry.error.toString());
+            StringWriter trace = new StringWriter();
+            entry.error.printStackTrace(new PrintWriter(trace));
+            w.name("stack").value(trace.toString());
+        }
+        w.endObject();
+        String line = w.toString();
+        try {
+            file.write(line);
+            file.write('\n');
+            fileBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (fileBytes >= MAX_BYTES) {
+                rotate();
+            }
+        } catch (IOException e) {
+            fileFailed(e);
+        }
+    }
+
+    private static void openFile() {
+        try {
+            Path path = Paths.get(FILE);
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            fileBytes = Files.exists(path) ? Files.size(path) : 0;
+            file = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            fileFailed(e);
+        }
+    }
+
+    // log -> log.1 -> log.2 ... (MAX_FILES 개 넘는 것은 지움)
+    private static void rotate() throws IOException {
+        file.close();
+        file = null;
+        Path path = Paths.get(FILE);
+        for (int i = MAX_FILES - 1; i >= 1; i--) {
+            Path from = Paths.get(FILE + "." + i);
+            if (Files.exists(from)) {
+                Files.move(from, Paths.get(FILE + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (MAX_FILES >= 1) {
+            Files.move(path, Paths.get(FILE + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(path);
+        }
+        openFile();
+    }
+
+    private static void fileFailed(IOException e) {
+        err.println("❌ 로그 파일에 쓸 수 없습니다 (" + FILE + "): " + e.getMessage() + " - 파일 로그를 끕니다.");
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException ignored) {
+                // 무시
+            }
+        }
+        file = null;
+    }
+
+    private static void flushAll() {
+        out.flush();
+        err.flush();
+        if (file != null) {
+            try {
+                file.flush();
+            } catch (IOException e) {
+                fileFailed(e);
+            }
+        }
+    }
+
+    // System.out 과 같은 인코딩으로, 줄마다 flush 하지 않는 콘솔 스트림
+    private static PrintStream console(FileDescriptor fd, String property, String legacyProperty) {
+        String encoding = System.getProperty(property, System.getProperty(legacyProperty));
+        Charset charset = Charset.defaultCharset();
+        if (encoding != null && Charset.isSupported(encoding)) {
+            charset = Charset.forName(encoding);
+        }
+        try {
+            return new PrintStream(new FileOutputStream(fd), false, charset.name());
+        } catch (UnsupportedEncodingException e) {
+            return new PrintStream(new FileOutputStream(fd), false);
+        }
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    private static final class Entry {
+        final long time;
+        final Level level;
+        final String thread;
+        final String key;
+        final String message;
+        final Throwable error;
+        final int skipped;
+
+        Entry(long time, Level level, String thread, String key, String message, Throwable error, int skipped) {
+            this.time = time;
+            this.level = level;
+            this.thread = thread;
+            this.key = key;
+            this.message = message;
+            this.error = error;
+            this.skipped = skipped;
+        }
+    }
+
+    // 고정 창 카운터: 창마다 LIMIT_BURST 건 통과, 나머지는 생략 건수로
+    private static final class Limiter {
+        private volatile long windowStart = System.currentTimeMillis();
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+
+        // 통과면 그동안 생략한 건수(0 이상), 생략이면 -1
+        int acquire() {
+            long now = System.currentTimeMillis();
+            if (now - windowStart >= LIMIT_WINDOW_MILLIS) {
+                windowStart = now;
+                count.set(0);
+            }
+            if (count.incrementAndGet() > LIMIT_BURST) {
+                skipped.incrementAndGet();
+                return -1;
+            }
+            return skipped.getAndSet(0);
+        }
+    }
+}
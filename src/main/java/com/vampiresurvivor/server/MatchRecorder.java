@@ -0,0 +1,207 @@
+package com.vampiresurvivor.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// 방 하나의 경기 기록 (-Dsurvivors.recordDir=recordings 일 때만)
+// 방이 받은 명령(입장/퇴장, playerUpdate, projectile, levelUp, startGame, reset, input, ack, 바이너리 메시지)을
+// 받은 순서대로, 그리고 KEYFRAME_MILLIS 마다 전체 상태 스냅샷을 덧붙여 씀. MatchReplay 도구로 다시 보낼 수 있음
+// - 방 스레드에서만 씀 (명령이 실제로 적용되는 순서 그대로). WebSocket 스레드는 하는 일이 없음
+// - 파일은 CHUNK 단위로 메모리 매핑해서 이어 씀 (메시지마다 시스템 콜 없음). 매핑한 뒤 아직 안 쓴 부분은 0 이므로
+//   종류 0 을 만나면 끝. 서버가 그냥 죽어도 거기까지는 읽을 수 있음 (정상 종료면 끝을 잘라냄)
+// - 키프레임 위치는 옆의 .idx 파일에 [i32 시각 ms][i64 위치] 로 따로 남김 (원하는 시각부터 재생)
+//
+// 파일 (리틀 엔디언, 문자열은 [u16 길이][UTF-8])
+//   헤더: [u32 MAGIC][u16 VERSION][i64 시작 시각 epoch ms][u8 플래그 1=authoritative 2=inputMode]
+//         [u16 tickHz][u16 simHz][u16 inputHz][str 방 ID][str 방 이름]
+//   기록: [u8 종류][u16 플레이어 번호][i32 시작 후 ms][i32 길이][내용]
+//     JOIN     [u8 바이너리 여부][str clientId]   (플레이어 번호는 "P3" 의 3)
+//     LEAVE    없음
+//     TEXT     받은 JSON 문자열 그대로 (UTF-8)
+//     BINARY   받은 바이너리 메시지 그대로
+//     KEYFRAME {"type":"state","seq":..,"state":{..}} (플레이어 번호 0)
+final class MatchRecorder {
+    static final String DIR = System.getProperty("survivors.recordDir");
+    static final long KEYFRAME_MILLIS = Long.getLong("survivors.recordKeyframeMillis", 5000);
+    static final long MAX_BYTES = Long.getLong("survivors.recordMaxBytes", 512L * 1024 * 1024);
+
+    static final int MAGIC = 0x43525653; // "SVRC"
+    static final int VERSION = 1;
+    static final int RECORD_HEADER = 1 + 2 + 4 + 4;
+    static final byte JOIN = 1, LEAVE = 2, TEXT = 3, BINARY = 4, KEYFRAME = 5;
+    static final String EXTENSION = ".svrec";
+
+    private static final int CHUNK = 4 * 1024 * 1024;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    final Path path;
+    private final FileChannel channel;
+    private final FileChannel index;
+    private final long startNanos = System.nanoTime();
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+    private MappedByteBuffer buffer;
+    // 지금 매핑한 구역이 파일에서 시작하는 위치
+    private long bufferBase;
+    private long nextKeyframeNanos = 0;
+    private long records = 0;
+    private boolean closed = false;
+
+    private MatchRecorder(Path path, String roomId, String roomName) throws IOException {
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(indexPath(path), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        map(0, CHUNK);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.put((byte) ((GameServer.AUTHORITATIVE ? 1 : 0) | (GameServer.INPUT_MODE ? 2 : 0)));
+        buffer.putShort((short) GameServer.TICK_HZ);
+        buffer.putShort((short) GameServer.SIM_HZ);
+        buffer.putShort((short) GameServer.INPUT_HZ);
+        putString(roomId);
+        putString(roomName);
+    }
+
+    // 실패하면 로그만 남기고 null (녹화 없이 계속)
+    static MatchRecorder open(Path dir, String roomId, String roomName) {
+        try {
+            Files.createDirectories(dir);
+            String stamp = LocalDateTime.now().format(FILE_TIME);
+            Path path = dir.resolve(roomId + "-" + stamp + EXTENSION);
+            for (int n = 2; Files.exists(path); n++) {
+                path = dir.resolve(roomId + "-" + stamp + "-" + n + EXTENSION);
+            }
+            MatchRecorder recorder = new MatchRecorder(path, roomId, roomName);
+            Log.info("🎬 경기 기록 시작: " + path);
+            return recorder;
+        } catch (IOException e) {
+            Log.warn("⚠️  경기 기록 파일을 만들 수 없습니다 (방 " + roomId + "): " + e.getMessage());
+            return null;
+        }
+    }
+
+    static Path indexPath(Path recording) {
+        return recording.resolveSibling(recording.getFileName() + ".idx");
+    }
+
+    void join(int player, String clientId, boolean binary) {
+        byte[] id = clientId.getBytes(StandardCharsets.UTF_8);
+        if (!begin(JOIN, player, 1 + 2 + id.length)) return;
+        buffer.put((byte) (binary ? 1 : 0));
+        buffer.putShort((short) id.length);
+        buffer.put(id);
+    }
+
+    void leave(int player) {
+        begin(LEAVE, player, 0);
+    }
+
+    void text(int player, String message) {
+        byte[] utf8 = message.getBytes(StandardCharsets.UTF_8);
+        if (!begin(TEXT, player, utf8.length)) return;
+        buffer.put(utf8);
+    }
+
+    // message 의 위치는 건드리지 않음
+    void binary(int player, ByteBuffer message) {
+        if (!begin(BINARY, player, message.remaining())) return;
+        buffer.put(message.duplicate());
+    }
+
+    // 상태 틱에서 스냅샷을 새로 만들 때마다 확인
+    boolean keyframeDue() {
+        return !closed && System.nanoTime() >= nextKeyframeNanos;
+    }
+
+    void keyframe(String stateMessage) {
+        nextKeyframeNanos = System.nanoTime() + KEYFRAME_MILLIS * 1_000_000;
+        byte[] utf8 = stateMessage.getBytes(StandardCharsets.UTF_8);
+        long offset = position();
+        if (!begin(KEYFRAME, 0, utf8.length)) return;
+        buffer.put(utf8);
+        try {
+            indexEntry.clear();
+            indexEntry.putInt(elapsedMillis()).putLong(offset).flip();
+            index.write(indexEntry);
+        } catch (IOException e) {
+            Log.warn("⚠️  경기 기록 색인 쓰기 실패 (" + path + "): " + e.getMessage());
+        }
+    }
+
+    // 기록 머리를 쓰고 내용을 쓸 자리를 확보. 크기 제한에 걸렸거나 닫혔으면 false
+    private boolean begin(byte kind, int player, int length) {
+        if (closed) return false;
+        int size = RECORD_HEADER + length;
+        if (buffer.remaining() < size) {
+            long at = position();
+            if (at + size > MAX_BYTES) {
+                Log.warn("⚠️  경기 기록이 최대 크기(" + MAX_BYTES / (1024 * 1024) + "MB)에 도달해 중단합니다: " + path);
+                close();
+                return false;
+            }
+            try {
+                map(at, Math.max(CHUNK, size));
+            } catch (IOException e) {
+                Log.warn("⚠️  경기 기록 중단 (" + path + "): " + e.getMessage());
+                close();
+                return false;
+            }
+        }
+        buffer.put(kind);
+        buffer.putShort((short) player);
+        buffer.putInt(elapsedMillis());
+        buffer.putInt(length);
+        records++;
+        return true;
+    }
+
+    private void map(long at, int size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, at, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        bufferBase = at;
+    }
+
+    private long position() {
+        return bufferBase + buffer.position();
+    }
+
+    private int elapsedMillis() {
+        return (int) ((System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private void putString(String s) {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) utf8.length);
+        buffer.put(utf8);
+    }
+
+    // 방 스레드에서 (방 정리), 또는 워커가 멈춘 뒤 (서버 종료)
+    void close() {
+        if (closed) return;
+        closed = true;
+        long end = position();
+        try {
+            buffer.force();
+            // 매핑이 남아 있으면 잘라내지 못하는 OS 도 있음 (그래도 끝은 종류 0 으로 알 수 있음)
+            try {
+                channel.truncate(end);
+            } catch (IOException e) {
+                // 무시
+            }
+            channel.close();
+            index.close();
+        } catch (IOException e) {
+            Log.warn("⚠️  경기 기록 닫기 실패 (" + path + "): " + e.getMessage());
+        }
+        Log.info(String.format("🎬 경기 기록 저장: %s (%d건, %.1fMB)", path, records, end / (1024.0 * 1024.0)));
+    }
+}
@@ -0,0 +1,292 @@
+package com.vampiresurvivor.server;
+
+import org.java_websocket.WebSocket;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+// HTTP 포트의 /metrics 로 내보내는 서버 지표 (Prometheus 텍스트 형식 0.0.4)
+// - 기록은 방 워커/WebSocket 스레드에서 잠금 없이 (LongAdder, 고정 버킷 LatencyHistogram)
+//   렌더링은 요청이 올 때 HTTP 스레드에서 합산해서 만듦
+// - 연결/방/클라이언트 값은 그 시점의 게이지, 나머지는 서버 시작 후 누적 카운터
+final class Metrics {
+    // 받은 메시지 종류 (목록에 없는 종류는 "other")
+    private static final String[] IN_TYPES = {
+        "playerUpdate", "projectile", "input", "ack", "levelUp", "startGame", "reset",
+        "listRooms", "createRoom", "joinRoom"
+    };
+    private static final LongAdder[] messagesIn = new LongAdder[IN_TYPES.length + 1];
+    // RateLimiter 종류별로 속도 초과로 버린 메시지
+    private static final LongAdder[] rejectedIn = new LongAdder[RateLimiter.NAMES.length];
+    // 히스토그램 버킷 상한 (초, "0.00025" 처럼 지수 표기 없이)
+    private static final String[] BUCKET_LABELS = new String[LatencyHistogram.BOUNDS_MICROS.length];
+
+    static {
+        for (int i = 0; i < messagesIn.length; i++) {
+            messagesIn[i] = new LongAdder();
+        }
+        for (int i = 0; i < rejectedIn.length; i++) {
+            rejectedIn[i] = new LongAdder();
+        }
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            BUCKET_LABELS[i] = BigDecimal.valueOf(LatencyHistogram.BOUNDS_MICROS[i], 6).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    // 보낸 메시지: 상태(state/stateDelta/바이너리 스냅샷)와 그 밖의 이벤트로 나눔
+    static final LongAdder statesOut = new LongAdder();
+    static final LongAdder eventsOut = new LongAdder();
+    // 실제로 연결에 쓴 페이로드 바이트 (문자열은 글자 수)
+    static final LongAdder bytesOut = new LongAdder();
+    // permessage-deflate 로 압축한 페이로드의 압축 전/후 바이트 (공유 프레임은 한 번만 셈)
+    static final LongAdder deflateIn = new LongAdder();
+    static final LongAdder deflateOut = new LongAdder();
+    static final LongAdder connectionsOpened = new LongAdder();
+    static final LongAdder connectionsClosed = new LongAdder();
+    // 연결 시간 제한으로 끊은 수 (ConnectionWheel)
+    static final LongAdder idleTimeouts = new LongAdder();
+    static final LongAdder handshakeTimeouts = new LongAdder();
+    // 받기 전에 거부한 메시지: 파싱 실패, 크기 초과로 끊은 연결, 파싱 실패가 쌓여 끊은 연결 (종류별 속도 초과는 rejectedIn)
+    static final LongAdder malformedIn = new LongAdder();
+    static final LongAdder oversizedIn = new LongAdder();
+    static final LongAdder abusiveClientsClosed = new LongAdder();
+
+    // 방 틱 처리 시간, 예정보다 늦게 시작한 정도, 한 번 보내는 데(모든 멤버에게) 걸린 시간
+    static final LatencyHistogram stateTick = new LatencyHistogram("stateTick");
+    static final LatencyHistogram simTick = new LatencyHistogram("simTick");
+    static final LatencyHistogram tickLateness = new LatencyHistogram("tickLateness");
+    static final LatencyHistogram stateFanout = new LatencyHistogram("stateFanout");
+    static final LatencyHistogram eventFanout = new LatencyHistogram("eventFanout");
+    // ping/pong 왕복 시간 (모든 클라이언트)
+    static final LatencyHistogram rtt = new LatencyHistogram("rtt");
+
+    private Metrics() {
+    }
+
+    static void countIn(String type) {
+        for (int i = 0; i < IN_TYPES.length; i++) {
+            if (IN_TYPES[i].equals(type)) {
+                messagesIn[i].increment();
+                return;
+            }
+        }
+        messagesIn[IN_TYPES.length].increment();
+    }
+
+    static void countIn(byte binaryType) {
+        switch (binaryType) {
+            case BinaryCodec.MSG_PLAYER_UPDATE:
+                messagesIn[0].increment();
+                break;
+            case BinaryCodec.MSG_PROJECTILE:
+                messagesIn[1].increment();
+                break;
+            default:
+                messagesIn[IN_TYPES.length].increment();
+                break;
+        }
+    }
+
+    static void countRejected(int category) {
+        rejectedIn[category].increment();
+    }
+
+    static String render(Collection<WebSocket> connections, RoomManager rooms) {
+        StringBuilder out = new StringBuilder(8 * 1024);
+
+        header(out, "survivors_connections", "gauge", "Open WebSocket connections");
+        sample(out, "survivors_connections", null, connections.size());
+        counter(out, "survivors_connections_opened_total", "WebSocket connections accepted", connectionsOpened.sum());
+        counter(out, "survivors_connections_closed_total", "WebSocket connections closed", connectionsClosed.sum());
+        counter(out, "survivors_slow_clients_evicted_total", "Connections closed because the outbox backed up", GameServer.slowClientsEvicted.sum());
+        counter(out, "survivors_idle_timeouts_total", "Connections closed after receiving nothing for the idle timeout", idleTimeouts.sum());
+        counter(out, "survivors_handshake_timeouts_total", "Connections closed before finishing the WebSocket handshake", handshakeTimeouts.sum());
+        header(out, "survivors_connection_timers", "gauge", "Pending handshake and keepalive deadlines");
+        sample(out, "survivors_connection_timers", null, GameServer.wheel.pending());
+
+        header(out, "survivors_messages_in_total", "counter", "Messages received by type");
+        for (int i = 0; i <= IN_TYPES.length; i++) {
+            String type = i < IN_TYPES.length ? IN_TYPES[i] : "other";
+            sample(out, "survivors_messages_in_total", "type=\"" + type + "\"", messagesIn[i].sum());
+        }
+        header(out, "survivors_messages_rejected_total", "counter", "Messages rejected before handling");
+        for (int i = 0; i < rejectedIn.length; i++) {
+            sample(out, "survivors_messages_rejected_total", "reason=\"rate\",type=\"" + RateLimiter.NAMES[i] + "\"", rejectedIn[i].sum());
+        }
+        sample(out, "survivors_messages_rejected_total", "reason=\"malformed\"", malformedIn.sum());
+        sample(out, "survivors_messages_rejected_total", "reason=\"oversize\"", oversizedIn.sum());
+        counter(out, "survivors_abusive_clients_closed_total", "Connections closed after too many malformed messages", abusiveClientsClosed.sum());
+        header(out, "survivors_messages_out_total", "counter", "Messages sent by kind");
+        sample(out, "survivors_messages_out_total", "kind=\"state\"", statesOut.sum());
+        sample(out, "survivors_messages_out_total", "kind=\"event\"", eventsOut.sum());
+        counter(out, "survivors_bytes_sent_total", "Payload bytes written to connections", bytesOut.sum());
+
+        counter(out, "survivors_snapshots_built_total", "State snapshots built", GameServer.snapshotsBuilt.sum());
+        counter(out, "survivors_updates_coalesced_total", "Player updates merged into snapshots", GameServer.updatesCoalesced.sum());
+        counter(out, "survivors_snapshots_skipped_total", "Snapshots skipped for backlogged clients", GameServer.snapshotsSkipped.sum());
+        counter(out, "survivors_states_superseded_total", "Queued snapshots replaced by a newer one", GameServer.statesSuperseded.sum());
+        counter(out, "survivors_keyframes_sent_total", "Full snapshots sent to delta clients", GameServer.keyframesSent.sum());
+        counter(out, "survivors_deltas_sent_total", "Delta snapshots sent", GameServer.deltasSent.sum());
+        counter(out, "survivors_keyframe_bytes_total", "Bytes of full snapshots sent to delta clients", GameServer.keyframeBytes.sum());
+        counter(out, "survivors_delta_bytes_total", "Bytes of delta snapshots sent", GameServer.deltaBytes.sum());
+        counter(out, "survivors_aoi_entities_sent_total", "Entities included after area-of-interest filtering", GameServer.aoiEntitiesSent.sum());
+        counter(out, "survivors_aoi_entities_total", "Entities considered for area-of-interest filtering", GameServer.aoiEntitiesTotal.sum());
+        counter(out, "survivors_shared_frames_encoded_total", "Shared broadcast frames encoded", GameServer.sharedFramesEncoded.sum());
+        counter(out, "survivors_shared_frames_sent_total", "Shared broadcast frames sent", GameServer.sharedFramesSent.sum());
+        counter(out, "survivors_shared_frames_deflated_total", "Shared broadcast frames compressed once for permessage-deflate clients", GameServer.sharedFramesDeflated.sum());
+        counter(out, "survivors_deflate_input_bytes_total", "Payload bytes before permessage-deflate compression", deflateIn.sum());
+        counter(out, "survivors_deflate_output_bytes_total", "Payload bytes after permessage-deflate compression", deflateOut.sum());
+        counter(out, "survivors_inputs_applied_total", "Input-mode inputs applied", GameServer.inputsApplied.sum());
+        counter(out, "survivors_inputs_dropped_total", "Input-mode inputs dropped", GameServer.inputsDropped.sum());
+        counter(out, "survivors_log_dropped_total", "Log entries dropped because the log buffer was full", Log.dropped.sum());
+        counter(out, "survivors_log_suppressed_total", "Log entries suppressed by rate limiting", Log.suppressed.sum());
+        counter(out, "survivors_http_rejected_total", "HTTP requests rejected by a saturated pool", HttpExecutors.rejected.get());
+
+        histogram(out, "survivors_state_tick_seconds", "Room state tick duration", stateTick);
+        histogram(out, "survivors_sim_tick_seconds", "Room simulation tick duration", simTick);
+        histogram(out, "survivors_tick_lateness_seconds", "Delay between scheduled and actual state tick start", tickLateness);
+        histogram(out, "survivors_state_fanout_seconds", "Time to send one snapshot to every room member", stateFanout);
+        histogram(out, "survivors_event_fanout_seconds", "Time to send one broadcast or relayed projectile to a room", eventFanout);
+        histogram(out, "survivors_client_rtt_seconds", "WebSocket ping/pong round-trip time", rtt);
+        histogram(out, "survivors_http_asset_seconds", "Static asset request latency", GameServer.httpAssetLatency);
+        histogram(out, "survivors_http_ip_seconds", "IP info request latency", GameServer.httpIpLatency);
+
+        renderStartup(out);
+        renderRooms(out, rooms);
+        renderClients(out, connections);
+        renderJvm(out);
+        return out.toString();
+    }
+
+    // 시작 단계별로 JVM 시작부터 걸린 시간 (아직 안 지난 단계는 빠짐)
+    private static void renderStartup(StringBuilder out) {
+        header(out, "survivors_startup_seconds", "gauge", "Time from JVM start to each startup phase");
+        startupPhase(out, "main", Startup.jvmSeconds());
+        startupPhase(out, "ws_listening", Startup.wsListeningSeconds());
+        startupPhase(out, "ready", Startup.readySeconds());
+        startupPhase(out, "first_accept", Startup.firstAcceptSeconds());
+    }
+
+    private static void startupPhase(StringBuilder out, String phase, double seconds) {
+        if (seconds >= 0) {
+            sample(out, "survivors_startup_seconds", "phase=\"" + phase + "\"", seconds);
+        }
+    }
+
+    private static void renderRooms(StringBuilder out, RoomManager rooms) {
+        Collection<Room> all = rooms.rooms();
+        header(out, "survivors_rooms", "gauge", "Open rooms");
+        sample(out, "survivors_rooms", null, all.size());
+        header(out, "survivors_room_clients", "gauge", "Clients per room");
+        for (Room room : all) {
+            sample(out, "survivors_room_clients", "room=\"" + escape(room.id) + "\"", room.summary().clients);
+        }
+    }
+
+    // 클라이언트마다 송신 대기열 깊이와 누적 값 (연결 수만큼 줄이 생김)
+    private static void renderClients(StringBuilder out, Collection<WebSocket> connections) {
+        StringBuilder depth = new StringBuilder();
+        StringBuilder peak = new StringBuilder();
+        StringBuilder dropped = new StringBuilder();
+        StringBuilder rtt = new StringBuilder();
+        StringBuilder rejected = new StringBuilder();
+        for (WebSocket conn : connections) {
+            ClientSession client = conn.getAttachment();
+            if (client == null) continue;
+            Room room = client.room;
+            String labels = "client=\"" + escape(client.clientId) + "\",room=\"" + (room != null ? escape(room.id) : "") + "\"";
+            sample(depth, "survivors_client_outbox_depth", labels, client.queued());
+            sample(peak, "survivors_client_outbox_peak", labels, client.outboxPeak);
+            sample(dropped, "survivors_client_states_dropped_total", labels, client.statesDropped);
+            sample(rejected, "survivors_client_rejected_total", labels, client.limiter.totalRejected());
+            if (client.smoothedRttMillis >= 0) {
+                sample(rtt, "survivors_client_smoothed_rtt_seconds", labels, client.smoothedRttMillis / 1000.0);
+            }
+        }
+        header(out, "survivors_client_outbox_depth", "gauge", "Messages waiting in the client's outbox");
+        out.append(depth);
+        header(out, "survivors_client_outbox_peak", "gauge", "Largest outbox depth seen for the client");
+        out.append(peak);
+        header(out, "survivors_client_states_dropped_total", "counter", "Snapshots skipped or replaced for the client");
+        out.append(dropped);
+        header(out, "survivors_client_smoothed_rtt_seconds", "gauge", "Smoothed ping/pong round-trip time for the client");
+        out.append(rtt);
+        header(out, "survivors_client_rejected_total", "counter", "Messages from the client rejected by rate limiting or parsing");
+        out.append(rejected);
+    }
+
+    private static void renderJvm(StringBuilder out) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+        header(out, "jvm_memory_used_bytes", "gauge", "Used memory");
+        sample(out, "jvm_memory_used_bytes", "area=\"heap\"", heap.getUsed());
+        sample(out, "jvm_memory_used_bytes", "area=\"nonheap\"", nonHeap.getUsed());
+        header(out, "jvm_memory_committed_bytes", "gauge", "Committed memory");
+        sample(out, "jvm_memory_committed_bytes", "area=\"heap\"", heap.getCommitted());
+        sample(out, "jvm_memory_committed_bytes", "area=\"nonheap\"", nonHeap.getCommitted());
+        header(out, "jvm_memory_max_bytes", "gauge", "Maximum heap size");
+        sample(out, "jvm_memory_max_bytes", "area=\"heap\"", heap.getMax());
+
+        StringBuilder time = new StringBuilder();
+        header(out, "jvm_gc_collections_total", "counter", "Garbage collections by collector");
+        header(time, "jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection by collector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String labels = "gc=\"" + escape(gc.getName()) + "\"";
+            sample(out, "jvm_gc_collections_total", labels, Math.max(0, gc.getCollectionCount()));
+            sample(time, "jvm_gc_collection_seconds_total", labels, Math.max(0, gc.getCollectionTime()) / 1000.0);
+        }
+        out.append(time);
+
+        header(out, "jvm_threads", "gauge", "Live threads");
+        sample(out, "jvm_threads", null, ManagementFactory.getThreadMXBean().getThreadCount());
+        header(out, "process_uptime_seconds", "gauge", "JVM uptime");
+        sample(out, "process_uptime_seconds", null, ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+
+    // 버킷 상한은 LatencyHistogram.BOUNDS_MICROS 그대로, 누적 개수로 바꿔서 씀
+    private static void histogram(StringBuilder out, String name, String help, LatencyHistogram histogram) {
+        header(out, name, "histogram", help);
+        long[] counts = histogram.snapshot();
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            cumulative += counts[i];
+            sample(out, name + "_bucket", "le=\"" + BUCKET_LABELS[i] + "\"", cumulative);
+        }
+        cumulative += counts[counts.length - 1];
+        sample(out, name + "_bucket", "le=\"+Inf\"", cumulative);
+        sample(out, name + "_sum", null, histogram.sumNanos() / 1e9);
+        sample(out, name + "_count", null, cumulative);
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        sample(out, name, null, value);
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (labels != null) out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
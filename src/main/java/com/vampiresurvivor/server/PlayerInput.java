@@ -0,0 +1,64 @@
+package com.vampiresurvivor.server;
+
+import com.google.gson.JsonObject;
+
+// 입력 모드에서 클라이언트가 고정 주기(GameServer.INPUT_HZ)로 보내는 입력 하나
+// {"type":"input","seq":12,"mx":0.7071,"my":-0.7071,"dash":true}
+// - 방 스레드가 상태 틱마다 쌓인 입력을 순서대로 한 스텝(1/INPUT_HZ 초)씩 적용하고,
+//   상태의 플레이어마다 마지막으로 적용한 seq 를 inputSeq 로 돌려줌 (클라이언트는 그 뒤 입력만 다시 적용해서 맞춤)
+// - 이동 계산은 main.js 의 stepMovement() 와 같아야 함
+// - 입력을 한 번이라도 보낸 플레이어는 위치/속도/대시 쿨다운을 서버가 계산 (playerUpdate 의 값은 무시)
+final class PlayerInput {
+    static final double DASH_SPEED = 460;
+    static final float DASH_TIME = 0.16f;
+
+    final long seq;
+    final float mx, my;
+    final boolean dash;
+
+    private PlayerInput(long seq, float mx, float my, boolean dash) {
+        this.seq = seq;
+        this.mx = mx;
+        this.my = my;
+        this.dash = dash;
+    }
+
+    // 형식이 이상하면 null
+    static PlayerInput parse(JsonObject data) {
+        if (!data.has("seq")) return null;
+        long seq = data.get("seq").getAsLong();
+        float mx = data.has("mx") ? data.get("mx").getAsFloat() : 0;
+        float my = data.has("my") ? data.get("my").getAsFloat() : 0;
+        if (!Float.isFinite(mx) || !Float.isFinite(my)) return null;
+        // 길이 1 을 넘는 이동 벡터는 잘라냄 (대각선 가속 방지)
+        float len = (float) Math.sqrt(mx * mx + my * my);
+        if (len > 1) {
+            mx /= len;
+            my /= len;
+        }
+        boolean dash = data.has("dash") && data.get("dash").getAsBoolean();
+        return new PlayerInput(seq, mx, my, dash);
+    }
+
+    // main.js 의 stepMovement 와 같은 순서: 대시 타이머 -> 대시 시작 -> 속도 보간 -> 위치
+    void applyTo(GameServer.PlayerData p, double dt) {
+        if (p.dashCd > 0) p.dashCd -= dt;
+        if (p.dashTime > 0) p.dashTime -= dt;
+
+        boolean moving = mx != 0 || my != 0;
+        if (dash && p.dashCd <= 0 && moving) {
+            p.dashTime = DASH_TIME;
+            p.dashCd = p.dashCdMax;
+        }
+        double speed = p.dashTime > 0 ? DASH_SPEED : p.speed;
+        double accel = p.dashTime > 0 ? 26 : 16;
+        double k = 1 - Math.exp(-accel * dt);
+        double vx = p.vx + (mx * speed - p.vx) * k;
+        double vy = p.vy + (my * speed - p.vy) * k;
+        p.vx = (float) vx;
+        p.vy = (float) vy;
+        p.x = (float) (p.x + vx * dt);
+        p.y = (float) (p.y + vy * dt);
+        p.inputSeq = seq;
+    }
+}
@@ -0,0 +1,351 @@
+package com.vampiresurvivor.server;
+
+// playerUpdate 메시지 디코더. Gson 으로 JsonObject 트리를 만들지 않고 문자열을 한 번 훑으며 필드를 읽음
+// {"type":"playerUpdate","playerId":"P1","player":{"x":1.5,"y":2,...}}
+// - 키 순서는 상관없고 모르는 키는 건너뜀. 키/숫자를 문자열로 잘라내지 않으므로 할당이 없음
+// - 스레드마다 하나씩 두고 재사용 (decode() 결과는 다음 decode() 전까지만 유효)
+// - playerUpdate 가 아니거나 형식이 이상하면 null (호출하는 쪽에서 기존 Gson 경로로 처리)
+final class PlayerUpdate {
+    private static final String TYPE = "playerUpdate";
+    // player 객체 안에서 읽는 필드 (순서가 비트 번호)
+    private static final String[] FIELDS = {
+        "x", "y", "vx", "vy", "hp", "hpMax", "level", "damage", "fireRate",
+        "pierce", "pickup", "dashCd", "dashCdMax", "projSize", "projCount", "characterType", "speed"
+    };
+    private static final int X = 0, Y = 1, VX = 2, VY = 3, HP = 4, HP_MAX = 5, LEVEL = 6, DAMAGE = 7, FIRE_RATE = 8,
+        PIERCE = 9, PICKUP = 10, DASH_CD = 11, DASH_CD_MAX = 12, PROJ_SIZE = 13, PROJ_COUNT = 14, CHARACTER_TYPE = 15,
+        SPEED = 16;
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final ThreadLocal<PlayerUpdate> LOCAL = ThreadLocal.withInitial(PlayerUpdate::new);
+
+    private String s;
+    private int pos;
+    // 키 문자열에 이스케이프(\)가 있었는지 (있으면 위치 비교 대신 풀어서 비교)
+    private boolean escaped;
+
+    private boolean typeMatched;
+    private int playerIdStart, playerIdEnd;
+    private int present;
+    private final double[] values = new double[FIELDS.length];
+    private int characterTypeStart, characterTypeEnd;
+
+    static PlayerUpdate decode(String message) {
+        PlayerUpdate u = LOCAL.get();
+        try {
+            return u.parse(message) ? u : null;
+        } catch (RuntimeException e) {
+            // 형식 오류 (문자열 끝을 넘어가는 경우 포함)
+            return null;
+        }
+    }
+
+    // 스레드 로컬 디코더에서 떼어낸 사본 (다른 스레드로 넘길 때). 원본 문자열은 그대로 참조
+    PlayerUpdate detach() {
+        PlayerUpdate copy = new PlayerUpdate();
+        copy.s = s;
+        copy.typeMatched = typeMatched;
+        copy.playerIdStart = playerIdStart;
+        copy.playerIdEnd = playerIdEnd;
+        copy.present = present;
+        System.arraycopy(values, 0, copy.values, 0, values.length);
+        copy.characterTypeStart = characterTypeStart;
+        copy.characterTypeEnd = characterTypeEnd;
+        return copy;
+    }
+
+    // 메시지의 playerId 가 id 와 같은지 (문자열을 만들지 않고 비교)
+    boolean isFrom(String id) {
+        int len = playerIdEnd - playerIdStart;
+        return id != null && playerIdStart > 0 && len == id.length() && s.regionMatches(playerIdStart, id, 0, len);
+    }
+
+    // 디코딩한 원본 메시지 (경기 기록용)
+    String source() {
+        return s;
+    }
+
+    String playerId() {
+        return playerIdStart > 0 ? s.substring(playerIdStart, playerIdEnd) : null;
+    }
+
+    void applyTo(GameServer.PlayerData player) {
+        // 입력 모드 플레이어는 위치/속도/대시 쿨다운을 서버가 계산하므로 능력치만 받음
+        boolean moves = !player.inputDriven;
+        if (moves && has(X)) player.x = (float) values[X];
+        if (moves && has(Y)) player.y = (float) values[Y];
+        if (moves && has(VX)) player.vx = (float) values[VX];
+        if (moves && has(VY)) player.vy = (float) values[VY];
+        // 서버 권한 모드에서는 hp/level 을 서버가 관리하므로 클라이언트 값을 받지 않음
+        if (!GameServer.AUTHORITATIVE && has(HP)) player.hp = (int) values[HP];
+        if (has(HP_MAX)) player.hpMax = (int) values[HP_MAX];
+        if (!GameServer.AUTHORITATIVE && has(LEVEL)) player.level = (int) values[LEVEL];
+        if (has(DAMAGE)) player.damage = (float) values[DAMAGE];
+        if (has(FIRE_RATE)) player.fireRate = (float) values[FIRE_RATE];
+        if (has(PIERCE)) player.pierce = (int) values[PIERCE];
+        if (has(PICKUP)) player.pickup = (float) values[PICKUP];
+        if (moves && has(DASH_CD)) player.dashCd = (float) values[DASH_CD];
+        if (has(DASH_CD_MAX)) player.dashCdMax = (float) values[DASH_CD_MAX];
+        if (has(PROJ_SIZE)) player.projSize = (float) values[PROJ_SIZE];
+        if (has(PROJ_COUNT)) player.projCount = (int) values[PROJ_COUNT];
+        if (has(SPEED) && values[SPEED] > 0) player.speed = (float) values[SPEED];
+        if (has(CHARACTER_TYPE)) {
+            int len = characterTypeEnd - characterTypeStart;
+            String current = player.characterType;
+            // 값이 그대로면 새 문자열을 만들지 않음
+            if (current == null || current.length() != len || !s.regionMatches(characterTypeStart, current, 0, len)) {
+                player.characterType = s.substring(characterTypeStart, characterTypeEnd);
+            }
+        }
+    }
+
+    private boolean has(int field) {
+        return (present & (1 << field)) != 0;
+    }
+
+    private boolean parse(String message) {
+        s = message;
+        pos = 0;
+        typeMatched = false;
+        playerIdStart = playerIdEnd = -1;
+        present = 0;
+        skipWs();
+        expect('{');
+        skipWs();
+        if (peek() == '}') return false;
+        boolean sawPlayer = false;
+        while (true) {
+            skipWs();
+            int keyStart = pos + 1;
+            int keyEnd = string();
+            boolean keyEscaped = escaped;
+            skipWs();
+            expect(':');
+            skipWs();
+            if (keyIs("type", keyStart, keyEnd, keyEscaped)) {
+                if (peek() != '"') return false;
+                int start = pos + 1;
+                int end = string();
+                if (escaped || end - start != TYPE.length() || !s.regionMatches(start, TYPE, 0, TYPE.length())) return false;
+                typeMatched = true;
+            } else if (keyIs("playerId", keyStart, keyEnd, keyEscaped)) {
+                if (peek() != '"') return false;
+                playerIdStart = pos + 1;
+                playerIdEnd = string();
+                if (escaped) return false;
+            } else if (keyIs("player", keyStart, keyEnd, keyEscaped)) {
+                if (peek() != '{') return false;
+                player();
+                sawPlayer = true;
+            } else {
+                skipValue();
+            }
+            skipWs();
+            char c = next();
+            if (c == '}') break;
+            if (c != ',') return false;
+        }
+        return typeMatched && sawPlayer && playerIdStart > 0;
+    }
+
+    private void player() {
+        expect('{');
+        skipWs();
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            skipWs();
+            int keyStart = pos + 1;
+            int keyEnd = string();
+            boolean keyEscaped = escaped;
+            skipWs();
+            expect(':');
+            skipWs();
+            int field = field(keyStart, keyEnd, keyEscaped);
+            if (field == CHARACTER_TYPE) {
+                if (peek() != '"') throw new IllegalArgumentException("characterType");
+                characterTypeStart = pos + 1;
+                characterTypeEnd = string();
+                if (escaped) throw new IllegalArgumentException("characterType");
+                present |= 1 << field;
+            } else if (field >= 0) {
+                // Gson 경로처럼 숫자가 아니면 메시지 전체를 거부
+                values[field] = number();
+                present |= 1 << field;
+            } else {
+                skipValue();
+            }
+            skipWs();
+            char c = next();
+            if (c == '}') return;
+            if (c != ',') throw new IllegalArgumentException("player");
+        }
+    }
+
+    private boolean keyIs(String name, int start, int end, boolean keyEscaped) {
+        if (keyEscaped) return unescape(start, end).equals(name);
+        return end - start == name.length() && s.regionMatches(start, name, 0, name.length());
+    }
+
+    private int field(int start, int end, boolean keyEscaped) {
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (keyIs(FIELDS[i], start, end, keyEscaped)) return i;
+        }
+        return -1;
+    }
+
+    // 여는 " 에서 시작해 닫는 " 다음으로 이동. 닫는 " 위치를 돌려줌
+    private int string() {
+        expect('"');
+        escaped = false;
+        while (true) {
+            char c = s.charAt(pos++);
+            if (c == '"') return pos - 1;
+            if (c == '\\') {
+                escaped = true;
+                pos += s.charAt(pos) == 'u' ? 5 : 1;
+            }
+        }
+    }
+
+    // 정수부/소수부 숫자를 long 하나에 모은 뒤 10의 거듭제곱으로 한 번 곱하거나 나눔
+    // (유효 숫자 18자리, 지수 ±22 를 넘으면 Double.parseDouble)
+    private double number() {
+        int start = pos;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        char c;
+        while (pos < s.length() && (c = s.charAt(pos)) >= '0' && c <= '9') {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa > 0) digits++;
+            } else {
+                exponent++;
+            }
+            any = true;
+            pos++;
+        }
+        if (pos < s.length() && s.charAt(pos) == '.') {
+            pos++;
+            while (pos < s.length() && (c = s.charAt(pos)) >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa > 0) digits++;
+                    exponent--;
+                }
+                any = true;
+                pos++;
+            }
+        }
+        if (!any) throw new IllegalArgumentException("number");
+        if (pos < s.length() && ((c = s.charAt(pos)) == 'e' || c == 'E')) {
+            pos++;
+            boolean negativeExp = false;
+            if (peek() == '-' || peek() == '+') {
+                negativeExp = next() == '-';
+            }
+            int e = 0;
+            boolean expDigits = false;
+            while (pos < s.length() && (c = s.charAt(pos)) >= '0' && c <= '9') {
+                if (e < 10000) e = e * 10 + (c - '0');
+                expDigits = true;
+                pos++;
+            }
+            if (!expDigits) throw new IllegalArgumentException("number");
+            exponent += negativeExp ? -e : e;
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (exponent >= 0 && exponent < POW10.length) {
+            value = mantissa * POW10[exponent];
+        } else if (exponent < 0 && -exponent < POW10.length) {
+            value = mantissa / POW10[-exponent];
+        } else {
+            return Double.parseDouble(s.substring(start, pos));
+        }
+        return negative ? -value : value;
+    }
+
+    private void skipValue() {
+        char c = peek();
+        if (c == '"') {
+            string();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = peek();
+                if (c == '"') {
+                    string();
+                    continue;
+                }
+                if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+                pos++;
+            } while (depth > 0);
+        } else if (c == 't' || c == 'f' || c == 'n') {
+            int len = c == 'f' ? 5 : 4;
+            String literal = c == 't' ? "true" : c == 'f' ? "false" : "null";
+            if (!s.startsWith(literal, pos)) throw new IllegalArgumentException("literal");
+            pos += len;
+        } else {
+            number();
+        }
+    }
+
+    private String unescape(int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            c = s.charAt(++i);
+            switch (c) {
+                case 'u':
+                    sb.append((char) Integer.parseInt(s.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void skipWs() {
+        while (pos < s.length()) {
+            char c = s.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return;
+            pos++;
+        }
+    }
+
+    private char peek() {
+        return s.charAt(pos);
+    }
+
+    private char next() {
+        return s.charAt(pos++);
+    }
+
+    private void expect(char c) {
+        if (s.charAt(pos++) != c) throw new IllegalArgumentException("expected " + c);
+    }
+}
@@ -0,0 +1,137 @@
+package com.vampiresurvivor.server;
+
+// 연결 하나의 메시지 종류별 토큰 버킷 (JSON 을 파싱하기 전에 검사)
+// - 종류는 메시지 앞부분만 보고 정함 (main.js 는 JSON.stringify 라 항상 {"type":"..." 로 시작)
+//   MOVE(playerUpdate/input), PROJECTILE, ACK, CONTROL(levelUp, startGame, reset, 방 목록/생성/입장),
+//   UNKNOWN(모르는 종류, 바이너리는 모르는 타입 바이트)
+//   {"type":"..." 로 시작하지 않는 메시지(공백, 다른 키 순서)는 파싱한 뒤 실제 종류로 셈 (GameServer.handleText)
+// - 종류마다 초당 rate 개가 채워지고 BURST_SECONDS 분량까지 모아둘 수 있음. 넘친 메시지는 파싱하지 않고 조용히 버림
+//   (위치는 틱마다 합쳐지므로 버려도 다음 것으로 충분. 고주사율 화면이나 후반 투사체처럼 정상 플레이에서도 넘칠 수 있어 끊지 않음)
+// - 끊는 건 파싱 실패와 UNKNOWN 만 (UNKNOWN 은 속도 초과로 버린 것도 셈): REJECT_WINDOW_MILLIS 동안 REJECT_LIMIT 번 넘게 나오면 연결을 끊음
+// - 한 연결의 메시지는 항상 같은 WebSocket 워커 스레드가 처리하므로 토큰 버킷은 잠금 없음 (통계만 다른 스레드가 읽음)
+//   파싱 실패 집계만 방 스레드도 건드리므로 (투사체 변환 실패) 잠금
+final class RateLimiter {
+    static final int MOVE = 0, PROJECTILE = 1, ACK = 2, CONTROL = 3, UNKNOWN = 4;
+    static final String[] NAMES = {"move", "projectile", "ack", "control", "unknown"};
+    // 종류 이름별 분류 ({"type":" 바로 뒤와 비교하므로 닫는 따옴표까지)
+    private static final String[] TYPE_PREFIXES = {
+        "playerUpdate\"", "input\"", "projectile\"", "ack\"",
+        "levelUp\"", "startGame\"", "reset\"", "listRooms\"", "createRoom\"", "joinRoom\""
+    };
+    private static final int[] TYPE_CATEGORIES = {
+        MOVE, MOVE, PROJECTILE, ACK,
+        CONTROL, CONTROL, CONTROL, CONTROL, CONTROL, CONTROL
+    };
+
+    // 종류별 초당 메시지 수 (0 이면 제한 없음). -Dsurvivors.rateMove 등
+    static final double[] RATES = {
+        Double.parseDouble(System.getProperty("survivors.rateMove", "120")),
+        // 투사체는 총알마다 하나 (발사 속도 x 발사체 수가 레벨마다 늘어남)
+        Double.parseDouble(System.getProperty("survivors.rateProjectile", "600")),
+        Double.parseDouble(System.getProperty("survivors.rateAck", String.valueOf(GameServer.TICK_HZ * 3))),
+        Double.parseDouble(System.getProperty("survivors.rateControl", "20")),
+        // 모르는 종류는 정상 클라이언트가 보내지 않으므로 가장 낮게 (넘치면 끊는 기준에도 셈)
+        Double.parseDouble(System.getProperty("survivors.rateUnknown", "5"))
+    };
+    static final double BURST_SECONDS = Double.parseDouble(System.getProperty("survivors.rateBurstSeconds", "2"));
+    // 파싱 실패가 이만큼 넘으면 끊음 (0 이면 끊지 않음). -Dsurvivors.rejectLimit
+    static final int REJECT_LIMIT = Integer.getInteger("survivors.rejectLimit", 500);
+    static final long REJECT_WINDOW_MILLIS = 10_000;
+
+    private final double[] tokens = new double[NAMES.length];
+    private final long[] refilledAt = new long[NAMES.length];
+    private long windowStart = System.currentTimeMillis();
+    private int windowRejects = 0;
+
+    // 종류별 누적 거부 수 (/metrics)
+    final long[] rejected = new long[NAMES.length];
+    // 파싱 실패 누적
+    volatile long malformed = 0;
+
+    RateLimiter() {
+        long now = System.nanoTime();
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = RATES[i] * BURST_SECONDS;
+            refilledAt[i] = now;
+        }
+    }
+
+    // {"type":"projectile",... 의 종류 (앞부분만 비교)
+    static int categoryOf(String message) {
+        if (!message.startsWith("{\"type\":\"")) return UNKNOWN;
+        for (int i = 0; i < TYPE_PREFIXES.length; i++) {
+            if (message.startsWith(TYPE_PREFIXES[i], 9)) return TYPE_CATEGORIES[i];
+        }
+        return UNKNOWN;
+    }
+
+    // 파싱한 "type" 값의 종류. 중복된 "type" 은 Gson 이 마지막 것을 쓰므로 categoryOf(message) 와 다를 수 있음
+    // 앞부분으로 종류를 못 정한 메시지도 이것으로 셈
+    static int categoryOfType(String type) {
+        for (int i = 0; i < TYPE_PREFIXES.length; i++) {
+            String prefix = TYPE_PREFIXES[i];
+            if (prefix.length() == type.length() + 1 && prefix.startsWith(type)) return TYPE_CATEGORIES[i];
+        }
+        return UNKNOWN;
+    }
+
+    static int categoryOf(byte binaryType) {
+        switch (binaryType) {
+            case BinaryCodec.MSG_PLAYER_UPDATE:
+                return MOVE;
+            case BinaryCodec.MSG_PROJECTILE:
+                return PROJECTILE;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    // 토큰이 있으면 하나 쓰고 true. 없으면 버린 수만 세고 false (UNKNOWN 이 아니면 끊는 기준에는 넣지 않음)
+    boolean tryAcquire(int category) {
+        double rate = RATES[category];
+        if (rate <= 0) return true;
+        long now = System.nanoTime();
+        double available = Math.min(rate * BURST_SECONDS, tokens[category] + (now - refilledAt[category]) * rate / 1e9);
+        refilledAt[category] = now;
+        if (available >= 1) {
+            tokens[category] = available - 1;
+            return true;
+        }
+        tokens[category] = available;
+        rejected[category]++;
+        Metrics.countRejected(category);
+        if (category == UNKNOWN) {
+            countReject();
+        }
+        return false;
+    }
+
+    // 파싱에 실패한 메시지. 방 스레드도 부름 (투사체 변환 실패)
+    synchronized void malformed() {
+        malformed++;
+        Metrics.malformedIn.increment();
+        countReject();
+    }
+
+    // 이번 구간의 파싱 실패가 한도를 넘었는지 (끊는 건 ClientSession.checkRejects 에서 한 번만)
+    synchronized boolean overLimit() {
+        return REJECT_LIMIT > 0 && windowRejects > REJECT_LIMIT;
+    }
+
+    long totalRejected() {
+        long sum = malformed;
+        for (long r : rejected) {
+            sum += r;
+        }
+        return sum;
+    }
+
+    private synchronized void countReject() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart > REJECT_WINDOW_MILLIS) {
+            windowStart = now;
+            windowRejects = 0;
+        }
+        windowRejects++;
+    }
+}
@@ -0,0 +1,970 @@
+package com.vampiresurvivor.server;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 방 하나 = 독립된 게임 한 판 (게임 상태, 호스트, 플레이어 번호, 스냅샷 기록을 방마다 따로 가짐)
+// - 단일 작성자: 게임 상태와 멤버 목록은 RoomManager 가 정해준 워커 스레드(방 스레드) 하나만 읽고 씀
+//   (같은 방의 작업은 항상 같은 스레드에서 순서대로 실행되므로 방 안에서는 락이 필요 없음)
+// - WebSocket 스레드는 메시지를 디코딩해서 명령으로 만든 뒤 잠금 없는 큐에 넣기만 함 (execute)
+//   큐가 비어 있다가 처음 들어올 때만 워커에 비우기 작업을 예약하므로 메시지마다 실행기 락을 잡지 않음
+// - 다른 스레드(방 목록, 통계)는 방 스레드가 공개한 불변 요약(summary())만 봄
+final class Room {
+    // 한 번에 처리할 최대 명령 수 (입력이 쏟아져도 틱이 계속 밀리지 않도록 나눠서 처리)
+    private static final int MAX_COMMANDS_PER_DRAIN = 1024;
+
+    final String id;
+    final String name;
+    final GameServer.GameState gameState = new GameServer.GameState();
+    // 방 스레드 전용 (입장 순서)
+    private final Map<ClientSession, Member> members = new LinkedHashMap<>();
+    private final ScheduledExecutorService worker;
+    private ScheduledFuture<?> stateTask;
+    private ScheduledFuture<?> simTask;
+
+    // WebSocket 스레드 -> 방 스레드 명령 큐 (여러 생산자, 소비자는 방 스레드 하나)
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    volatile long commandCount = 0;
+    final AtomicLong maxCommandBatch = new AtomicLong();
+
+    private Member host = null;
+    private int nextPlayerId = 1;
+    // 마지막 클라이언트가 나간 시각 (사람이 있으면 0)
+    private long emptySince = System.currentTimeMillis();
+    // 정리된 방에는 더 이상 입장 불가
+    private volatile boolean closed = false;
+    private volatile Summary summary = new Summary(0, false);
+
+    // 입력은 dirty 표시만 하고, 브로드캐스트 틱마다 최대 1번만 스냅샷을 보냄
+    private boolean stateDirty = false;
+    private int pendingUpdates = 0;
+    private long stateVersion = 0;
+    private String lastStateMessage = null;
+    // 같은 스냅샷을 받는 클라이언트들에게 한 번만 인코딩해서 보내는 프레임 (필요할 때 만듦)
+    private SharedFrame lastStateFrame = null;
+    private SharedFrame lastStateBinary = null;
+    private long lastStateBinaryVersion = 0;
+    // 델타 기준으로 쓸 최근 스냅샷
+    private final Map<Long, JsonObject> snapshotHistory = newSnapshotHistory();
+    // 관심 영역 필터 (켜져 있으면 클라이언트마다 따로 스냅샷을 만듦)
+    private final AreaOfInterest aoi = AreaOfInterest.ENABLED ? new AreaOfInterest() : null;
+    // 스냅샷 시각(GameState.ts) 기준
+    private final long createdNanos = System.nanoTime();
+    private long simLastNanos = 0;
+    private double simAccumulator = 0;
+    // 경기 기록 (survivors.recordDir 가 있을 때만, 방 스레드 전용)
+    private MatchRecorder recorder;
+
+    // 틱 지연 통계: 틱 한 번 처리 시간과 예정 시각보다 늦게 시작한 정도 (워커 포화 여부)
+    private long nextStateTickNanos = 0;
+    volatile long tickCount = 0;
+    volatile long tickNanosTotal = 0;
+    final AtomicLong tickNanosMax = new AtomicLong();
+    final AtomicLong tickLateMax = new AtomicLong();
+    // RoomManager 통계 출력 스레드에서만 사용 (직전 출력 시점의 누적값)
+    long reportedTicks = 0;
+    long reportedNanos = 0;
+    long reportedCommands = 0;
+    long reportedAvg, reportedMax, reportedLate;
+
+    Room(String id, String name, ScheduledExecutorService worker) {
+        this.id = id;
+        this.name = name;
+        this.worker = worker;
+    }
+
+    void start() {
+        if (MatchRecorder.DIR != null) {
+            startRecording(Paths.get(MatchRecorder.DIR));
+        }
+        long periodNanos = 1_000_000_000L / Math.max(1, GameServer.TICK_HZ);
+        nextStateTickNanos = System.nanoTime() + periodNanos;
+        stateTask = worker.scheduleAtFixedRate(() -> {
+            long start = System.nanoTime();
+            recordLateness(start - nextStateTickNanos);
+            nextStateTickNanos += periodNanos;
+            try {
+                tickState();
+            } catch (Exception e) {
+                Log.limited(Log.Level.ERROR, "stateTick", "상태 틱 오류 (방 " + id + "): " + e.getMessage(), e);
+            }
+            long elapsed = System.nanoTime() - start;
+            recordTick(elapsed);
+            Metrics.stateTick.record(elapsed);
+        }, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+
+        if (GameServer.AUTHORITATIVE) {
+            long simPeriodNanos = 1_000_000_000L / Math.max(1, GameServer.SIM_HZ);
+            simLastNanos = System.nanoTime();
+            simTask = worker.scheduleAtFixedRate(() -> {
+                long start = System.nanoTime();
+                try {
+                    tickSimulation();
+                } catch (Exception e) {
+                    Log.limited(Log.Level.ERROR, "simTick", "시뮬레이션 틱 오류 (방 " + id + "): " + e.getMessage(), e);
+                }
+                long elapsed = System.nanoTime() - start;
+                recordTick(elapsed);
+                Metrics.simTick.record(elapsed);
+            }, simPeriodNanos, simPeriodNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void stop() {
+        closed = true;
+        if (stateTask != null) stateTask.cancel(false);
+        if (simTask != null) simTask.cancel(false);
+        execute(this::stopRecording);
+    }
+
+    // 지금 들어와 있는 멤버의 입장부터 기록 (벤치마크는 start() 없이 직접 부름)
+    void startRecording(Path dir) {
+        execute(() -> {
+            if (recorder != null) return;
+            recorder = MatchRecorder.open(dir, id, name);
+            if (recorder == null) return;
+            for (Member member : members.values()) {
+                recorder.join(member.number, member.session.clientId, member.session.binary);
+            }
+        });
+    }
+
+    // 방 스레드에서, 또는 워커가 멈춘 뒤 (RoomManager.stop)
+    void stopRecording() {
+        if (recorder != null) {
+            recorder.close();
+            recorder = null;
+        }
+    }
+
+    // 방 스레드에서 실행 (게임 상태/멤버를 건드리는 작업은 반드시 이걸로). 어느 스레드에서 불러도 막히지 않음
+    void execute(Runnable command) {
+        commands.offer(command);
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                worker.execute(this::drainCommands);
+            } catch (RejectedExecutionException e) {
+                // 서버 종료 중
+                drainScheduled.set(false);
+            }
+        }
+    }
+
+    private void drainCommands() {
+        // 먼저 내려둬야 비우는 도중에 들어온 명령도 다음 비우기가 예약됨
+        drainScheduled.set(false);
+        int n = 0;
+        Runnable command;
+        while (n < MAX_COMMANDS_PER_DRAIN && (command = commands.poll()) != null) {
+            n++;
+            try {
+                command.run();
+            } catch (Exception e) {
+                Log.limited(Log.Level.ERROR, "roomCommand", "방 명령 오류 (방 " + id + "): " + e.getMessage(), e);
+            }
+        }
+        commandCount += n;
+        if (n > maxCommandBatch.get()) {
+            maxCommandBatch.accumulateAndGet(n, Math::max);
+        }
+        if (!commands.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            // 남은 건 다음 차례에 (그 사이 예정된 틱이 먼저 돎)
+            worker.execute(this::drainCommands);
+        }
+        publishSummary();
+    }
+
+    // 다른 스레드가 보는 방 요약 (방 스레드가 바꿀 때마다 새로 공개)
+    Summary summary() {
+        return summary;
+    }
+
+    int clientCount() {
+        return summary.clients;
+    }
+
+    private void publishSummary() {
+        Summary current = summary;
+        if (current.clients != members.size() || current.started != gameState.started) {
+            summary = new Summary(members.size(), gameState.started);
+        }
+    }
+
+    // 방 스레드 전용: 지금 들어와 있는 클라이언트
+    List<ClientSession> sessions() {
+        return new ArrayList<>(members.keySet());
+    }
+
+    // 입장 요청 (WebSocket 스레드). 실제 입장과 "connected" 전송은 방 스레드에서. 이미 정리된 방이면 false
+    boolean join(ClientSession session) {
+        if (closed) return false;
+        session.room = this;
+        execute(() -> admit(session));
+        return true;
+    }
+
+    private void admit(ClientSession session) {
+        // 그 사이 다른 방으로 옮겼거나 연결이 끊겼으면 무시
+        if (session.room != this || !session.isOpen() || members.containsKey(session)) return;
+        if (closed) {
+            // 입장 요청과 빈 방 정리가 엇갈린 경우
+            GameServer.roomClosed(session);
+            return;
+        }
+        boolean isHost = members.isEmpty();
+        String playerId = "P" + nextPlayerId++;
+        Member member = new Member(session, playerId);
+        member.isHost = isHost;
+        if (isHost) {
+            host = member;
+        }
+        session.playerId = playerId;
+        members.put(session, member);
+        emptySince = 0;
+        if (recorder != null) {
+            recorder.join(member.number, session.clientId, session.binary);
+        }
+
+        Log.info("   방: " + id + " (" + name + "), 플레이어 ID: " + playerId + (isHost ? " [HOST/MASTER]" : " [GUEST]"));
+
+        // 초기 상태 전송
+        JsonObject response = new JsonObject();
+        response.addProperty("type", "connected");
+        response.addProperty("clientId", session.clientId);
+        response.addProperty("playerId", playerId);
+        response.addProperty("isHost", isHost);
+        response.addProperty("roomId", id);
+        response.addProperty("roomName", name);
+        response.addProperty("protocol", session.binary ? "binary" : "json");
+        if (GameServer.INPUT_MODE) {
+            response.addProperty("inputMode", true);
+            response.addProperty("inputHz", GameServer.INPUT_HZ);
+        }
+        response.add("state", gameState.toJson());
+        GameServer.addConnectionInfo(response);
+        session.send(response.toString());
+
+        // 플레이어 추가
+        if (!gameState.players.containsKey(playerId)) {
+            GameServer.PlayerData player = new GameServer.PlayerData();
+            player.id = playerId;
+            player.x = (gameState.players.size()) * 40;
+            player.y = 0;
+            player.hp = 100;
+            player.hpMax = 100;
+            player.level = 1;
+            player.color = isHost ? "rgba(232,238,255,0.92)" : "rgba(124,92,255,0.95)";
+            player.damage = 9;
+            player.fireRate = 2.24f; // 30% 감소: 3.2 * 0.7
+            player.pierce = 0;
+            player.pickup = 70;
+            player.regen = 0;
+            player.projSize = 4;
+            player.projCount = 1;
+            player.dashCd = 0;
+            player.dashCdMax = 1.1f;
+
+            gameState.players.put(playerId, player);
+            gameState.playersVersion++;
+
+            // 게스트가 들어오면 게임 시작
+            if (gameState.players.size() > 1 && !gameState.started) {
+                gameState.started = true;
+                gameState.t = 0;
+                gameState.paused = false;
+                gameState.gameOver = false;
+                Log.info("🎮 게스트가 들어와서 게임 시작 (방 " + id + ", 총 " + gameState.players.size() + "명)");
+            }
+
+            markStateDirty();
+        }
+    }
+
+    // 퇴장 요청 (WebSocket 스레드: 연결 종료, 방 옮기기)
+    void leave(ClientSession session) {
+        execute(() -> remove(session));
+    }
+
+    private void remove(ClientSession session) {
+        Member member = members.remove(session);
+        if (member == null) return;
+        if (recorder != null) {
+            recorder.leave(member.number);
+        }
+
+        gameState.players.remove(member.playerId);
+        gameState.playersVersion++;
+
+        if (member == host) {
+            Log.info("⚠️  호스트가 연결을 끊었습니다. (방 " + id + ")");
+            Member next = members.isEmpty() ? null : members.values().iterator().next();
+            host = next;
+            if (next != null) {
+                next.isHost = true;
+                Log.info("   새 호스트: " + next.session);
+
+                JsonObject msg = new JsonObject();
+                msg.addProperty("type", "hostChanged");
+                msg.addProperty("newHostId", next.session.clientId);
+                broadcast(msg.toString(), null);
+            }
+        }
+        if (members.isEmpty()) {
+            Log.info("   방 " + id + " 에 남은 클라이언트가 없습니다.");
+            gameState.started = false;
+            emptySince = System.currentTimeMillis();
+        }
+        markStateDirty();
+    }
+
+    // 방 스레드에서: 사람이 없는 채로 idleMillis 가 지났는지
+    boolean isIdle(long now, long idleMillis) {
+        long since = emptySince;
+        return members.isEmpty() && since > 0 && now - since > idleMillis;
+    }
+
+    // WebSocket 스레드에서 받은 메시지를 방 스레드로 넘김 (data 는 이 메시지 전용이라 그대로 넘겨도 됨)
+    // message 는 data 로 파싱하기 전의 원본 문자열 (그대로 중계할 때 씀)
+    void handleMessage(ClientSession client, String type, JsonObject data, String message) {
+        if ("playerUpdate".equals(type)) {
+            // 보통은 GameServer 에서 PlayerUpdate 로 바로 처리됨. 여기 오는 건 디코더가 못 읽은 형식이므로
+            // Gson 이 정규화한 문자열로 한 번 더 시도
+            PlayerUpdate update = PlayerUpdate.decode(data.toString());
+            if (update != null) {
+                handlePlayerUpdate(client, update);
+            }
+            return;
+        }
+        checkFields(type, data);
+        execute(() -> applyMessage(client, type, data, message));
+    }
+
+    // 방 스레드로 넘기기 전에 (WebSocket 스레드) 필요한 필드와 그 타입을 확인. 틀리면 IllegalArgumentException
+    // (보낸 연결의 파싱 실패로 셈. 방 스레드는 확인을 마친 메시지만 받음)
+    static void checkFields(String type, JsonObject data) {
+        switch (type) {
+            case "levelUp":
+                requireString(data, "playerId");
+                requireNumber(data, "level");
+                break;
+
+            case "ack":
+                requireNumber(data, "seq");
+                break;
+
+            case "input":
+                requireNumber(data, "seq");
+                optionalNumber(data, "mx");
+                optionalNumber(data, "my");
+                optionalBoolean(data, "dash");
+                break;
+
+            case "projectile":
+                requireString(data, "playerId");
+                BinaryCodec.checkProjectile(requireObject(data, "projectile"));
+                break;
+        }
+    }
+
+    private static String requireString(JsonObject data, String key) {
+        JsonElement e = data.get(key);
+        if (e == null || !e.isJsonPrimitive() || !e.getAsJsonPrimitive().isString()) {
+            throw new IllegalArgumentException(key + " 가 문자열이 아님");
+        }
+        return e.getAsString();
+    }
+
+    private static void requireNumber(JsonObject data, String key) {
+        JsonElement e = data.get(key);
+        if (e == null || !e.isJsonPrimitive() || !e.getAsJsonPrimitive().isNumber()) {
+            throw new IllegalArgumentException(key + " 가 숫자가 아님");
+        }
+    }
+
+    private static void optionalNumber(JsonObject data, String key) {
+        if (data.has(key)) requireNumber(data, key);
+    }
+
+    private static void optionalBoolean(JsonObject data, String key) {
+        JsonElement e = data.get(key);
+        if (e != null && !(e.isJsonPrimitive() && e.getAsJsonPrimitive().isBoolean())) {
+            throw new IllegalArgumentException(key + " 가 true/false 가 아님");
+        }
+    }
+
+    private static JsonObject requireObject(JsonObject data, String key) {
+        JsonElement e = data.get(key);
+        if (e == null || !e.isJsonObject()) {
+            throw new IllegalArgumentException(key + " 가 객체가 아님");
+        }
+        return e.getAsJsonObject();
+    }
+
+    private void applyMessage(ClientSession client, String type, JsonObject data, String message) {
+        Member member = members.get(client);
+        if (member == null) return;
+        if (recorder != null) {
+            recorder.text(member.number, message);
+        }
+        switch (type) {
+            case "startGame":
+                // 호스트가 게임을 시작할 수 있음 (1명 이상, 솔로 플레이 포함)
+                if (member.isHost && gameState.players.size() >= 1) {
+                    gameState.started = true;
+                    gameState.t = 0;
+                    gameState.paused = false;
+                    gameState.gameOver = false;
+                    gameState.sim.reset();
+                    Log.info("🎮 호스트가 게임 시작 (방 " + id + ", 총 " + gameState.players.size() + "명)");
+                    markStateDirty();
+                }
+                break;
+
+            case "reset":
+                if (member.isHost) {
+                    gameState.t = 0;
+                    gameState.paused = false;
+                    gameState.gameOver = false;
+                    gameState.sim.reset();
+                    int idx = 0;
+                    for (GameServer.PlayerData p : gameState.players.values()) {
+                        p.x = idx * 40;
+                        p.y = 0;
+                        p.vx = 0;
+                        p.vy = 0;
+                        p.hp = 100;
+                        p.hpMax = 100;
+                        p.xp = 0;
+                        p.xpToNext = 18;
+                        if (GameServer.AUTHORITATIVE) p.level = 1;
+                        idx++;
+                    }
+                    markStateDirty();
+                }
+                break;
+
+            case "levelUp":
+                // 모든 플레이어가 자신의 레벨을 업데이트할 수 있음
+                // 서버 권한 모드에서는 레벨을 서버가 경험치로 계산
+                String levelUpPlayerId = data.get("playerId").getAsString();
+                if (!GameServer.AUTHORITATIVE && gameState.players.containsKey(levelUpPlayerId)) {
+                    if (levelUpPlayerId.equals(member.playerId)) {
+                        GameServer.PlayerData p = gameState.players.get(levelUpPlayerId);
+                        p.level = data.get("level").getAsInt();
+                        markStateDirty();
+                    }
+                }
+                break;
+
+            case "ack":
+                // 클라이언트가 받은 스냅샷 번호를 알려오면 그 스냅샷을 기준으로 델타 전송
+                long ackSeq = data.get("seq").getAsLong();
+                if (ackSeq > member.ackedSeq && ackSeq <= stateVersion) {
+                    member.ackedSeq = ackSeq;
+                }
+                member.deltaEnabled = true;
+                break;
+
+            case "input":
+                // 입력 모드: 다음 상태 틱에서 이동으로 적용
+                PlayerInput input = PlayerInput.parse(data);
+                if (input != null) {
+                    queueInput(member, input);
+                }
+                break;
+
+            case "projectile":
+                // 모든 플레이어가 자신의 투사체를 브로드캐스트할 수 있음 (자신의 투사체만, 필드는 checkFields 에서 확인함)
+                if (data.get("playerId").getAsString().equals(member.playerId)) {
+                    relayProjectile(member, message, data, null);
+                }
+                break;
+        }
+    }
+
+    private void queueInput(Member member, PlayerInput input) {
+        // 순서가 뒤바뀌었거나 이미 받은 번호는 버림
+        if (input.seq <= member.lastInputSeq) {
+            GameServer.inputsDropped.increment();
+            return;
+        }
+        GameServer.PlayerData player = gameState.players.get(member.playerId);
+        if (player == null) return;
+        player.inputDriven = true;
+        // 1초 분량 넘게 밀리면 오래된 것부터 버림
+        if (member.inputs.size() >= GameServer.INPUT_HZ) {
+            member.inputs.poll();
+            GameServer.inputsDropped.increment();
+        }
+        member.inputs.add(input);
+        member.lastInputSeq = input.seq;
+    }
+
+    // 상태 틱마다 쌓인 입력을 한 스텝씩 적용. 틱당 INPUT_HZ / TICK_HZ 개 (늦게 온 입력은 4틱 분량까지 몰아서)
+    // 입력을 빨리 보낸다고 더 빨리 움직이지는 않음
+    private void applyInputs() {
+        double perTick = (double) GameServer.INPUT_HZ / GameServer.TICK_HZ;
+        double dt = 1.0 / GameServer.INPUT_HZ;
+        for (Member member : members.values()) {
+            member.inputBudget = Math.min(member.inputBudget + perTick, perTick * 4);
+            if (member.inputs.isEmpty()) continue;
+            GameServer.PlayerData player = gameState.players.get(member.playerId);
+            if (player == null) continue;
+            int applied = 0;
+            while (member.inputBudget >= 1 && !member.inputs.isEmpty()) {
+                member.inputs.poll().applyTo(player, dt);
+                member.inputBudget -= 1;
+                applied++;
+            }
+            if (applied > 0) {
+                GameServer.inputsApplied.add(applied);
+                markStateDirty();
+            }
+        }
+    }
+
+    // update 는 스레드 로컬 디코더라 다음 메시지에서 덮어써지므로 사본을 넘김
+    void handlePlayerUpdate(ClientSession client, PlayerUpdate update) {
+        PlayerUpdate copy = update.detach();
+        execute(() -> applyPlayerUpdate(client, copy));
+    }
+
+    // 모든 플레이어가 자신의 플레이어 데이터를 업데이트할 수 있음 (자신의 플레이어만: 보안)
+    private void applyPlayerUpdate(ClientSession client, PlayerUpdate update) {
+        Member member = members.get(client);
+        if (member == null) return;
+        if (recorder != null) {
+            recorder.text(member.number, update.source());
+        }
+        if (!update.isFrom(member.playerId)) return;
+        GameServer.PlayerData player = gameState.players.get(member.playerId);
+        if (player != null) {
+            update.applyTo(player);
+            markStateDirty();
+        }
+    }
+
+    // 라이브러리가 넘겨준 버퍼는 복사해서 방 스레드로 넘김 (메시지가 작아서 복사 비용은 무시할 만함)
+    void handleBinary(ClientSession client, ByteBuffer message) {
+        ByteBuffer copy = ByteBuffer.allocate(message.remaining());
+        copy.put(message.duplicate()).flip();
+        execute(() -> applyBinary(client, copy));
+    }
+
+    private void applyBinary(ClientSession client, ByteBuffer message) {
+        Member member = members.get(client);
+        if (member == null) return;
+        if (recorder != null) {
+            recorder.binary(member.number, message);
+        }
+        switch (BinaryCodec.peekType(message)) {
+            case BinaryCodec.MSG_PLAYER_UPDATE:
+                GameServer.PlayerData player = gameState.players.get(member.playerId);
+                if (player != null) {
+                    BinaryCodec.decodePlayerUpdate(message, player);
+                    markStateDirty();
+                }
+                break;
+
+            case BinaryCodec.MSG_PROJECTILE:
+                // 자신의 투사체만 중계 가능
+                if (BinaryCodec.projectilePlayer(message) == BinaryCodec.playerNumber(member.playerId)) {
+                    relayProjectile(member, null, null, message);
+                }
+                break;
+        }
+    }
+
+    // 입력 처리 후 즉시 브로드캐스트하지 않고 다음 틱에 한 번에 보내도록 표시 (방 스레드)
+    void markStateDirty() {
+        pendingUpdates++;
+        stateDirty = true;
+    }
+
+    // 고정 타임스텝: 실제 경과 시간을 누적해 dt 단위로 진행 (밀린 경우 최대 5스텝까지 따라잡음)
+    private void tickSimulation() {
+        float dt = 1f / GameServer.SIM_HZ;
+        long now = System.nanoTime();
+        simAccumulator = Math.min(simAccumulator + (now - simLastNanos) / 1e9, dt * 5.0);
+        simLastNanos = now;
+        boolean stepped = false;
+        while (simAccumulator >= dt) {
+            simAccumulator -= dt;
+            gameState.sim.step(gameState, dt);
+            stepped = true;
+        }
+        if (stepped && gameState.started) {
+            stateDirty = true;
+        }
+        publishSummary();
+    }
+
+    // 워커 스레드에서 실행
+    void printSimulationStats() {
+        Simulation sim = gameState.sim;
+        double budgetMs = 1000.0 / GameServer.SIM_HZ;
+        double avgMs = sim.ticks > 0 ? sim.tickNanosTotal / 1e6 / sim.ticks : 0;
+        double maxMs = sim.tickNanosMax / 1e6;
+        Log.info(String.format("   [%s] 시뮬레이션: 적 %d, 투사체 %d, 구슬 %d | 틱 평균 %.3fms, 최대 %.3fms (예산 %.1fms 중 평균 %.1f%% 사용)",
+            id, sim.enemies.size, sim.projectiles.size, sim.orbs.size, avgMs, maxMs, budgetMs, avgMs / budgetMs * 100));
+        sim.ticks = 0;
+        sim.tickNanosTotal = 0;
+        sim.tickNanosMax = 0;
+    }
+
+    // 방 워커 스레드에서 실행 (BroadcastFanoutBench 는 직접 부름)
+    void tickState() {
+        // 받을 사람이 없으면 만들지 않음 (입장할 때 다시 dirty 표시됨)
+        if (members.isEmpty()) {
+            stateDirty = false;
+            return;
+        }
+        // 송신 대기열에 밀려 있던 것부터 (대부분은 비어 있어서 바로 넘어감)
+        for (Member member : members.values()) {
+            member.session.flush();
+        }
+        applyInputs();
+        if (stateDirty) {
+            stateDirty = false;
+            int coalesced = pendingUpdates;
+            pendingUpdates = 0;
+            long seq = stateVersion + 1;
+            gameState.ts = (System.nanoTime() - createdNanos) / 1_000_000;
+            if (aoi != null) {
+                // 공유 스냅샷 대신 클라이언트별 스냅샷 (아래에서 보낼 때 만듦)
+                aoi.rebuild(gameState.sim);
+            } else if (hasDeltaClient()) {
+                // 델타 기준 트리는 델타를 받는 클라이언트가 있을 때만 만들고 보관 (방이 많을 때 힙 절약)
+                JsonObject stateJson = gameState.toJson();
+                JsonObject msg = new JsonObject();
+                msg.addProperty("type", "state");
+                msg.addProperty("seq", seq);
+                msg.add("state", stateJson);
+                lastStateMessage = msg.toString();
+                snapshotHistory.put(seq, stateJson);
+            } else {
+                lastStateMessage = stateMessage(seq, null);
+            }
+            lastStateFrame = null;
+            stateVersion = seq;
+            if (recorder != null && recorder.keyframeDue()) {
+                recorder.keyframe(aoi == null ? lastStateMessage : stateMessage(seq, null));
+            }
+
+            GameServer.snapshotsBuilt.increment();
+            GameServer.updatesCoalesced.add(coalesced);
+            GameServer.lastCoalesced = coalesced;
+            if (coalesced > GameServer.maxCoalescedPerTick) {
+                GameServer.maxCoalescedPerTick = coalesced;
+            }
+        }
+        if (stateVersion == 0) return;
+
+        long version = stateVersion;
+        long fanoutStart = System.nanoTime();
+        // 같은 기준 스냅샷을 ack 한 클라이언트끼리는 델타를 한 번만 인코딩
+        Map<Long, SharedFrame> deltaCache = new HashMap<>();
+        for (Member member : members.values()) {
+            ClientSession client = member.session;
+            if (member.sentStateVersion == version || !client.isOpen()) continue;
+            // 백프레셔: 이전 프레임이 아직 나가지 않았으면 이번 스냅샷은 만들지도 않고 건너뜀
+            // (다음 틱에 최신 스냅샷을 받으므로 오래된 스냅샷이 쌓이지 않음)
+            if (client.isBacklogged()) {
+                client.statesDropped++;
+                GameServer.snapshotsSkipped.increment();
+                continue;
+            }
+            try {
+                if (aoi != null) {
+                    sendView(member, version);
+                } else if (client.binary) {
+                    client.sendState(stateBinary(version));
+                } else {
+                    client.sendState(encodeStateFor(member, version, deltaCache));
+                }
+                member.sentStateVersion = version;
+            } catch (Exception e) {
+                GameServer.dropClient(client, e);
+            }
+        }
+        Metrics.stateFanout.record(System.nanoTime() - fanoutStart);
+    }
+
+    // 관심 영역 안의 것만 담은 이 클라이언트 전용 스냅샷 (델타는 클라이언트별 기록 기준)
+    private void sendView(Member member, long version) {
+        ClientSession client = member.session;
+        AreaOfInterest.View view = member.view;
+        if (view == null) {
+            view = member.view = new AreaOfInterest.View();
+        }
+        aoi.compute(view, gameState, member.playerId);
+        Simulation sim = gameState.sim;
+        GameServer.aoiEntitiesSent.add(view.entityCount());
+        GameServer.aoiEntitiesTotal.add(sim.enemies.size + sim.projectiles.size + sim.orbs.size);
+
+        if (client.binary) {
+            // 바이너리는 매번 보이는 엔티티 ID 목록 전체가 가므로 enter/leave 는 클라이언트가 비교해서 알 수 있음
+            client.sendState(BinaryCodec.encodeState(version, gameState, view));
+            return;
+        }
+        if (!member.deltaEnabled) {
+            client.sendState(stateMessage(version, view));
+            return;
+        }
+        JsonObject stateJson = gameState.toJson(view);
+        JsonObject events = view.eventsJson();
+        if (member.viewHistory == null) {
+            member.viewHistory = newSnapshotHistory();
+        }
+        long base = member.ackedSeq;
+        JsonObject baseState = base > 0 ? member.viewHistory.get(base) : null;
+        member.viewHistory.put(version, stateJson);
+        JsonObject msg = new JsonObject();
+        if (baseState == null || version - member.lastKeyframeSeq >= GameServer.KEYFRAME_INTERVAL) {
+            msg.addProperty("type", "state");
+            msg.addProperty("seq", version);
+            msg.add("state", stateJson);
+            if (events != null) msg.add("aoi", events);
+            String text = msg.toString();
+            member.lastKeyframeSeq = version;
+            GameServer.keyframesSent.increment();
+            GameServer.keyframeBytes.add(text.length());
+            client.sendState(text);
+        } else {
+            msg.addProperty("type", "stateDelta");
+            msg.addProperty("seq", version);
+            msg.addProperty("base", base);
+            msg.add("delta", StateDelta.diff(baseState, stateJson));
+            if (events != null) msg.add("aoi", events);
+            String text = msg.toString();
+            GameServer.deltasSent.increment();
+            GameServer.deltaBytes.add(text.length());
+            client.sendState(text);
+        }
+    }
+
+    // {"type":"state","seq":..,"state":{..},"aoi":{..}} 를 트리 없이 바로 만듦 (델타 기록이 필요 없을 때)
+    // view 가 있으면 그 클라이언트에게 보이는 것만 담고 enter/leave 도 붙임
+    private String stateMessage(long seq, AreaOfInterest.View view) {
+        JsonStringWriter w = JsonStringWriter.local();
+        w.beginObject();
+        w.name("type").value("state");
+        w.name("seq").value(seq);
+        w.name("state");
+        gameState.writeJson(w, view);
+        if (view != null) {
+            view.writeEvents(w);
+        }
+        w.endObject();
+        return w.toString();
+    }
+
+    static Map<Long, JsonObject> newSnapshotHistory() {
+        return new LinkedHashMap<Long, JsonObject>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, JsonObject> eldest) {
+                return size() > GameServer.SNAPSHOT_HISTORY;
+            }
+        };
+    }
+
+    private boolean hasDeltaClient() {
+        for (Member member : members.values()) {
+            if (member.deltaEnabled) return true;
+        }
+        return false;
+    }
+
+    // 바이너리 클라이언트가 있을 때만 버전당 한 번 인코딩
+    private SharedFrame stateBinary(long version) {
+        if (lastStateBinary == null || lastStateBinaryVersion != version) {
+            lastStateBinary = SharedFrame.binary(BinaryCodec.encodeState(version, gameState));
+            lastStateBinaryVersion = version;
+        }
+        return lastStateBinary;
+    }
+
+    private SharedFrame stateFrame() {
+        if (lastStateFrame == null) {
+            lastStateFrame = SharedFrame.text(lastStateMessage);
+        }
+        return lastStateFrame;
+    }
+
+    private SharedFrame encodeStateFor(Member member, long version, Map<Long, SharedFrame> deltaCache) {
+        if (!member.deltaEnabled) {
+            return stateFrame();
+        }
+        long base = member.ackedSeq;
+        JsonObject baseState = base > 0 ? snapshotHistory.get(base) : null;
+        JsonObject currentState = snapshotHistory.get(version);
+        // 기준이 없거나(너무 뒤처짐, 방금 델타를 켬) 키프레임 주기가 되면 전체 스냅샷
+        if (baseState == null || currentState == null || version - member.lastKeyframeSeq >= GameServer.KEYFRAME_INTERVAL) {
+            member.lastKeyframeSeq = version;
+            GameServer.keyframesSent.increment();
+            SharedFrame full = stateFrame();
+            GameServer.keyframeBytes.add(full.payloadBytes);
+            return full;
+        }
+        SharedFrame delta = deltaCache.computeIfAbsent(base, b -> {
+            JsonObject msg = new JsonObject();
+            msg.addProperty("type", "stateDelta");
+            msg.addProperty("seq", version);
+            msg.addProperty("base", b);
+            msg.add("delta", StateDelta.diff(baseState, currentState));
+            return SharedFrame.text(msg.toString());
+        });
+        GameServer.deltasSent.increment();
+        GameServer.deltaBytes.add(delta.payloadBytes);
+        return delta;
+    }
+
+    // 투사체 중계: 받은 형식 그대로 보내고(텍스트는 받은 문자열 그대로), 다른 형식 클라이언트용은 필요할 때 한 번만 변환
+    // 형식마다 프레임은 보내기 전에 한 번만 만듦. 변환이 안 되면 보낸 사람의 잘못이므로 아무에게도 보내지 않음
+    private void relayProjectile(Member from, String text, JsonObject json, ByteBuffer binary) {
+        long start = System.nanoTime();
+        boolean toText = false;
+        boolean toBinary = false;
+        for (Member member : members.values()) {
+            if (member == from) continue;
+            if (member.session.binary) {
+                toBinary = true;
+            } else {
+                toText = true;
+            }
+        }
+        SharedFrame textFrame = null;
+        SharedFrame binaryFrame = null;
+        try {
+            if (toBinary) {
+                binaryFrame = SharedFrame.binary(binary != null ? binary
+                    : BinaryCodec.encodeProjectile(json.get("playerId").getAsString(), json.getAsJsonObject("projectile")));
+            }
+            if (toText) {
+                textFrame = SharedFrame.text(text != null ? text : BinaryCodec.decodeProjectile(binary).toString());
+            }
+        } catch (RuntimeException e) {
+            // 보통은 WebSocket 스레드의 확인(checkFields, checkInbound)에서 걸러짐. 끊는 건 그 연결의 다음 잘못된 메시지에서
+            from.session.limiter.malformed();
+            Log.limited(Log.Level.WARN, "projectileRelay", "투사체 변환 오류 (" + from.session.clientId + "): " + e, null);
+            return;
+        }
+        for (Member member : members.values()) {
+            ClientSession client = member.session;
+            if (member == from || !client.isOpen()) continue;
+            try {
+                client.send(client.binary ? binaryFrame : textFrame);
+            } catch (Exception ex) {
+                GameServer.dropClient(client, ex);
+            }
+        }
+        Metrics.eventFanout.record(System.nanoTime() - start);
+    }
+
+    // 방 스레드에서 부름
+    void broadcast(String message, String excludeClientId) {
+        long start = System.nanoTime();
+        SharedFrame frame = null;
+        for (Member member : members.values()) {
+            ClientSession client = member.session;
+            if (!client.clientId.equals(excludeClientId) && client.isOpen()) {
+                try {
+                    if (frame == null) {
+                        frame = SharedFrame.text(message);
+                    }
+                    client.send(frame);
+                } catch (Exception e) {
+                    GameServer.dropClient(client, e);
+                }
+            }
+        }
+        Metrics.eventFanout.record(System.nanoTime() - start);
+    }
+
+    private void recordTick(long nanos) {
+        tickCount++;
+        tickNanosTotal += nanos;
+        if (nanos > tickNanosMax.get()) {
+            tickNanosMax.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    private void recordLateness(long nanos) {
+        Metrics.tickLateness.record(Math.max(0, nanos));
+        if (nanos > tickLateMax.get()) {
+            tickLateMax.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    JsonObject toSummaryJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", id);
+        json.addProperty("name", name);
+        Summary s = summary;
+        json.addProperty("players", s.clients);
+        json.addProperty("started", s.started);
+        return json;
+    }
+
+    // 방 스레드만 읽고 쓰는 클라이언트별 상태 (세션은 여러 방을 옮겨 다니므로 방마다 따로 둠)
+    static final class Member {
+        final ClientSession session;
+        final String playerId;
+        // "P3" 의 3 (경기 기록에서 플레이어를 가리킴)
+        final int number;
+        boolean isHost;
+
+        // 마지막으로 보낸 상태 버전 (같은 스냅샷 중복 전송 방지)
+        long sentStateVersion = 0;
+
+        // 델타 압축: 클라이언트가 ack 를 보내기 시작하면 켜짐
+        boolean deltaEnabled = false;
+        long ackedSeq = 0;
+        long lastKeyframeSeq = 0;
+
+        // 관심 영역 필터가 켜져 있을 때 이 클라이언트에게 보이는 것과 델타 기준 기록
+        AreaOfInterest.View view;
+        Map<Long, JsonObject> viewHistory;
+
+        // 입력 모드: 아직 적용하지 않은 입력, 마지막으로 받은 번호, 이번 틱에 적용할 수 있는 개수
+        final ArrayDeque<PlayerInput> inputs = new ArrayDeque<>();
+        long lastInputSeq = 0;
+        double inputBudget = 0;
+
+        Member(ClientSession session, String playerId) {
+            this.session = session;
+            this.playerId = playerId;
+            this.number = BinaryCodec.playerNumber(playerId);
+        }
+    }
+
+    // 다른 스레드 (로비 목록, 통계, 정리) 가 읽는 방 요약. 방 스레드가 바뀔 때마다 새로 만들어 교체
+    static final class Summary {
+        final int clients;
+        final boolean started;
+
+        Summary(int clients, boolean started) {
+            this.clients = clients;
+            this.started = started;
+        }
+    }
+}
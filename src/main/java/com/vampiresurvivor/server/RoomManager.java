@@ -0,0 +1,190 @@
+package com.vampiresurvivor.server;
+
+import com.google.gson.JsonArray;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 방 목록과 틱 워커 관리
+// - 워커는 코어 수만큼의 단일 스레드 실행기. 방은 만들어질 때 방이 가장 적은 워커에 배정되고 계속 그 워커에서만 틱이 돔
+// - 기본 방(DEFAULT_ROOM)은 방 메시지를 모르는 예전 클라이언트가 들어가는 곳이며 정리되지 않음
+// - 사람이 없는 방은 ROOM_IDLE_SECONDS 후 정리
+final class RoomManager {
+    static final String DEFAULT_ROOM = "main";
+    // 틱 워커 수 (기본: 코어 수), 최대 방 수, 빈 방 정리 시간. -Dsurvivors.roomWorkers=4
+    static final int WORKERS = Integer.getInteger("survivors.roomWorkers", Runtime.getRuntime().availableProcessors());
+    static final int MAX_ROOMS = Integer.getInteger("survivors.maxRooms", 1000);
+    static final int ROOM_IDLE_SECONDS = Integer.getInteger("survivors.roomIdleSeconds", 60);
+
+    private final ScheduledExecutorService[] workers;
+    private final int[] roomsPerWorker;
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final Map<Room, Integer> workerOf = new ConcurrentHashMap<>();
+
+    RoomManager() {
+        int n = Math.max(1, WORKERS);
+        workers = new ScheduledExecutorService[n];
+        roomsPerWorker = new int[n];
+        for (int i = 0; i < n; i++) {
+            String threadName = "RoomTick-" + i;
+            workers[i] = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, threadName);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        startRoom(DEFAULT_ROOM, "기본 방");
+    }
+
+    Room defaultRoom() {
+        return rooms.get(DEFAULT_ROOM);
+    }
+
+    Room get(String id) {
+        return id != null ? rooms.get(id) : null;
+    }
+
+    Collection<Room> rooms() {
+        return rooms.values();
+    }
+
+    int workerCount() {
+        return workers.length;
+    }
+
+    // 방 수 제한을 넘으면 null
+    Room create(String name) {
+        if (rooms.size() >= MAX_ROOMS) {
+            return null;
+        }
+        String id = UUID.randomUUID().toString().substring(0, 6);
+        while (rooms.containsKey(id)) {
+            id = UUID.randomUUID().toString().substring(0, 6);
+        }
+        return startRoom(id, name != null && !name.isEmpty() ? name : "방 " + id);
+    }
+
+    private synchronized Room startRoom(String id, String name) {
+        int w = 0;
+        for (int i = 1; i < workers.length; i++) {
+            if (roomsPerWorker[i] < roomsPerWorker[w]) w = i;
+        }
+        roomsPerWorker[w]++;
+        Room room = new Room(id, name, workers[w]);
+        workerOf.put(room, w);
+        rooms.put(id, room);
+        room.start();
+        return room;
+    }
+
+    private synchronized void removeRoom(Room room) {
+        room.stop();
+        rooms.remove(room.id);
+        Integer w = workerOf.remove(room);
+        if (w != null) {
+            roomsPerWorker[w]--;
+        }
+    }
+
+    // 빈 방 정리 (기본 방은 남겨둠)
+    void reapIdleRooms() {
+        long now = System.currentTimeMillis();
+        for (Room room : rooms.values()) {
+            if (room.id.equals(DEFAULT_ROOM)) continue;
+            // 확인과 닫기를 방 스레드에서 한 번에 (그 사이 입장 명령이 끼어들 수 없음)
+            room.execute(() -> {
+                if (room.isIdle(now, ROOM_IDLE_SECONDS * 1000L)) {
+                    removeRoom(room);
+                    Log.info("🧹 빈 방 정리: " + room.id + " (" + room.name + ")");
+                }
+            });
+        }
+    }
+
+    int totalClients() {
+        int total = 0;
+        for (Room room : rooms.values()) {
+            total += room.clientCount();
+        }
+        return total;
+    }
+
+    JsonArray listJson() {
+        JsonArray list = new JsonArray();
+        for (Room room : rooms.values()) {
+            list.add(room.toSummaryJson());
+        }
+        return list;
+    }
+
+    void stop() {
+        for (ScheduledExecutorService worker : workers) {
+            worker.shutdownNow();
+        }
+        if (MatchRecorder.DIR != null) {
+            // 워커가 멈춘 뒤에 기록을 닫음 (방 스레드 대신 여기서)
+            for (ScheduledExecutorService worker : workers) {
+                try {
+                    worker.awaitTermination(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (Room room : rooms.values()) {
+                room.stopRecording();
+            }
+        }
+    }
+
+    // 지난 출력 이후 구간의 방별 틱 처리 시간/지연 요약. 가장 느린 방 몇 개는 따로 출력
+    void printStats() {
+        int active = 0;
+        long ticks = 0;
+        long nanos = 0;
+        long maxNanos = 0;
+        long maxLate = 0;
+        long commands = 0;
+        long maxBatch = 0;
+        List<Room> occupied = new ArrayList<>();
+        for (Room room : rooms.values()) {
+            if (room.summary().started) active++;
+            long roomTicks = room.tickCount - room.reportedTicks;
+            long roomNanos = room.tickNanosTotal - room.reportedNanos;
+            room.reportedTicks += roomTicks;
+            room.reportedNanos += roomNanos;
+            room.reportedAvg = roomTicks > 0 ? roomNanos / roomTicks : 0;
+            room.reportedMax = room.tickNanosMax.getAndSet(0);
+            room.reportedLate = room.tickLateMax.getAndSet(0);
+            ticks += roomTicks;
+            nanos += roomNanos;
+            maxNanos = Math.max(maxNanos, room.reportedMax);
+            maxLate = Math.max(maxLate, room.reportedLate);
+            long roomCommands = room.commandCount - room.reportedCommands;
+            room.reportedCommands += roomCommands;
+            commands += roomCommands;
+            maxBatch = Math.max(maxBatch, room.maxCommandBatch.getAndSet(0));
+            if (room.clientCount() > 0) {
+                occupied.add(room);
+            }
+        }
+        Log.info(String.format("🏠 방 %d개 (진행 중 %d), 워커 %d개 | 틱 평균 %.3fms, 최대 %.3fms, 최대 시작 지연 %.3fms | 명령 %d개 (한 번에 최대 %d개)",
+            rooms.size(), active, workers.length, ticks > 0 ? nanos / 1e6 / ticks : 0.0, maxNanos / 1e6, maxLate / 1e6, commands, maxBatch));
+        occupied.sort(Comparator.comparingLong((Room r) -> r.reportedMax).reversed());
+        for (int i = 0; i < Math.min(3, occupied.size()); i++) {
+            Room room = occupied.get(i);
+            Log.info(String.format("   [%s] %s: %d명, 틱 평균 %.3fms, 최대 %.3fms, 최대 시작 지연 %.3fms",
+                room.id, room.name, room.clientCount(), room.reportedAvg / 1e6, room.reportedMax / 1e6, room.reportedLate / 1e6));
+            if (GameServer.AUTHORITATIVE) {
+                room.execute(room::printSimulationStats);
+            }
+        }
+    }
+}
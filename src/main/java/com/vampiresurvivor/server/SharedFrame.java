@@ -0,0 +1,89 @@
+package com.vampiresurvivor.server;
+
+import org.java_websocket.framing.BinaryFrame;
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.framing.DataFrame;
+import org.java_websocket.framing.TextFrame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// 여러 클라이언트에게 같은 내용을 보낼 때 쓰는 프레임. UTF-8 인코딩과 프레임 객체를 한 번만 만들고
+// 받는 연결마다 conn.sendFrame() 으로 넘김 (conn.send(String) 은 연결마다 인코딩을 다시 함)
+// - 라이브러리가 프레임 헤더를 붙이면서 페이로드를 복사한 뒤 위치를 되돌려 두므로 같은 스레드에서 차례로 보내는 한 재사용 가능
+// - 만든 스레드(방 워커 또는 WebSocket 스레드)에서 그 브로드캐스트 동안만 씀
+//   송신 대기열에 넣어 나중에 보낼 때는 detach() 한 프레임을 넣음
+// - permessage-deflate 를 협상한 연결에는 frameFor() 가 고름: 처음 필요할 때 한 번 압축해 둔 프레임(Deflated)을 모두에게 보냄
+//   (DeflateExtension.CONTEXT_TAKEOVER 면 연결마다 압축해야 하므로 떼어낸 프레임을 넘기고 확장이 압축)
+final class SharedFrame {
+    final DataFrame frame;
+    final int payloadBytes;
+    // 압축한 프레임 (임계값보다 작으면 frame 그대로)
+    private DataFrame deflated;
+
+    private SharedFrame(DataFrame frame, int payloadBytes) {
+        this.frame = frame;
+        this.payloadBytes = payloadBytes;
+        GameServer.sharedFramesEncoded.increment();
+        GameServer.sharedBytesEncoded.add(payloadBytes);
+    }
+
+    static SharedFrame text(String message) {
+        byte[] utf8 = message.getBytes(StandardCharsets.UTF_8);
+        TextFrame frame = new TextFrame();
+        frame.setPayload(ByteBuffer.wrap(utf8));
+        return new SharedFrame(frame, utf8.length);
+    }
+
+    // 이 연결에 지금 보낼 프레임
+    DataFrame frameFor(boolean deflate) {
+        if (!deflate || payloadBytes < DeflateExtension.THRESHOLD) return frame;
+        if (DeflateExtension.CONTEXT_TAKEOVER) return detach(frame);
+        if (deflated == null) {
+            deflated = new Deflated(frame.getOpcode(), DeflateExtension.compress(frame.getPayloadData()), payloadBytes);
+            GameServer.sharedFramesDeflated.increment();
+        }
+        return deflated;
+    }
+
+    // 송신 대기열에 넣을 프레임
+    DataFrame detachFor(boolean deflate) {
+        DataFrame shared = frameFor(deflate);
+        return shared == frame || shared instanceof Deflated ? detach(shared) : shared;
+    }
+
+    // 위치를 따로 갖는 같은 내용의 프레임 (페이로드 바이트는 복사하지 않음)
+    DataFrame detach() {
+        return detach(frame);
+    }
+
+    private static DataFrame detach(DataFrame frame) {
+        if (frame instanceof Deflated) {
+            Deflated deflated = (Deflated) frame;
+            return new Deflated(deflated.getOpcode(), deflated.getPayloadData().duplicate(), deflated.rawBytes);
+        }
+        DataFrame copy = frame.getOpcode() == Opcode.TEXT ? new TextFrame() : new BinaryFrame();
+        copy.setPayload(frame.getPayloadData().duplicate());
+        return copy;
+    }
+
+    // payload 의 현재 위치부터 끝까지 (원본 버퍼의 위치는 건드리지 않음)
+    static SharedFrame binary(ByteBuffer payload) {
+        ByteBuffer slice = payload.slice();
+        BinaryFrame frame = new BinaryFrame();
+        frame.setPayload(slice);
+        return new SharedFrame(frame, slice.remaining());
+    }
+
+    // 미리 압축한 프레임 (RSV1 이 켜져 있어 DeflateExtension 이 다시 압축하지 않음). rawBytes 는 압축 전 크기
+    static final class Deflated extends DataFrame {
+        final int rawBytes;
+
+        Deflated(Opcode opcode, ByteBuffer payload, int rawBytes) {
+            super(opcode);
+            setRSV1(true);
+            setPayload(payload);
+            this.rawBytes = rawBytes;
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.vampiresurvivor.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// 서버 권한 시뮬레이션: 적 스폰/추적 AI, 투사체 이동/충돌, 경험치 구슬
+// main.js 의 update()/spawnEnemy() 규칙을 그대로 옮김. 게임 틱 스레드에서만 호출됨.
+final class Simulation {
+    static final byte KIND_GRUNT = 0;
+    static final byte KIND_RUNNER = 1;
+    static final byte KIND_TANK = 2;
+    static final byte KIND_BOSS = 3;
+    static final String[] KIND_NAMES = {"grunt", "runner", "tank", "boss"};
+
+    // 클라이언트 BASE_PLAYER 와 동일한 값
+    static final float PLAYER_RADIUS = 12f;
+    static final float PROJ_SPEED = 420f;
+    static final float PROJ_LIFE = 1.35f;
+    static final float PROJ_KNOCK = 120f;
+    static final float ORB_RADIUS = 6f;
+    // 칼 캐릭터 (main.js shoot()/update() 의 swords 로직)
+    static final float SWORD_ANGULAR_SPEED = 8f;
+    static final float SWORD_ARC = (float) (Math.PI / 2);
+    static final float SWORD_COOLDOWN = 0.6f;
+    // 자동 조준 최대 거리 (화면 밖 적은 겨냥하지 않음)
+    static final float AIM_RANGE = 2000f;
+    static final float GRID_CELL = 64f;
+
+    // 엔티티는 SoA 저장소에 보관 (id 는 EntityStore 핸들)
+    final EntityStore enemies = new EntityStore(1024);
+    final EntityStore projectiles = new EntityStore(256);
+    final EntityStore orbs = new EntityStore(256);
+    // 적 위치 공간 인덱스 (적 이동 후 매 틱 다시 만듦)
+    final SpatialGrid enemyGrid = new SpatialGrid(GRID_CELL);
+    private int swingCounter = 0;
+
+    private final Random rng = new Random();
+    // 플레이어 목록은 입장/퇴장 때만 다시 만듦 (틱마다 Map 순회/할당 없음)
+    private final List<GameServer.PlayerData> roster = new ArrayList<>();
+    private int rosterVersion = -1;
+    private final List<GameServer.PlayerData> alive = new ArrayList<>();
+    private double spawnAcc = 0;
+    private double lastBossTime = 0;
+
+    // 틱 사용량 통계 (나노초)
+    long ticks = 0;
+    long tickNanosTotal = 0;
+    long tickNanosMax = 0;
+    long lastTickNanos = 0;
+
+    void reset() {
+        enemies.clear();
+        projectiles.clear();
+        orbs.clear();
+        spawnAcc = 0;
+        lastBossTime = 0;
+    }
+
+    void step(GameServer.GameState state, float dt) {
+        long start = System.nanoTime();
+        try {
+            if (!state.started || state.paused || state.gameOver) return;
+            state.t += dt;
+
+            if (rosterVersion != state.playersVersion) {
+                rosterVersion = state.playersVersion;
+                roster.clear();
+                roster.addAll(state.players.values());
+            }
+            alive.clear();
+            for (int i = 0, n = roster.size(); i < n; i++) {
+                GameServer.PlayerData p = roster.get(i);
+                if (p.hp > 0) alive.add(p);
+            }
+            if (alive.isEmpty()) {
+                if (!roster.isEmpty()) state.gameOver = true;
+                return;
+            }
+
+            // 적 이동 -> 격자 재구성 -> 격자 질의(접촉/발사/칼/투사체) -> 죽은 적 정리 -> 스폰
+            // 질의가 끝날 때까지 적 인덱스가 바뀌지 않도록 삭제는 한 번에 모아서 처리
+            updateEnemies(dt);
+            enemyGrid.build(enemies.x, enemies.y, enemies.r, enemies.size);
+            applyContactDamage();
+            updatePlayers(dt, state.t, roster.size());
+            updateProjectiles(state.t, dt, roster.size());
+            removeDeadEnemies();
+            spawnEnemies(state.t, dt);
+            updateOrbs(dt);
+        } finally {
+            long used = System.nanoTime() - start;
+            ticks++;
+            tickNanosTotal += used;
+            lastTickNanos = used;
+            if (used > tickNanosMax) tickNanosMax = used;
+        }
+    }
+
+    private void updatePlayers(float dt, double t, int playerCount) {
+        for (int k = 0, n = alive.size(); k < n; k++) {
+            GameServer.PlayerData p = alive.get(k);
+            if (p.regen > 0) {
+                // hp 가 정수이므로 소수 회복량은 누적했다가 반영
+                p.regenAcc += p.regen * dt;
+                int heal = (int) p.regenAcc;
+                p.regenAcc -= heal;
+                p.hp = Math.min(p.hpMax, p.hp + heal);
+            }
+            if (p.invuln > 0) p.invuln -= dt;
+            if (Math.abs(p.vx) > 0.1f || Math.abs(p.vy) > 0.1f) {
+                p.facing = (float) Math.atan2(p.vy, p.vx);
+            }
+
+            if ("sword".equals(p.characterType)) {
+                swingSword(p, dt, t, playerCount);
+                continue;
+            }
+
+            // 자동 발사: 가장 가까운 적을 향해 fireRate 만큼
+            p.shootAcc += dt;
+            float interval = 1f / Math.max(0.01f, p.fireRate);
+            while (p.shootAcc >= interval) {
+                p.shootAcc -= interval;
+                shoot(p);
+            }
+        }
+    }
+
+    // 시야 방향 -45도에서 +45도까지 휘두르고 쿨다운. 이번 틱에 쓸고 지나간 부채꼴만 판정하고,
+    // 한 번 휘두를 때 같은 적은 한 번만 맞음 (적의 value 열에 휘두르기 번호 기록)
+    private void swingSword(GameServer.PlayerData p, float dt, double t, int playerCount) {
+        if (p.swordCooldown > 0) {
+            p.swordCooldown -= dt;
+            if (p.swordCooldown > 0) return;
+            p.swordCooldown = 0;
+            p.swordAngle = 0;
+            p.swordBase = p.facing - SWORD_ARC / 2;
+            p.swingId = ++swingCounter;
+        }
+        if (p.swingId == 0) {
+            p.swordBase = p.facing - SWORD_ARC / 2;
+            p.swingId = ++swingCounter;
+        }
+
+        float from = p.swordAngle;
+        p.swordAngle = Math.min(SWORD_ARC, p.swordAngle + SWORD_ANGULAR_SPEED * dt);
+        float length = PLAYER_RADIUS * 2.5f + (p.projSize - 4) * 3f;
+
+        int hitCount = enemyGrid.queryArc(p.x, p.y, length, p.swordBase + from, p.swordAngle - from);
+        int[] hits = enemyGrid.hits;
+        for (int h = 0; h < hitCount; h++) {
+            int e = hits[h];
+            if (enemies.hp[e] <= 0 || enemies.value[e] == p.swingId) continue;
+            enemies.value[e] = p.swingId;
+            enemies.hp[e] -= p.damage;
+            knockBack(e, p.x, p.y, PROJ_KNOCK * dt);
+            if (enemies.hp[e] <= 0) killEnemy(e, t, playerCount);
+        }
+
+        if (p.swordAngle >= SWORD_ARC) {
+            p.swordCooldown = SWORD_COOLDOWN;
+        }
+    }
+
+    private void shoot(GameServer.PlayerData from) {
+        int target = enemyGrid.nearest(from.x, from.y, AIM_RANGE);
+        if (target < 0) return;
+
+        double baseAng = Math.atan2(enemies.y[target] - from.y, enemies.x[target] - from.x);
+        int count = Math.max(1, from.projCount);
+        double spread = count > 1 ? 0.15 : 0.06;
+        for (int i = 0; i < count; i++) {
+            double offset = count > 1 ? (i - (count - 1) / 2.0) * spread : 0;
+            double ang = baseAng + offset + (rng.nextDouble() * 0.04 - 0.02);
+            int p = projectiles.add();
+            projectiles.x[p] = from.x;
+            projectiles.y[p] = from.y;
+            projectiles.vx[p] = (float) (Math.cos(ang) * PROJ_SPEED);
+            projectiles.vy[p] = (float) (Math.sin(ang) * PROJ_SPEED);
+            projectiles.r[p] = from.projSize;
+            projectiles.timer[p] = PROJ_LIFE;
+            projectiles.damage[p] = from.damage;
+            projectiles.value[p] = from.pierce;
+        }
+    }
+
+    private GameServer.PlayerData nearestPlayer(float x, float y) {
+        GameServer.PlayerData best = alive.get(0);
+        float bestD = Float.MAX_VALUE;
+        for (int i = 0, n = alive.size(); i < n; i++) {
+            GameServer.PlayerData p = alive.get(i);
+            float dx = p.x - x;
+            float dy = p.y - y;
+            float d = dx * dx + dy * dy;
+            if (d < bestD) {
+                bestD = d;
+                best = p;
+            }
+        }
+        return best;
+    }
+
+    private void spawnEnemies(double t, float dt) {
+        double spawnRate = (0.9 + t / 35) * 0.8; // enemies/sec
+        double spawnInterval = 1 / spawnRate;
+        spawnAcc += dt;
+        while (spawnAcc >= spawnInterval) {
+            spawnAcc -= spawnInterval;
+            // 플레이어 수만큼, 각 플레이어 주변에 스폰
+            for (int n = 0; n < alive.size(); n++) {
+                double r = rng.nextDouble();
+                byte kind = KIND_GRUNT;
+                if (t > 25 && r < 0.12) kind = KIND_RUNNER;
+                else if (t > 45 && r < 0.20) kind = KIND_TANK;
+                spawnEnemy(kind, alive.get(n), t);
+            }
+        }
+        if (t - lastBossTime >= 300.0) {
+            spawnEnemy(KIND_BOSS, alive.get(rng.nextInt(alive.size())), t);
+            lastBossTime = t;
+        }
+    }
+
+    private void spawnEnemy(byte kind, GameServer.PlayerData around, double t) {
+        double ang = rng.nextDouble() * Math.PI * 2;
+        double dist = 360 + rng.nextDouble() * 160;
+
+        float hp = 26, speed = 60, damage = 12, r = 12;
+        switch (kind) {
+            case KIND_RUNNER: hp = 18; speed = 92; damage = 10; r = 10; break;
+            case KIND_TANK: hp = 60; speed = 42; damage = 18; r = 15; break;
+            case KIND_BOSS: hp = 200; speed = 50; damage = 25; r = 20; break;
+            default: break;
+        }
+        // 시간과 레벨에 따라 강해짐 (레벨마다 1.2배)
+        double totalScale = (1 + t / 45) * Math.pow(1.2, Math.max(0, around.level - 1));
+
+        int e = enemies.add();
+        enemies.kind[e] = kind;
+        enemies.x[e] = (float) (around.x + Math.cos(ang) * dist);
+        enemies.y[e] = (float) (around.y + Math.sin(ang) * dist);
+        enemies.r[e] = r;
+        enemies.hp[e] = (float) (hp * totalScale);
+        enemies.hpMax[e] = enemies.hp[e];
+        enemies.speed[e] = (float) (speed * (0.9 + 0.1 * totalScale));
+        enemies.damage[e] = (float) (damage * totalScale);
+    }
+
+    private void updateEnemies(float dt) {
+        float follow = (float) (1 - Math.exp(-8 * dt));
+        EntityStore es = enemies;
+        float[] ex = es.x, ey = es.y, evx = es.vx, evy = es.vy, espeed = es.speed, ecd = es.timer;
+        for (int i = 0, n = es.size; i < n; i++) {
+            GameServer.PlayerData target = nearestPlayer(ex[i], ey[i]);
+
+            float dx = target.x - ex[i];
+            float dy = target.y - ey[i];
+            float d = (float) Math.sqrt(dx * dx + dy * dy);
+            float nx = d > 0 ? dx / d : 0;
+            float ny = d > 0 ? dy / d : 0;
+            evx[i] += (nx * espeed[i] - evx[i]) * follow;
+            evy[i] += (ny * espeed[i] - evy[i]) * follow;
+            ex[i] += evx[i] * dt;
+            ey[i] += evy[i] * dt;
+            if (ecd[i] > 0) ecd[i] -= dt;
+        }
+    }
+
+    // 접촉 피해 + 밀어내기: 플레이어마다 주변 적만 격자로 조회
+    private void applyContactDamage() {
+        EntityStore es = enemies;
+        for (int k = 0, pc = alive.size(); k < pc; k++) {
+            GameServer.PlayerData p = alive.get(k);
+            int hitCount = enemyGrid.queryCircle(p.x, p.y, PLAYER_RADIUS);
+            int[] hits = enemyGrid.hits;
+            for (int h = 0; h < hitCount; h++) {
+                int i = hits[h];
+                if (es.timer[i] <= 0 && p.invuln <= 0 && p.hp > 0) {
+                    es.timer[i] = 0.55f;
+                    p.invuln = 0.42f;
+                    p.hp = Math.max(0, p.hp - Math.round(es.damage[i]));
+                }
+                float px = es.x[i] - p.x;
+                float py = es.y[i] - p.y;
+                float pd = (float) Math.sqrt(px * px + py * py);
+                if (pd > 0) {
+                    float push = (PLAYER_RADIUS + es.r[i] - pd) * 0.6f;
+                    es.x[i] += px / pd * push;
+                    es.y[i] += py / pd * push;
+                }
+            }
+        }
+    }
+
+    // 이번 틱 이동 경로(선분)로 판정해서 빠른 투사체가 적을 뚫고 지나가지 않도록 함
+    private void updateProjectiles(double t, float dt, int playerCount) {
+        EntityStore ps = projectiles;
+        EntityStore es = enemies;
+        for (int i = ps.size - 1; i >= 0; i--) {
+            ps.timer[i] -= dt;
+            float x0 = ps.x[i], y0 = ps.y[i];
+            ps.x[i] += ps.vx[i] * dt;
+            ps.y[i] += ps.vy[i] * dt;
+            if (ps.timer[i] <= 0) {
+                ps.remove(i);
+                continue;
+            }
+
+            // 경로 시작점에서 가까운 적부터 (관통 수가 남아 있는 동안)
+            int hitCount = enemyGrid.querySegment(x0, y0, ps.x[i], ps.y[i], ps.r[i]);
+            int[] hits = enemyGrid.hits;
+            for (int h = 0; h < hitCount; h++) {
+                int j = hits[h];
+                if (es.hp[j] <= 0) continue;
+
+                es.hp[j] -= ps.damage[i];
+                knockBack(j, ps.x[i], ps.y[i], PROJ_KNOCK * dt);
+                if (es.hp[j] <= 0) {
+                    killEnemy(j, t, playerCount);
+                }
+                if (ps.value[i] > 0) {
+                    ps.value[i]--;
+                } else {
+                    ps.remove(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void knockBack(int e, float fromX, float fromY, float amount) {
+        float dx = enemies.x[e] - fromX;
+        float dy = enemies.y[e] - fromY;
+        float d = (float) Math.sqrt(dx * dx + dy * dy);
+        if (d > 0) {
+            enemies.x[e] += dx / d * amount;
+            enemies.y[e] += dy / d * amount;
+        }
+    }
+
+    private void killEnemy(int index, double t, int playerCount) {
+        int base = 4 + (int) Math.floor(t / 25);
+        int amount = (int) Math.floor(base * Math.pow(1.5, enemies.kind[index]));
+        for (int n = 0; n < playerCount; n++) {
+            int o = orbs.add();
+            orbs.x[o] = enemies.x[index];
+            orbs.y[o] = enemies.y[index];
+            orbs.r[o] = ORB_RADIUS;
+            orbs.value[o] = amount;
+        }
+    }
+
+    // 격자 질의가 끝난 뒤 hp <= 0 인 적을 한 번에 삭제 (역순이라 swap-remove 해도 안전)
+    private void removeDeadEnemies() {
+        for (int i = enemies.size - 1; i >= 0; i--) {
+            if (enemies.hp[i] <= 0) enemies.remove(i);
+        }
+    }
+
+    private void updateOrbs(float dt) {
+        EntityStore os = orbs;
+        for (int i = os.size - 1; i >= 0; i--) {
+            GameServer.PlayerData target = nearestPlayer(os.x[i], os.y[i]);
+            float dx = target.x - os.x[i];
+            float dy = target.y - os.y[i];
+            float d = (float) Math.sqrt(dx * dx + dy * dy);
+
+            if (d < target.pickup && d > 0) {
+                float pull = Math.max(0, Math.min(1, (target.pickup - d) / target.pickup));
+                os.x[i] += dx / d * (260 * pull * dt);
+                os.y[i] += dy / d * (260 * pull * dt);
+            }
+            if (d < PLAYER_RADIUS + ORB_RADIUS + 2) {
+                gainXP(target, os.value[i]);
+                os.remove(i);
+            }
+        }
+    }
+
+    private static void gainXP(GameServer.PlayerData p, int amount) {
+        p.xp += amount;
+        while (p.xp >= p.xpToNext) {
+            p.xp -= p.xpToNext;
+            p.level++;
+            p.xpToNext = (int) Math.floor(p.xpToNext * 1.28 + 8);
+        }
+    }
+
+    void writeJson(JsonObject json) {
+        writeJson(json, null);
+    }
+
+    // view 가 있으면 그 클라이언트에게 보이는 엔티티만 기록
+    void writeJson(JsonObject json, AreaOfInterest.View view) {
+        EntityStore es = enemies;
+        int enemyCount = view != null ? view.enemies.count : es.size;
+        JsonArray enemiesJson = new JsonArray(enemyCount);
+        for (int k = 0; k < enemyCount; k++) {
+            int i = view != null ? view.enemies.index[k] : k;
+            JsonObject o = new JsonObject();
+            o.addProperty("id", es.handle[i]);
+            o.addProperty("kind", KIND_NAMES[es.kind[i]]);
+            o.addProperty("x", es.x[i]);
+            o.addProperty("y", es.y[i]);
+            o.addProperty("r", es.r[i]);
+            o.addProperty("hp", es.hp[i]);
+            o.addProperty("hpMax", es.hpMax[i]);
+            enemiesJson.add(o);
+        }
+        EntityStore ps = projectiles;
+        int projectileCount = view != null ? view.projectiles.count : ps.size;
+        JsonArray projectilesJson = new JsonArray(projectileCount);
+        for (int k = 0; k < projectileCount; k++) {
+            int i = view != null ? view.projectiles.index[k] : k;
+            JsonObject o = new JsonObject();
+            o.addProperty("id", ps.handle[i]);
+            o.addProperty("x", ps.x[i]);
+            o.addProperty("y", ps.y[i]);
+            o.addProperty("vx", ps.vx[i]);
+            o.addProperty("vy", ps.vy[i]);
+            o.addProperty("r", ps.r[i]);
+            projectilesJson.add(o);
+        }
+        EntityStore os = orbs;
+        int orbCount = view != null ? view.orbs.count : os.size;
+        JsonArray orbsJson = new JsonArray(orbCount);
+        for (int k = 0; k < orbCount; k++) {
+            int i = view != null ? view.orbs.index[k] : k;
+            JsonObject o = new JsonObject();
+            o.addProperty("id", os.handle[i]);
+            o.addProperty("x", os.x[i]);
+            o.addProperty("y", os.y[i]);
+            o.addProperty("r", os.r[i]);
+            o.addProperty("amount", os.value[i]);
+            orbsJson.add(o);
+        }
+        json.add("enemies", enemiesJson);
+        json.add("projectiles", projectilesJson);
+        json.add("orbs", orbsJson);
+    }
+
+    // writeJson(JsonObject, view) 와 같은 내용을 트리 없이 바로 씀 (enemies/projectiles/orbs 키)
+    void writeJson(JsonStringWriter w, AreaOfInterest.View view) {
+        EntityStore es = enemies;
+        int enemyCount = view != null ? view.enemies.count : es.size;
+        w.name("enemies").beginArray();
+        for (int k = 0; k < enemyCount; k++) {
+            int i = view != null ? view.enemies.index[k] : k;
+            w.beginObject();
+            w.name("id").value(es.handle[i]);
+            w.name("kind").value(KIND_NAMES[es.kind[i]]);
+            w.name("x").value(es.x[i]);
+            w.name("y").value(es.y[i]);
+            w.name("r").value(es.r[i]);
+            w.name("hp").value(es.hp[i]);
+            w.name("hpMax").value(es.hpMax[i]);
+            w.endObject();
+        }
+        w.endArray();
+        EntityStore ps = projectiles;
+        int projectileCount = view != null ? view.projectiles.count : ps.size;
+        w.name("projectiles").beginArray();
+        for (int k = 0; k < projectileCount; k++) {
+            int i = view != null ? view.projectiles.index[k] : k;
+            w.beginObject();
+            w.name("id").value(ps.handle[i]);
+            w.name("x").value(ps.x[i]);
+            w.name("y").value(ps.y[i]);
+            w.name("vx").value(ps.vx[i]);
+            w.name("vy").value(ps.vy[i]);
+            w.name("r").value(ps.r[i]);
+            w.endObject();
+        }
+        w.endArray();
+        EntityStore os = orbs;
+        int orbCount = view != null ? view.orbs.count : os.size;
+        w.name("orbs").beginArray();
+        for (int k = 0; k < orbCount; k++) {
+            int i = view != null ? view.orbs.index[k] : k;
+            w.beginObject();
+            w.name("id").value(os.handle[i]);
+            w.name("x").value(os.x[i]);
+            w.name("y").value(os.y[i]);
+            w.name("r").value(os.r[i]);
+            w.name("amount").value(os.value[i]);
+            w.endObject();
+        }
+        w.endArray();
+    }
+}
@@ -0,0 +1,268 @@
+package com.vampiresurvivor.server;
+
+import java.util.Arrays;
+
+// 균일 격자 공간 해시: 충돌/최근접 검색을 O(P×E) 전수 비교 대신 주변 셀만 보도록 함
+// - 무한 월드이므로 셀 좌표 (cx, cy) 를 고정 크기 버킷 테이블에 해시
+// - 매 틱 build() 로 계수 정렬(counting sort)해서 다시 만듦. 원시 배열만 쓰고 용량이 늘 때만 할당
+// - 서로 다른 셀이 같은 버킷에 들어갈 수 있으므로 모든 질의는 실제 거리로 다시 확인하고,
+//   질의마다 방문한 버킷에 도장(stamp)을 찍어 중복 방문을 막음
+// - 질의 결과는 내부 버퍼 hits[0..count) 에 엔티티 인덱스로 담김 (다음 질의 전까지 유효)
+final class SpatialGrid {
+    private final float cellSize;
+    private final float invCellSize;
+
+    private int mask;
+    private int[] bucketStart;   // 버킷 b 의 항목은 items[bucketStart[b] .. bucketStart[b + 1])
+    private int[] bucketStamp;
+    private int stamp = 0;
+    private int[] items = new int[0];
+    private int[] itemBucket = new int[0];
+
+    private float[] xs, ys, rs;
+    private int count = 0;
+    private float maxRadius = 0;
+
+    int[] hits = new int[256];
+    private float[] hitDist = new float[256];
+
+    SpatialGrid(float cellSize) {
+        this.cellSize = cellSize;
+        this.invCellSize = 1f / cellSize;
+        resizeTable(1024);
+    }
+
+    int size() {
+        return count;
+    }
+
+    // 위치/반지름 배열의 앞쪽 n 개로 격자를 다시 만듦 (배열은 참조만 보관)
+    void build(float[] x, float[] y, float[] r, int n) {
+        xs = x;
+        ys = y;
+        rs = r;
+        count = n;
+        if (items.length < n) {
+            int cap = Math.max(n, items.length * 2);
+            items = new int[cap];
+            itemBucket = new int[cap];
+        }
+        // 버킷 수는 엔티티 수 이상 (2의 거듭제곱)
+        int buckets = mask + 1;
+        if (buckets < n) {
+            resizeTable(Integer.highestOneBit(n - 1) << 1);
+            buckets = mask + 1;
+        }
+
+        int[] start = bucketStart;
+        Arrays.fill(start, 0, buckets + 1, 0);
+        float maxR = 0;
+        for (int i = 0; i < n; i++) {
+            int b = bucketOf(cell(x[i]), cell(y[i]));
+            itemBucket[i] = b;
+            start[b + 1]++;
+            if (r[i] > maxR) maxR = r[i];
+        }
+        maxRadius = maxR;
+        for (int b = 0; b < buckets; b++) {
+            start[b + 1] += start[b];
+        }
+        // start[b] 를 쓰기 커서로 사용한 뒤 한 칸씩 밀어 원래 시작 위치로 되돌림
+        for (int i = 0; i < n; i++) {
+            items[start[itemBucket[i]]++] = i;
+        }
+        for (int b = buckets; b > 0; b--) {
+            start[b] = start[b - 1];
+        }
+        start[0] = 0;
+    }
+
+    // 원과 겹치는 엔티티 (중심 거리 < radius + r[i])
+    int queryCircle(float cx, float cy, float radius) {
+        int found = 0;
+        float reach = radius + maxRadius;
+        int x0 = cell(cx - reach), x1 = cell(cx + reach);
+        int y0 = cell(cy - reach), y1 = cell(cy + reach);
+        nextStamp();
+        for (int gy = y0; gy <= y1; gy++) {
+            for (int gx = x0; gx <= x1; gx++) {
+                int b = bucketOf(gx, gy);
+                if (bucketStamp[b] == stamp) continue;
+                bucketStamp[b] = stamp;
+                for (int k = bucketStart[b], end = bucketStart[b + 1]; k < end; k++) {
+                    int i = items[k];
+                    float dx = xs[i] - cx;
+                    float dy = ys[i] - cy;
+                    float rr = radius + rs[i];
+                    if (dx * dx + dy * dy < rr * rr) {
+                        found = addHit(found, i, 0);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // 중심 거리 기준 가까운 순서로 최대 k 개 (maxDist 이내). hits[0] 이 가장 가까움
+    int kNearest(float cx, float cy, int k, float maxDist) {
+        if (k <= 0 || count == 0) return 0;
+        ensureHits(k);
+        int found = 0;
+        float maxDist2 = maxDist * maxDist;
+        int ocx = cell(cx), ocy = cell(cy);
+        int maxRing = (int) Math.ceil(maxDist * invCellSize) + 1;
+        nextStamp();
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // ring 바깥 셀의 엔티티는 최소 ring * cellSize 이상 떨어져 있음
+            if (found == k) {
+                float bound = (ring - 1) * cellSize;
+                if (bound > 0 && hitDist[k - 1] <= bound * bound) break;
+            }
+            for (int gy = ocy - ring; gy <= ocy + ring; gy++) {
+                boolean edgeRow = gy == ocy - ring || gy == ocy + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int gx = ocx - ring; gx <= ocx + ring; gx += step) {
+                    int b = bucketOf(gx, gy);
+                    if (bucketStamp[b] == stamp) continue;
+                    bucketStamp[b] = stamp;
+                    for (int e = bucketStart[b], end = bucketStart[b + 1]; e < end; e++) {
+                        int i = items[e];
+                        float dx = xs[i] - cx;
+                        float dy = ys[i] - cy;
+                        float d2 = dx * dx + dy * dy;
+                        if (d2 > maxDist2 || (found == k && d2 >= hitDist[k - 1])) continue;
+                        // 삽입 정렬로 상위 k 개 유지
+                        int pos = found < k ? found++ : k - 1;
+                        while (pos > 0 && hitDist[pos - 1] > d2) {
+                            hits[pos] = hits[pos - 1];
+                            hitDist[pos] = hitDist[pos - 1];
+                            pos--;
+                        }
+                        hits[pos] = i;
+                        hitDist[pos] = d2;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    int nearest(float cx, float cy, float maxDist) {
+        return kNearest(cx, cy, 1, maxDist) > 0 ? hits[0] : -1;
+    }
+
+    // 두께 halfWidth 인 선분 (x0,y0)-(x1,y1) 과 겹치는 엔티티. 빠른 투사체의 이동 경로 충돌에 사용
+    // 결과는 선분 시작점에서 가까운 순서 (격자 순서로 모이므로 정렬함). hitDistance(h) 는 선분 위 위치 t (0~1)
+    int querySegment(float x0, float y0, float x1, float y1, float halfWidth) {
+        int found = 0;
+        float reach = halfWidth + maxRadius;
+        int gx0 = cell(Math.min(x0, x1) - reach), gx1 = cell(Math.max(x0, x1) + reach);
+        int gy0 = cell(Math.min(y0, y1) - reach), gy1 = cell(Math.max(y0, y1) + reach);
+        float sx = x1 - x0, sy = y1 - y0;
+        float len2 = sx * sx + sy * sy;
+        nextStamp();
+        for (int gy = gy0; gy <= gy1; gy++) {
+            for (int gx = gx0; gx <= gx1; gx++) {
+                int b = bucketOf(gx, gy);
+                if (bucketStamp[b] == stamp) continue;
+                bucketStamp[b] = stamp;
+                for (int k = bucketStart[b], end = bucketStart[b + 1]; k < end; k++) {
+                    int i = items[k];
+                    float t = len2 > 0 ? ((xs[i] - x0) * sx + (ys[i] - y0) * sy) / len2 : 0;
+                    t = Math.max(0, Math.min(1, t));
+                    float dx = xs[i] - (x0 + sx * t);
+                    float dy = ys[i] - (y0 + sy * t);
+                    float rr = halfWidth + rs[i];
+                    if (dx * dx + dy * dy < rr * rr) {
+                        found = addHit(found, i, t);
+                    }
+                }
+            }
+        }
+        // 관통하지 않는 투사체가 먼저 방문한 셀의 더 먼 적을 맞히지 않도록. 보통 몇 개뿐이라 삽입 정렬
+        for (int h = 1; h < found; h++) {
+            int i = hits[h];
+            float t = hitDist[h];
+            int pos = h;
+            while (pos > 0 && hitDist[pos - 1] > t) {
+                hits[pos] = hits[pos - 1];
+                hitDist[pos] = hitDist[pos - 1];
+                pos--;
+            }
+            hits[pos] = i;
+            hitDist[pos] = t;
+        }
+        return found;
+    }
+
+    // 부채꼴: 중심 (cx,cy), 반지름 radius, startAngle 에서 sweep(양수, 라디안)만큼. 칼 휘두르기 판정에 사용
+    int queryArc(float cx, float cy, float radius, float startAngle, float sweep) {
+        int inCircle = queryCircle(cx, cy, radius);
+        int found = 0;
+        for (int h = 0; h < inCircle; h++) {
+            int i = hits[h];
+            float dx = xs[i] - cx;
+            float dy = ys[i] - cy;
+            float d = (float) Math.sqrt(dx * dx + dy * dy);
+            // 몸통이 중심에 걸쳐 있으면 각도와 상관없이 맞음
+            boolean hit = d <= rs[i];
+            if (!hit) {
+                float tolerance = (float) Math.asin(Math.min(1f, rs[i] / d));
+                float rel = normalizeAngle((float) Math.atan2(dy, dx) - startAngle);
+                hit = rel <= sweep + tolerance || rel >= (float) (Math.PI * 2) - tolerance;
+            }
+            if (hit) {
+                hits[found++] = i;
+            }
+        }
+        return found;
+    }
+
+    // 0 <= a < 2π 로 정규화
+    private static float normalizeAngle(float a) {
+        float twoPi = (float) (Math.PI * 2);
+        a %= twoPi;
+        return a < 0 ? a + twoPi : a;
+    }
+
+    float hitDistance(int h) {
+        return hitDist[h];
+    }
+
+    private int addHit(int found, int i, float dist) {
+        ensureHits(found + 1);
+        hits[found] = i;
+        hitDist[found] = dist;
+        return found + 1;
+    }
+
+    private void ensureHits(int n) {
+        if (hits.length < n) {
+            int cap = Math.max(n, hits.length * 2);
+            hits = Arrays.copyOf(hits, cap);
+            hitDist = Arrays.copyOf(hitDist, cap);
+        }
+    }
+
+    private void nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(bucketStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    private int cell(float v) {
+        return (int) Math.floor(v * invCellSize);
+    }
+
+    private int bucketOf(int cx, int cy) {
+        return ((cx * 73856093) ^ (cy * 19349663)) & mask;
+    }
+
+    private void resizeTable(int buckets) {
+        mask = buckets - 1;
+        bucketStart = new int[buckets + 1];
+        bucketStamp = new int[buckets];
+        stamp = 0;
+    }
+}
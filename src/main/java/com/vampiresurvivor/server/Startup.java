@@ -0,0 +1,136 @@
+package com.vampiresurvivor.server;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 서버 시작 단계를 동시에 돌리고 걸린 시간을 잼
+// - run(): 단계마다 데몬 스레드 하나 (시작할 때 몇 번만 쓰므로 풀을 두지 않음)
+// - 시각은 main 초반(이 클래스를 처음 쓸 때) 기준. JVM 시작부터 그때까지(클래스 로딩, CDS 효과)는 JVM 가동 시간에서 역산
+// - 첫 WebSocket 연결을 받으면 한 번 로그를 남기고, 단계별 시각은 /metrics 의 survivors_startup_seconds 로
+// - -Dsurvivors.cdsTraining=true: 시작이 끝나면 자기 자신에게 HTTP/WebSocket 요청을 한 번씩 보내고 종료
+//   (pom.xml 의 cds 프로필이 -XX:ArchiveClassesAtExit 로 AppCDS 아카이브를 만들 때 씀)
+final class Startup {
+    static final boolean CDS_TRAINING = Boolean.getBoolean("survivors.cdsTraining");
+
+    private static final long MAIN_NANOS = System.nanoTime();
+    private static final AtomicBoolean accepted = new AtomicBoolean();
+    private static volatile long wsListeningNanos = 0;
+    private static volatile long readyNanos = 0;
+    private static volatile long firstAcceptNanos = 0;
+    // JVM 시작부터 MAIN_NANOS 까지 (ready() 에서 계산)
+    private static volatile double jvmMillis = -1;
+
+    private Startup() {
+    }
+
+    static CompletableFuture<Void> run(String name, Runnable step) {
+        return CompletableFuture.runAsync(step, r -> {
+            Thread t = new Thread(r, "Startup-" + name);
+            t.setDaemon(true);
+            t.start();
+        });
+    }
+
+    // WebSocket 서버 onStart (라이브러리 스레드)
+    static void wsListening() {
+        wsListeningNanos = System.nanoTime();
+    }
+
+    // 리스너를 모두 연 뒤 (main)
+    static void ready() {
+        readyNanos = System.nanoTime();
+        jvmMillis = ManagementFactory.getRuntimeMXBean().getUptime() - millisSinceMain(readyNanos);
+        long ws = wsListeningNanos;
+        System.out.println(String.format("🚀 시작 완료: WebSocket 리스닝 %s, HTTP/게임 서버 %.0fms (main 기준), JVM 시작부터 %.0fms",
+            ws != 0 ? String.format("%.0fms", millisSinceMain(ws)) : "대기 중", millisSinceMain(readyNanos), jvmMillis + millisSinceMain(readyNanos)));
+    }
+
+    // onOpen 마다 (첫 번째만 기록)
+    static void firstAccept() {
+        if (firstAcceptNanos != 0 || !accepted.compareAndSet(false, true)) return;
+        long now = System.nanoTime();
+        firstAcceptNanos = now;
+        double jvm = jvmMillis;
+        Log.info(String.format("⏱️  첫 WebSocket 연결: main 후 %.0fms%s", millisSinceMain(now),
+            jvm >= 0 ? String.format(" (JVM 시작부터 %.0fms)", jvm + millisSinceMain(now)) : ""));
+    }
+
+    // 단계별로 JVM 시작부터 걸린 시간(초). 아직 안 지난 단계는 -1
+    static double jvmSeconds() {
+        return jvmMillis / 1000.0;
+    }
+
+    static double wsListeningSeconds() {
+        return sinceJvm(wsListeningNanos);
+    }
+
+    static double readySeconds() {
+        return sinceJvm(readyNanos);
+    }
+
+    static double firstAcceptSeconds() {
+        return sinceJvm(firstAcceptNanos);
+    }
+
+    private static double sinceJvm(long nanos) {
+        double jvm = jvmMillis;
+        if (nanos == 0 || jvm < 0) return -1;
+        return (jvm + millisSinceMain(nanos)) / 1000.0;
+    }
+
+    private static double millisSinceMain(long nanos) {
+        return (nanos - MAIN_NANOS) / 1e6;
+    }
+
+    // CDS 학습 실행: 게임 파일, IP 정보, WebSocket 접속/playerUpdate 까지 한 번씩 (그 경로의 클래스를 아카이브에 넣음)
+    static void train(int wsPort, int httpPort, int gamePort) {
+        try {
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + gamePort + "/")).build(), HttpResponse.BodyHandlers.discarding());
+            client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + httpPort + "/ip")).build(), HttpResponse.BodyHandlers.discarding());
+
+            CompletableFuture<String> connected = new CompletableFuture<>();
+            CompletableFuture<String> state = new CompletableFuture<>();
+            WebSocket ws = client.newWebSocketBuilder().buildAsync(URI.create("ws://localhost:" + wsPort), new WebSocket.Listener() {
+                private final StringBuilder text = new StringBuilder();
+
+                @Override
+                public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                    text.append(data);
+                    if (last) {
+                        String message = text.toString();
+                        text.setLength(0);
+                        if (message.startsWith("{\"type\":\"connected\"")) {
+                            connected.complete(message);
+                        } else if (message.startsWith("{\"type\":\"state\"")) {
+                            state.complete(message);
+                        }
+                    }
+                    webSocket.request(1);
+                    return null;
+                }
+            }).get(5, TimeUnit.SECONDS);
+            String playerId = extractPlayerId(connected.get(5, TimeUnit.SECONDS));
+            ws.sendText("{\"type\":\"playerUpdate\",\"playerId\":\"" + playerId + "\",\"player\":{\"x\":1.5,\"y\":-2.25,\"vx\":0,\"vy\":0,\"hp\":100}}", true).join();
+            state.get(5, TimeUnit.SECONDS);
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "cds training").get(5, TimeUnit.SECONDS);
+            System.out.println("📦 CDS 학습 실행 완료");
+        } catch (Exception e) {
+            System.err.println("⚠️  CDS 학습 실행 중 오류 (시작 경로의 클래스만 아카이브에 들어감): " + e);
+        }
+    }
+
+    private static String extractPlayerId(String connected) {
+        int at = connected.indexOf("\"playerId\":\"") + 12;
+        return connected.substring(at, connected.indexOf('"', at));
+    }
+}
@@ -0,0 +1,92 @@
+package com.vampiresurvivor.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// 스냅샷 델타 인코딩: 기준(base) 스냅샷 대비 바뀐 필드만 남김
+// - 객체는 재귀적으로 비교하고, 원시값은 다르면 통째로 교체
+// - 모든 원소가 "id" 를 가진 객체인 배열(enemies/projectiles/orbs)은 id 를 키로 한 객체로 비교
+//   ({"<id>":{바뀐 필드},"<id>":null(사라짐),"<id>":{새 엔티티 전체}}). 그 밖의 배열은 다르면 통째로 교체
+// - 기준에는 있는데 현재 없는 키는 null 로 표시 (클라이언트에서 삭제)
+final class StateDelta {
+    private StateDelta() {
+    }
+
+    // 바뀐 내용이 없으면 빈 객체 반환
+    static JsonObject diff(JsonObject base, JsonObject current) {
+        JsonObject delta = new JsonObject();
+        for (Map.Entry<String, JsonElement> e : current.entrySet()) {
+            String key = e.getKey();
+            JsonElement cur = e.getValue();
+            JsonElement prev = base.get(key);
+            if (prev == null) {
+                delta.add(key, cur);
+            } else if (cur.isJsonObject() && prev.isJsonObject()) {
+                JsonObject child = diff(prev.getAsJsonObject(), cur.getAsJsonObject());
+                if (child.size() > 0) {
+                    delta.add(key, child);
+                }
+            } else if (cur.isJsonArray() && prev.isJsonArray() && hasIds(cur.getAsJsonArray()) && hasIds(prev.getAsJsonArray())) {
+                JsonObject child = diffById(prev.getAsJsonArray(), cur.getAsJsonArray());
+                if (child.size() > 0) {
+                    delta.add(key, child);
+                }
+            } else if (!cur.equals(prev)) {
+                delta.add(key, cur);
+            }
+        }
+        for (String key : base.keySet()) {
+            if (!current.has(key)) {
+                delta.add(key, JsonNull.INSTANCE);
+            }
+        }
+        return delta;
+    }
+
+    // 엔티티 배열: 순서는 무시하고 id 로 짝지음 (EntityStore 는 지울 때 끝 원소를 옮겨 오므로 순서가 바뀜)
+    private static JsonObject diffById(JsonArray base, JsonArray current) {
+        Map<JsonElement, JsonObject> previous = new HashMap<>(base.size() * 2);
+        for (JsonElement e : base) {
+            JsonObject o = e.getAsJsonObject();
+            previous.put(o.get("id"), o);
+        }
+        JsonObject delta = new JsonObject();
+        Set<JsonElement> seen = new HashSet<>(current.size() * 2);
+        for (JsonElement e : current) {
+            JsonObject cur = e.getAsJsonObject();
+            JsonElement id = cur.get("id");
+            seen.add(id);
+            JsonObject prev = previous.get(id);
+            if (prev == null) {
+                delta.add(id.getAsString(), cur);
+            } else {
+                JsonObject child = diff(prev, cur);
+                if (child.size() > 0) {
+                    delta.add(id.getAsString(), child);
+                }
+            }
+        }
+        for (JsonElement id : previous.keySet()) {
+            if (!seen.contains(id)) {
+                delta.add(id.getAsString(), JsonNull.INSTANCE);
+            }
+        }
+        return delta;
+    }
+
+    private static boolean hasIds(JsonArray array) {
+        for (JsonElement e : array) {
+            if (!e.isJsonObject()) return false;
+            JsonElement id = e.getAsJsonObject().get("id");
+            if (id == null || !id.isJsonPrimitive()) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,369 @@
+package com.vampiresurvivor.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+// 게임 파일(index.html, main.js, ...) 제공용 캐시
+// - 파일은 처음 요청될 때 한 번 읽어서 해시(ETag)와 함께 메모리에 보관. If-None-Match 가 맞으면 304
+// - 텍스트 파일은 gzip 본을 미리 만들어 둠. 옆에 main.js.br / main.js.gz 가 있으면 그걸 그대로 사용
+//   (JDK 에 brotli 인코더가 없으므로 br 은 미리 압축된 파일이 있을 때만)
+// - MAX_CACHED_BYTES 보다 큰 파일(영상 등)은 메모리에 올리지 않고 FileChannel.transferTo 로 전송, Range 요청 지원
+// - 파일이 바뀌면(수정 시각/크기) 다음 요청 때 다시 읽음. 확인은 파일마다 CHECK_INTERVAL_MS 에 한 번
+final class StaticAssetCache {
+    static final int MAX_CACHED_BYTES = Integer.getInteger("survivors.assetCacheMaxBytes", 1 << 20);
+    static final long CHECK_INTERVAL_MS = Long.getLong("survivors.assetCheckMs", 1000);
+    // 0 이면 매번 ETag 로 재검증 (개발 중 파일 수정이 바로 반영되도록)
+    static final int MAX_AGE_SECONDS = Integer.getInteger("survivors.assetMaxAge", 0);
+    private static final int MIN_GZIP_BYTES = 512;
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private final Path root;
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+
+    // 통계
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+    final AtomicLong notModified = new AtomicLong();
+    final AtomicLong reloads = new AtomicLong();
+
+    StaticAssetCache(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    Path root() {
+        return root;
+    }
+
+    private static final class Asset {
+        final Path file;
+        final long size;
+        final long lastModified;
+        final String etag;
+        final String lastModifiedHeader;
+        final String contentType;
+        final boolean compressible;
+        final byte[] identity;   // null 이면 큰 파일 (디스크에서 전송)
+        final byte[] gzip;
+        final byte[] brotli;
+        volatile long checkedAt;
+
+        Asset(Path file, long size, long lastModified, String etag, String contentType, boolean compressible,
+              byte[] identity, byte[] gzip, byte[] brotli) {
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.etag = etag;
+            this.lastModifiedHeader = HTTP_DATE.format(java.time.Instant.ofEpochMilli(lastModified));
+            this.contentType = contentType;
+            this.compressible = compressible;
+            this.identity = identity;
+            this.gzip = gzip;
+            this.brotli = brotli;
+            this.checkedAt = System.currentTimeMillis();
+        }
+    }
+
+    void handle(HttpExchange exchange) throws IOException {
+        try {
+            // 본문 없는 응답(304, HEAD)은 exchange.close() 가 요청 스트림을 닫지 않아 keep-alive 연결이 끊기므로 먼저 닫아둠
+            exchange.getRequestBody().close();
+            String method = exchange.getRequestMethod();
+            boolean head = "HEAD".equals(method);
+            if (!head && !"GET".equals(method)) {
+                sendText(exchange, 405, "Method Not Allowed");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/")) {
+                path = "/index.html";
+            }
+            Asset asset = lookup(path);
+            if (asset == null) {
+                Log.limited(Log.Level.WARN, "notFound", "❌ 파일을 찾을 수 없습니다: " + path + " (" + root + ")", null);
+                String error = "<h1>404 - 파일을 찾을 수 없습니다</h1><p>요청한 경로: " + escapeHtml(path) + "</p>";
+                exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+                sendBytes(exchange, 404, error.getBytes(StandardCharsets.UTF_8), head);
+                return;
+            }
+
+            Headers request = exchange.getRequestHeaders();
+            Headers response = exchange.getResponseHeaders();
+            response.set("Content-Type", asset.contentType);
+            response.set("ETag", asset.etag);
+            response.set("Last-Modified", asset.lastModifiedHeader);
+            response.set("Cache-Control", MAX_AGE_SECONDS > 0 ? "public, max-age=" + MAX_AGE_SECONDS : "no-cache");
+            if (asset.compressible) {
+                response.set("Vary", "Accept-Encoding");
+            }
+
+            if (etagMatches(request.getFirst("If-None-Match"), asset.etag)) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            String accept = request.getFirst("Accept-Encoding");
+            if (asset.brotli != null && acceptsEncoding(accept, "br")) {
+                response.set("Content-Encoding", "br");
+                sendBytes(exchange, 200, asset.brotli, head);
+            } else if (asset.gzip != null && acceptsEncoding(accept, "gzip")) {
+                response.set("Content-Encoding", "gzip");
+                sendBytes(exchange, 200, asset.gzip, head);
+            } else if (asset.identity != null) {
+                response.set("Accept-Ranges", "bytes");
+                long[] range = parseRange(request.getFirst("Range"), asset.size);
+                if (range == null) {
+                    sendBytes(exchange, 200, asset.identity, head);
+                } else {
+                    response.set("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + asset.size);
+                    int len = (int) (range[1] - range[0] + 1);
+                    exchange.sendResponseHeaders(206, head ? -1 : len);
+                    if (!head) exchange.getResponseBody().write(asset.identity, (int) range[0], len);
+                }
+            } else {
+                sendFile(exchange, asset, request.getFirst("Range"), head);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // 캐시 조회. 오래된 항목은 수정 시각/크기를 확인해서 바뀌었으면 다시 읽음
+    private Asset lookup(String path) throws IOException {
+        Asset asset = assets.get(path);
+        long now = System.currentTimeMillis();
+        if (asset != null) {
+            if (now - asset.checkedAt < CHECK_INTERVAL_MS) {
+                hits.incrementAndGet();
+                return asset;
+            }
+            try {
+                if (Files.size(asset.file) == asset.size && Files.getLastModifiedTime(asset.file).toMillis() == asset.lastModified) {
+                    asset.checkedAt = now;
+                    hits.incrementAndGet();
+                    return asset;
+                }
+            } catch (NoSuchFileException e) {
+                assets.remove(path);
+                return null;
+            }
+            reloads.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        Path file = resolve(path);
+        if (file == null || !Files.isRegularFile(file)) {
+            assets.remove(path);
+            return null;
+        }
+        asset = load(file);
+        assets.put(path, asset);
+        return asset;
+    }
+
+    // "/a/b.js" -> root/a/b.js. 루트 밖으로 나가는 경로(..)는 거부
+    private Path resolve(String path) {
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        Path file = root.resolve(relative).normalize();
+        return file.startsWith(root) ? file : null;
+    }
+
+    private Asset load(Path file) throws IOException {
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        long size = Files.size(file);
+        String name = file.getFileName().toString();
+        String contentType = contentType(name);
+        boolean compressible = isCompressible(contentType);
+
+        byte[] identity = null;
+        String etag;
+        if (size <= MAX_CACHED_BYTES) {
+            identity = Files.readAllBytes(file);
+            size = identity.length;
+            etag = "\"" + hash(identity) + "\"";
+        } else {
+            // 큰 파일은 내용 해시 대신 크기+수정 시각으로 ETag
+            etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+        }
+
+        byte[] gzip = null;
+        byte[] brotli = null;
+        if (compressible && identity != null) {
+            brotli = readSibling(file, ".br", lastModified);
+            gzip = readSibling(file, ".gz", lastModified);
+            if (gzip == null && identity.length >= MIN_GZIP_BYTES) {
+                byte[] compressed = gzip(identity);
+                gzip = compressed.length < identity.length ? compressed : null;
+            }
+        }
+        return new Asset(file, size, lastModified, etag, contentType, compressible, identity, gzip, brotli);
+    }
+
+    // 원본보다 오래된 미리 압축본은 무시 (원본만 고치고 다시 압축하지 않은 경우)
+    private static byte[] readSibling(Path file, String suffix, long sourceModified) throws IOException {
+        Path sibling = file.resolveSibling(file.getFileName() + suffix);
+        if (!Files.isRegularFile(sibling) || Files.getLastModifiedTime(sibling).toMillis() < sourceModified) {
+            return null;
+        }
+        return Files.readAllBytes(sibling);
+    }
+
+    private static void sendFile(HttpExchange exchange, Asset asset, String rangeHeader, boolean head) throws IOException {
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        long[] range = parseRange(rangeHeader, asset.size);
+        long start = 0, length = asset.size;
+        int status = 200;
+        if (range != null) {
+            start = range[0];
+            length = range[1] - range[0] + 1;
+            status = 206;
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + asset.size);
+        }
+        exchange.sendResponseHeaders(status, head ? -1 : length);
+        if (head) return;
+        try (FileChannel channel = FileChannel.open(asset.file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(exchange.getResponseBody());
+            long sent = 0;
+            while (sent < length) {
+                long n = channel.transferTo(start + sent, length - sent, out);
+                if (n <= 0) break;
+                sent += n;
+            }
+        }
+    }
+
+    private static void sendBytes(HttpExchange exchange, int status, byte[] body, boolean head) throws IOException {
+        exchange.sendResponseHeaders(status, head ? -1 : body.length);
+        if (!head) {
+            OutputStream out = exchange.getResponseBody();
+            out.write(body);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        sendBytes(exchange, status, text.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    // "bytes=start-end" / "bytes=start-" / "bytes=-suffix" 하나만 지원. 없거나 잘못되면 null (전체 전송)
+    private static long[] parseRange(String header, long size) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0 || size == 0) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            long start, end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(size - 1, Long.parseLong(spec.substring(dash + 1)));
+            }
+            return start <= end && start < size ? new long[]{start, end} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals(etag) || t.equals("*")) return true;
+        }
+        return false;
+    }
+
+    private static boolean acceptsEncoding(String header, String encoding) {
+        if (header == null) return false;
+        for (String part : header.split(",")) {
+            String[] kv = part.trim().split(";");
+            if (kv[0].trim().equalsIgnoreCase(encoding)) {
+                // "gzip;q=0" 은 거부
+                return kv.length < 2 || !kv[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 12; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 3 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(java.util.zip.Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gz.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String escapeHtml(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.startsWith("application/json")
+            || contentType.equals("image/svg+xml") || contentType.equals("application/wasm");
+    }
+
+    static String contentType(String filename) {
+        int dot = filename.lastIndexOf('.');
+        String ext = dot >= 0 ? filename.substring(dot).toLowerCase() : "";
+        switch (ext) {
+            case ".html": return "text/html";
+            case ".js": return "text/javascript";
+            case ".css": return "text/css";
+            case ".json": return "application/json";
+            case ".png": return "image/png";
+            case ".jpg": case ".jpeg": return "image/jpeg";
+            case ".gif": return "image/gif";
+            case ".svg": return "image/svg+xml";
+            case ".wav": return "audio/wav";
+            case ".mp4": return "video/mp4";
+            case ".woff": return "application/font-woff";
+            case ".ttf": return "application/font-ttf";
+            case ".eot": return "application/vnd.ms-fontobject";
+            case ".otf": return "application/font-otf";
+            case ".wasm": return "application/wasm";
+            default: return "application/octet-stream";
+        }
+    }
+}
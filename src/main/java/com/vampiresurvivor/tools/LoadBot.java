@@ -0,0 +1,594 @@
+package com.vampiresurvivor.tools;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 헤드리스 봇 클라이언트로 WebSocket 서버에 오래 부하를 거는 도구 (브라우저 없이)
+// 봇마다 실제 클라이언트와 같은 메시지를 보냄: connected 수신 -> playerUpdate (기본 60Hz, 원을 그리며 이동),
+// projectile (초당 fireRate 번), levelUp (가끔). 방 크기만큼 모이면 첫 봇이 createRoom 으로 방을 만들고 나머지가 들어감
+// 보고 항목 (interval 초마다 + 끝날 때 전체)
+// - 중계 지연: 봇이 보낸 projectile 이 같은 방 다른 봇에게 도착하기까지 (projectile 에 보낸 시각을 넣어 보냄)
+// - 상태 지연: 봇이 보낸 위치가 자기에게 오는 state/stateDelta 에 처음 나타나기까지 (상태 틱 대기 포함)
+//   --input 이면 보낸 입력 번호가 자기 플레이어의 inputSeq 로 돌아오기까지
+// - 초당 송수신 메시지/바이트, 끊긴 연결/오류/접속 실패, 보내지 못하고 건너뛴 playerUpdate (송신 대기열이 밀린 경우)
+// - 서버 프로세스의 RSS(/proc/<pid>/status)와 GC 횟수/시간(jstat). 서버는 같은 머신에서 돌고 있어야 함
+// 사용법: java -cp mini-survivors-server.jar com.vampiresurvivor.tools.LoadBot [옵션]
+//   --url=ws://localhost:8080     대상 서버
+//   --bots=200 --roomSize=8       봇 수, 방 하나에 넣을 봇 수 (0 이면 모두 기본 방)
+//   --hz=60 --fireRate=2.24       playerUpdate 전송 빈도, 초당 투사체 수
+//   --levelUpEvery=20             봇마다 levelUp 을 보내는 간격 (초, 0 이면 안 보냄)
+//   --delta                       state 를 받을 때마다 ack 를 보냄 (델타 스냅샷 경로)
+//   --input                       playerUpdate 대신 input (입력 모드) 을 보냄. --hz 를 서버 survivors.inputHz 와 맞출 것
+//   --seconds=60 --interval=10    전체 시간 (0 이면 Ctrl+C 까지), 보고 간격
+//   --ramp=10                     봇 접속 간격 (ms)
+//   --pid=12345                   서버 프로세스 ID (없으면 GameServer/mini-survivors-server 를 찾아봄)
+public final class LoadBot {
+    // 보낸 시각은 이 값 기준 (nanoTime 은 음수일 수 있어 메시지에 그대로 넣지 않음)
+    private static final long EPOCH = System.nanoTime();
+    private static final AtomicLong connected = new AtomicLong();
+    private static final AtomicLong connectFailures = new AtomicLong();
+    private static final AtomicLong closedByServer = new AtomicLong();
+    private static final AtomicLong errors = new AtomicLong();
+    private static final AtomicLong messagesIn = new AtomicLong();
+    private static final AtomicLong charsIn = new AtomicLong();
+    private static final AtomicLong messagesOut = new AtomicLong();
+    private static final AtomicLong charsOut = new AtomicLong();
+    private static final AtomicLong sendSkipped = new AtomicLong();
+    private static final Histogram relayTotal = new Histogram();
+    private static final Histogram stateTotal = new Histogram();
+    private static volatile Histogram relayInterval = new Histogram();
+    private static volatile Histogram stateInterval = new Histogram();
+    private static volatile boolean stopping = false;
+    private static long startNanos;
+
+    private LoadBot() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        String base = opts.getOrDefault("url", "ws://localhost:8080");
+        int bots = Integer.parseInt(opts.getOrDefault("bots", "200"));
+        int roomSize = Integer.parseInt(opts.getOrDefault("roomSize", "8"));
+        int hz = Integer.parseInt(opts.getOrDefault("hz", "60"));
+        double fireRate = Double.parseDouble(opts.getOrDefault("fireRate", "2.24"));
+        int levelUpEvery = Integer.parseInt(opts.getOrDefault("levelUpEvery", "20"));
+        boolean delta = opts.containsKey("delta");
+        boolean input = opts.containsKey("input");
+        int seconds = Integer.parseInt(opts.getOrDefault("seconds", "60"));
+        int interval = Integer.parseInt(opts.getOrDefault("interval", "10"));
+        int ramp = Integer.parseInt(opts.getOrDefault("ramp", "10"));
+        long pid = opts.containsKey("pid") ? Long.parseLong(opts.get("pid")) : findServerPid();
+
+        System.out.println(String.format("🤖 봇 %d개 -> %s (방 크기 %s, %dHz, 투사체 %.2f/s%s)",
+            bots, base, roomSize > 0 ? String.valueOf(roomSize) : "전체", hz, fireRate,
+            (delta ? ", 델타 ack" : "") + (input ? ", 입력 모드" : "")));
+        System.out.println(pid > 0 ? "   서버 프로세스: " + pid : "   ⚠️  서버 프로세스를 찾지 못해 RSS/GC 는 생략 (--pid 로 지정)");
+        ServerStats server = new ServerStats(pid);
+
+        // 모든 봇이 셀렉터 스레드 하나를 같이 쓰는 HttpClient (봇마다 스레드를 만들지 않음)
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        ScheduledExecutorService ticker = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "bot-ticker");
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<Bot> all = new ArrayList<>();
+        // --seconds=0 으로 돌리다 Ctrl+C 로 끝내도 전체 결과는 출력
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (!stopping) printTotal(server);
+        }));
+
+        startNanos = System.nanoTime();
+        String roomId = null;
+        for (int i = 0; i < bots; i++) {
+            Bot bot = new Bot(i, roomSize, hz, fireRate, levelUpEvery, delta, input);
+            boolean leader = roomSize > 0 && i % roomSize == 0;
+            URI uri = URI.create(leader || roomSize <= 0 || roomId == null ? base : base + "/?room=" + roomId);
+            bot.createRoom = leader;
+            all.add(bot);
+            try {
+                client.newWebSocketBuilder().connectTimeout(Duration.ofSeconds(10)).buildAsync(uri, bot).join();
+                connected.incrementAndGet();
+            } catch (Exception e) {
+                if (connectFailures.incrementAndGet() == 1) {
+                    System.err.println("❌ 접속 실패 (봇 " + i + "): " + (e.getCause() != null ? e.getCause() : e));
+                }
+                continue;
+            }
+            if (leader) {
+                // 방이 만들어져야 나머지 봇이 그 방으로 접속할 수 있음
+                try {
+                    roomId = bot.room.get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    roomId = null;
+                    System.err.println("방 만들기 실패 (봇 " + i + "): " + e.getMessage());
+                }
+            }
+            bot.task = ticker.scheduleAtFixedRate(bot::tick, ThreadLocalRandom.current().nextInt(1000 / hz + 1),
+                1_000_000 / hz, TimeUnit.MICROSECONDS);
+            if (ramp > 0) Thread.sleep(ramp);
+        }
+        System.out.println(String.format("   접속 완료: %d/%d (%.1f초)", connected.get(), bots, (System.nanoTime() - startNanos) / 1e9));
+
+        long end = seconds > 0 ? System.nanoTime() + seconds * 1_000_000_000L : Long.MAX_VALUE;
+        long lastNanos = System.nanoTime();
+        long lastIn = messagesIn.get(), lastCharsIn = charsIn.get(), lastOut = messagesOut.get(), lastCharsOut = charsOut.get();
+        while (System.nanoTime() < end) {
+            Thread.sleep(Math.min(interval * 1000L, Math.max(1, (end - System.nanoTime()) / 1_000_000)));
+            long now = System.nanoTime();
+            double secs = (now - lastNanos) / 1e9;
+            Histogram relay = relayInterval, state = stateInterval;
+            relayInterval = new Histogram();
+            stateInterval = new Histogram();
+            long in = messagesIn.get(), cin = charsIn.get(), out = messagesOut.get(), cout = charsOut.get();
+            report(String.format("%4.0fs", (now - startNanos) / 1e9), relay, state, server,
+                (in - lastIn) / secs, (cin - lastCharsIn) / secs, (out - lastOut) / secs, (cout - lastCharsOut) / secs);
+            lastNanos = now;
+            lastIn = in;
+            lastCharsIn = cin;
+            lastOut = out;
+            lastCharsOut = cout;
+        }
+
+        stopping = true;
+        List<CompletableFuture<?>> closing = new ArrayList<>();
+        for (Bot bot : all) {
+            closing.add(bot.stop());
+        }
+        try {
+            CompletableFuture.allOf(closing.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // 닫기 응답이 늦는 연결은 기다리지 않음
+        }
+        ticker.shutdownNow();
+        printTotal(server);
+    }
+
+    private static void printTotal(ServerStats server) {
+        double total = (System.nanoTime() - startNanos) / 1e9;
+        report("전체", relayTotal, stateTotal, server,
+            messagesIn.get() / total, charsIn.get() / total, messagesOut.get() / total, charsOut.get() / total);
+    }
+
+    private static void report(String label, Histogram relay, Histogram state, ServerStats server,
+                               double inRate, double inChars, double outRate, double outChars) {
+        long open = connected.get() - closedByServer.get();
+        System.out.println(String.format("[%s] 연결 %d (끊김 %d, 오류 %d, 접속 실패 %d) | 수신 %.0f msg/s (%.2f MB/s), 송신 %.0f msg/s (%.2f MB/s), 건너뜀 %d",
+            label, open, closedByServer.get(), errors.get(), connectFailures.get(),
+            inRate, inChars / 1e6, outRate, outChars / 1e6, sendSkipped.get()));
+        System.out.println("   중계 지연 " + relay.summary());
+        System.out.println("   상태 지연 " + state.summary());
+        String s = server.sample();
+        if (s != null) System.out.println("   서버 " + s);
+    }
+
+    // 봇 하나 = WebSocket 연결 하나
+    private static final class Bot implements WebSocket.Listener {
+        private static final int RING = 64;
+
+        final int index;
+        final int hz;
+        final double fireRate;
+        final int levelUpEvery;
+        final boolean delta;
+        final boolean input;
+        final CompletableFuture<String> room = new CompletableFuture<>();
+        boolean createRoom;
+        volatile WebSocket ws;
+        volatile String playerId;
+        // state 안에서 자기 플레이어를 찾을 때 쓰는 "P3":{ (playerId 가 바뀌면 다시 만듦)
+        private volatile String playerKey;
+        ScheduledFuture<?> task;
+
+        private final StringBuilder partial = new StringBuilder();
+        private CompletableFuture<WebSocket> sending = CompletableFuture.completedFuture(null);
+        // 스크립트 이동: 중심 주위로 원을 그림
+        private final float cx, cy, radius, omega;
+        private long ticks = 0;
+        private double fireAcc = 0;
+        private int level = 1;
+        // 최근에 보낸 x 값 (입력 모드면 입력 번호) 과 보낸 시각 (상태 지연 측정용)
+        private final int[] sentX = new int[RING];
+        private final long[] sentAt = new long[RING];
+        private int sentPos = 0;
+        private long inputSeq = 0;
+
+        Bot(int index, int roomSize, int hz, double fireRate, int levelUpEvery, boolean delta, boolean input) {
+            this.index = index;
+            this.hz = hz;
+            this.fireRate = fireRate;
+            this.levelUpEvery = levelUpEvery;
+            this.delta = delta;
+            this.input = input;
+            int slot = roomSize > 0 ? index % roomSize : index;
+            cx = slot * 40;
+            cy = 0;
+            radius = 120 + (index * 37) % 200;
+            omega = 0.6f + (index % 7) * 0.15f;
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            ws = webSocket;
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            if (!last) {
+                partial.append(data);
+                webSocket.request(1);
+                return null;
+            }
+            String text;
+            if (partial.length() > 0) {
+                text = partial.append(data).toString();
+                partial.setLength(0);
+            } else {
+                text = data.toString();
+            }
+            try {
+                handle(text);
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        private void handle(String text) {
+            long now = System.nanoTime();
+            messagesIn.incrementAndGet();
+            charsIn.addAndGet(text.length());
+            if (text.startsWith("{\"type\":\"state")) {
+                measureState(text, now);
+                if (delta) {
+                    long seq = longAfter(text, "\"seq\":", 0);
+                    if (seq > 0) send("{\"type\":\"ack\",\"seq\":" + seq + "}", false);
+                }
+            } else if (text.startsWith("{\"type\":\"projectile\"")) {
+                long sent = longAfter(text, "\"sentAt\":", -1);
+                if (sent >= 0) {
+                    long latency = now - EPOCH - sent;
+                    relayTotal.record(latency);
+                    relayInterval.record(latency);
+                }
+            } else if (text.startsWith("{\"type\":\"connected\"")) {
+                JsonObject msg = JsonParser.parseString(text).getAsJsonObject();
+                playerId = msg.get("playerId").getAsString();
+                playerKey = "\"" + playerId + "\":{";
+                String roomId = msg.has("roomId") ? msg.get("roomId").getAsString() : null;
+                if (createRoom) {
+                    // 기본 방에 먼저 들어온 뒤 새 방을 만들고, 두 번째 connected 가 새 방
+                    createRoom = false;
+                    send("{\"type\":\"createRoom\",\"name\":\"bot-" + index + "\"}", false);
+                } else {
+                    room.complete(roomId);
+                }
+            }
+        }
+
+        // 이 봇이 보낸 x 값 (입력 모드면 입력 번호) 이 state 의 자기 플레이어에 처음 보이면 그때까지 걸린 시간
+        private void measureState(String text, long now) {
+            String key = playerKey;
+            if (key == null) return;
+            int at = text.indexOf(key);
+            if (at < 0) return;
+            int close = text.indexOf('}', at);
+            String field = input ? "\"inputSeq\":" : "\"x\":";
+            int x = text.indexOf(field, at);
+            if (x < 0 || x > close) return;
+            int start = x + field.length();
+            int end = start;
+            while (end < close && text.charAt(end) != ',') end++;
+            int bits = input ? (int) Long.parseLong(text.substring(start, end))
+                : Float.floatToIntBits(Float.parseFloat(text.substring(start, end)));
+            synchronized (sentX) {
+                for (int k = 0; k < RING; k++) {
+                    int i = (sentPos - 1 - k + RING) % RING;
+                    if (sentAt[i] != 0 && sentX[i] == bits) {
+                        long latency = now - sentAt[i];
+                        stateTotal.record(latency);
+                        stateInterval.record(latency);
+                        sentAt[i] = 0;
+                        return;
+                    }
+                }
+            }
+        }
+
+        // 예외가 나가면 scheduleAtFixedRate 가 조용히 멈추므로 여기서 잡음
+        void tick() {
+            try {
+                step();
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+            }
+        }
+
+        private void step() {
+            WebSocket w = ws;
+            String id = playerId;
+            if (w == null || id == null || stopping) return;
+            double t = ticks++ / (double) hz;
+            float x = (float) (cx + radius * Math.cos(omega * t));
+            float y = (float) (cy + radius * Math.sin(omega * t));
+            float vx = (float) (-radius * omega * Math.sin(omega * t));
+            float vy = (float) (radius * omega * Math.cos(omega * t));
+
+            long now = System.nanoTime();
+            if (input) {
+                // 원의 접선 방향으로 이동 입력 (위치는 서버가 계산)
+                float len = (float) Math.sqrt(vx * vx + vy * vy);
+                long seq = ++inputSeq;
+                send("{\"type\":\"input\",\"seq\":" + seq + ",\"mx\":" + vx / len + ",\"my\":" + vy / len + "}", false);
+                synchronized (sentX) {
+                    sentX[sentPos] = (int) seq;
+                    sentAt[sentPos] = now;
+                    sentPos = (sentPos + 1) % RING;
+                }
+            } else if (send("{\"type\":\"playerUpdate\",\"playerId\":\"" + id + "\",\"player\":{\"x\":" + x + ",\"y\":" + y
+                + ",\"vx\":" + vx + ",\"vy\":" + vy + ",\"hp\":100,\"hpMax\":100,\"level\":" + level
+                + ",\"damage\":9,\"fireRate\":" + fireRate + ",\"pierce\":0,\"pickup\":70,\"dashCd\":0,\"dashCdMax\":1.1"
+                + ",\"projSize\":4,\"projCount\":1}}", true)) {
+                synchronized (sentX) {
+                    sentX[sentPos] = Float.floatToIntBits(x);
+                    sentAt[sentPos] = now;
+                    sentPos = (sentPos + 1) % RING;
+                }
+            }
+
+            fireAcc += fireRate / hz;
+            while (fireAcc >= 1) {
+                fireAcc -= 1;
+                double a = ThreadLocalRandom.current().nextDouble(Math.PI * 2);
+                send("{\"type\":\"projectile\",\"playerId\":\"" + id + "\",\"projectile\":{\"x\":" + x + ",\"y\":" + y
+                    + ",\"vx\":" + (float) (Math.cos(a) * 420) + ",\"vy\":" + (float) (Math.sin(a) * 420)
+                    + ",\"r\":4,\"life\":1.35,\"damage\":9,\"pierce\":0,\"knock\":0,\"sentAt\":" + (System.nanoTime() - EPOCH) + "}}", false);
+            }
+
+            if (levelUpEvery > 0 && ticks % ((long) levelUpEvery * hz) == 0) {
+                level++;
+                send("{\"type\":\"levelUp\",\"playerId\":\"" + id + "\",\"level\":" + level + "}", false);
+            }
+        }
+
+        // java.net.http.WebSocket 은 이전 전송이 끝나기 전에 다시 보낼 수 없으므로 이어 붙임
+        // droppable 이면 앞의 전송이 아직 밀려 있을 때 보내지 않고 건너뜀 (다음 playerUpdate 가 최신 위치를 담음)
+        private synchronized boolean send(String text, boolean droppable) {
+            WebSocket w = ws;
+            if (w == null) return false;
+            if (!sending.isDone()) {
+                if (droppable) {
+                    sendSkipped.incrementAndGet();
+                    return false;
+                }
+                sending = sending.thenCompose(ignored -> w.sendText(text, true));
+            } else {
+                sending = w.sendText(text, true);
+            }
+            sending.whenComplete((ignored, e) -> {
+                if (e != null && !stopping) {
+                    errors.incrementAndGet();
+                }
+            });
+            messagesOut.incrementAndGet();
+            charsOut.addAndGet(text.length());
+            return true;
+        }
+
+        // 보내던 것을 마저 보낸 뒤 닫기 프레임
+        synchronized CompletableFuture<?> stop() {
+            if (task != null) task.cancel(false);
+            WebSocket w = ws;
+            if (w == null || w.isOutputClosed()) return CompletableFuture.completedFuture(null);
+            return sending.handle((ignored, e) -> null).thenCompose(ignored -> w.sendClose(WebSocket.NORMAL_CLOSURE, "done"));
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            if (!stopping) {
+                closedByServer.incrementAndGet();
+                System.err.println("❌ 봇 " + index + " 연결 끊김: " + statusCode + " " + reason);
+            }
+            if (task != null) task.cancel(false);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            if (!stopping) {
+                errors.incrementAndGet();
+                closedByServer.incrementAndGet();
+                System.err.println("❌ 봇 " + index + " 오류: " + error);
+            }
+            if (task != null) task.cancel(false);
+        }
+    }
+
+    // 지연 시간 히스토그램: 0.1ms 단위 버킷 (10초 이상은 마지막 버킷), 오래 돌려도 메모리가 늘지 않음
+    private static final class Histogram {
+        private static final int BUCKETS = 100_000;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            counts.incrementAndGet((int) Math.min(BUCKETS, nanos / 100_000));
+            count.incrementAndGet();
+            sum.addAndGet(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        // p(0~1) 가 들어 있는 버킷의 상한 (ms)
+        double percentile(double p) {
+            long n = count.get();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(p * n);
+            long seen = 0;
+            for (int i = 0; i <= BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min((i + 1) / 10.0, max.get() / 1e6);
+                }
+            }
+            return max.get() / 1e6;
+        }
+
+        String summary() {
+            long n = count.get();
+            if (n == 0) return "측정값 없음";
+            return String.format("%d건, 평균 %.2fms, p50 %.1fms, p90 %.1fms, p99 %.1fms, p99.9 %.1fms, 최대 %.1fms",
+                n, sum.get() / 1e6 / n, percentile(0.50), percentile(0.90), percentile(0.99), percentile(0.999), max.get() / 1e6);
+        }
+    }
+
+    // 서버 프로세스의 메모리와 GC (같은 머신의 JVM)
+    private static final class ServerStats {
+        private final long pid;
+        private final String jstat;
+        private boolean jstatFailed = false;
+
+        ServerStats(long pid) {
+            this.pid = pid;
+            Optional<String> java = ProcessHandle.current().info().command();
+            Path bin = java.isPresent() ? Paths.get(java.get()).getParent() : null;
+            this.jstat = bin != null && Files.isExecutable(bin.resolve("jstat")) ? bin.resolve("jstat").toString() : "jstat";
+        }
+
+        // "RSS 312.4MB, GC young 12회 0.21s, full 0회 0.00s, 동시 2회" (알 수 없으면 null)
+        String sample() {
+            if (pid <= 0) return null;
+            StringBuilder sb = new StringBuilder();
+            long rssKb = rssKb();
+            if (rssKb < 0) return "프로세스 " + pid + " 없음 (종료됨?)";
+            sb.append(String.format("RSS %.1fMB", rssKb / 1024.0));
+            Map<String, String> gc = jstat();
+            if (gc != null) {
+                sb.append(String.format(", GC young %s회 %ss, full %s회 %ss",
+                    gc.getOrDefault("YGC", "?"), gc.getOrDefault("YGCT", "?"), gc.getOrDefault("FGC", "?"), gc.getOrDefault("FGCT", "?")));
+                if (gc.containsKey("CGC") && !"-".equals(gc.get("CGC"))) {
+                    sb.append(", 동시 ").append(gc.get("CGC")).append("회");
+                }
+                if (gc.containsKey("O")) {
+                    sb.append(", Old ").append(gc.get("O")).append('%');
+                }
+            }
+            return sb.toString();
+        }
+
+        private long rssKb() {
+            try {
+                for (String line : Files.readAllLines(Paths.get("/proc", String.valueOf(pid), "status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // /proc 가 없거나 프로세스가 끝남
+            }
+            return -1;
+        }
+
+        // jstat -gcutil 의 머리글/값 두 줄을 맵으로
+        private Map<String, String> jstat() {
+            if (jstatFailed) return null;
+            try {
+                Process p = new ProcessBuilder(jstat, "-gcutil", String.valueOf(pid)).redirectErrorStream(true).start();
+                List<String> lines = new ArrayList<>();
+                try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = r.readLine()) != null) lines.add(line.trim());
+                }
+                if (!p.waitFor(5, TimeUnit.SECONDS) || lines.size() < 2) throw new IOException(String.join(" ", lines));
+                String[] names = lines.get(0).split("\\s+");
+                String[] values = lines.get(1).split("\\s+");
+                if (names.length != values.length) throw new IOException(lines.get(1));
+                Map<String, String> map = new HashMap<>();
+                for (int i = 0; i < names.length; i++) map.put(names[i], values[i]);
+                return map;
+            } catch (IOException | InterruptedException e) {
+                jstatFailed = true;
+                System.err.println("⚠️  jstat 을 실행할 수 없어 GC 정보는 생략: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    // 같은 머신에서 돌고 있는 게임 서버 (java ... GameServer 또는 mini-survivors-server*.jar)
+    private static long findServerPid() {
+        long self = ProcessHandle.current().pid();
+        return ProcessHandle.allProcesses()
+            .filter(p -> p.pid() != self)
+            // timeout/sh 같은 감싼 프로세스가 아니라 java 자체
+            .filter(p -> p.info().command().map(c -> c.endsWith("java")).orElse(false))
+            .filter(p -> {
+                String cmd = p.info().commandLine().orElse("");
+                return cmd.contains("com.vampiresurvivor.server.GameServer") || cmd.contains("mini-survivors-server");
+            })
+            .filter(p -> !p.info().commandLine().orElse("").contains("com.vampiresurvivor.tools."))
+            .mapToLong(ProcessHandle::pid)
+            .findFirst()
+            .orElse(-1);
+    }
+
+    // 처음 나오는 key 뒤의 정수 (없으면 fallback)
+    private static long longAfter(String text, String key, long fallback) {
+        int at = text.indexOf(key);
+        if (at < 0) return fallback;
+        int i = at + key.length();
+        long v = 0;
+        boolean any = false;
+        while (i < text.length()) {
+            char c = text.charAt(i++);
+            if (c < '0' || c > '9') break;
+            v = v * 10 + (c - '0');
+            any = true;
+        }
+        return any ? v : fallback;
+    }
+
+    // --key=value / --flag
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                opts.put(arg.substring(2), "true");
+            } else {
+                opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return opts;
+    }
+}
@@ -0,0 +1,564 @@
+package com.vampiresurvivor.tools;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 서버가 남긴 경기 기록(-Dsurvivors.recordDir, 형식은 MatchRecorder.java 주석)을 WebSocket 으로 다시 보내는 도구
+// 기록된 플레이어마다 연결을 하나씩 열고, 기록된 순서와 간격대로 받은 메시지를 그대로 보냄
+// (첫 플레이어가 createRoom 으로 새 방을 만들고 나머지는 그 방으로 입장. 메시지의 playerId 는 새로 받은 ID 로 바꿈)
+// - 데스싱크/스파이크 재현: --speed=1 로 실제 간격 그대로
+// - 벤치마크 부하: --speed=0 이면 기다리지 않고 최대한 빨리 (실제 경기의 메시지 구성 그대로)
+// - --from=초: 그 시각 이전의 마지막 키프레임부터 (그때 들어와 있던 플레이어만 접속, 진행 중이던 판이면 startGame)
+//   그 전의 방 상태는 다시 만들지 않으므로 플레이어가 다음 playerUpdate 를 보낼 때까지는 다를 수 있음
+// 사용법: java -cp mini-survivors-server.jar com.vampiresurvivor.tools.MatchReplay --file=recordings/abc123-20260101-120000.svrec [옵션]
+//   --info                        헤더, 종류별 기록 수, 키프레임 목록만 출력
+//   --at=30                       30초 시점 이전의 마지막 키프레임 상태(JSON)만 출력
+//   --url=ws://localhost:8080     대상 서버
+//   --speed=1                     재생 배속 (0 이면 최대한 빨리)
+//   --from=0 --interval=5         시작 시각(초), 보고 간격(초)
+public final class MatchReplay {
+    // MatchRecorder 와 같은 값
+    private static final int MAGIC = 0x43525653;
+    private static final int RECORD_HEADER = 1 + 2 + 4 + 4;
+    private static final byte JOIN = 1, LEAVE = 2, TEXT = 3, BINARY = 4, KEYFRAME = 5;
+    private static final String[] KIND_NAMES = {"", "JOIN", "LEAVE", "TEXT", "BINARY", "KEYFRAME"};
+    // BinaryCodec: projectile 의 [u8 type][u16 player] (플레이어 번호를 새 번호로 바꿔서 보냄)
+    private static final byte MSG_PROJECTILE = 2;
+    private static final String SUBPROTOCOL = "survivors.bin.v1";
+    // --speed=0 일 때 연결 하나에 밀려 있어도 되는 전송 수
+    private static final int MAX_PENDING = 512;
+
+    private static final AtomicLong messagesOut = new AtomicLong();
+    private static final AtomicLong bytesOut = new AtomicLong();
+    private static final AtomicLong messagesIn = new AtomicLong();
+    private static final AtomicLong errors = new AtomicLong();
+    private static volatile boolean stopping = false;
+
+    private MatchReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        if (!opts.containsKey("file")) {
+            System.err.println("사용법: MatchReplay --file=<기록 파일> [--info] [--at=초] [--url=ws://localhost:8080] [--speed=1] [--from=초]");
+            System.exit(1);
+        }
+        Recording rec;
+        try {
+            rec = new Recording(Paths.get(opts.get("file")));
+        } catch (IOException e) {
+            System.err.println("❌ " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (opts.containsKey("info")) {
+            rec.printInfo();
+            return;
+        }
+        if (opts.containsKey("at")) {
+            long[] keyframe = rec.keyframeBefore((long) (Double.parseDouble(opts.get("at")) * 1000));
+            if (keyframe == null) {
+                System.err.println("그 시각 이전의 키프레임이 없습니다.");
+                System.exit(1);
+            }
+            System.out.println(rec.readText(keyframe[1]));
+            return;
+        }
+        String base = opts.getOrDefault("url", "ws://localhost:8080");
+        double speed = Double.parseDouble(opts.getOrDefault("speed", "1"));
+        double from = Double.parseDouble(opts.getOrDefault("from", "0"));
+        int interval = Integer.parseInt(opts.getOrDefault("interval", "5"));
+        try {
+            replay(rec, base, speed, (long) (from * 1000), interval);
+        } catch (IOException e) {
+            System.err.println("❌ " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void replay(Recording rec, String base, double speed, long fromMillis, int interval) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        Map<Integer, Player> players = new LinkedHashMap<>();
+        Replay replay = new Replay(client, base, rec.roomId);
+
+        System.out.println(String.format("▶️  재생: %s (방 %s, %.1f초, %s) -> %s",
+            rec.path.getFileName(), rec.roomId, rec.durationMillis / 1000.0, speed > 0 ? speed + "배속" : "최대 속도", base));
+        // --from: 그 키프레임 시점에 들어와 있던 플레이어를 먼저 접속시키고 거기서부터 재생
+        long startOffset = rec.dataStart;
+        long baseMillis = 0;
+        if (fromMillis > 0) {
+            long[] keyframe = rec.keyframeBefore(fromMillis);
+            if (keyframe == null) {
+                System.err.println("그 시각 이전의 키프레임이 없어 처음부터 재생합니다.");
+            } else {
+                baseMillis = keyframe[0];
+                startOffset = keyframe[1];
+                Map<Integer, Boolean> present = new LinkedHashMap<>();
+                Map<Integer, String> ids = new HashMap<>();
+                for (Record r = rec.first(); r != null && r.offset < startOffset; r = rec.next(r)) {
+                    if (r.kind == JOIN) {
+                        present.put(r.player, r.payload.get(0) != 0);
+                        ids.put(r.player, rec.joinClientId(r));
+                    } else if (r.kind == LEAVE) {
+                        present.remove(r.player);
+                    }
+                }
+                for (Map.Entry<Integer, Boolean> e : present.entrySet()) {
+                    players.put(e.getKey(), replay.connect(e.getKey(), ids.get(e.getKey()), e.getValue()));
+                }
+                JsonObject state = JsonParser.parseString(rec.readText(startOffset)).getAsJsonObject().getAsJsonObject("state");
+                if (state.get("started").getAsBoolean() && !players.isEmpty()) {
+                    players.values().iterator().next().sendText("{\"type\":\"startGame\"}");
+                }
+            }
+        }
+
+        long startNanos = System.nanoTime();
+        long nextReport = startNanos + interval * 1_000_000_000L;
+        long lastOut = 0, lastIn = 0, lastReportNanos = startNanos;
+        long replayed = 0;
+        Record r = rec.at(startOffset);
+        for (; r != null; r = rec.next(r)) {
+            if (speed > 0) {
+                long due = startNanos + (long) ((r.millis - baseMillis) * 1_000_000 / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+            Player player = players.get(r.player);
+            switch (r.kind) {
+                case JOIN:
+                    players.put(r.player, replay.connect(r.player, rec.joinClientId(r), r.payload.get(0) != 0));
+                    break;
+                case LEAVE:
+                    if (player != null) {
+                        player.close();
+                        players.remove(r.player);
+                    }
+                    break;
+                case TEXT:
+                    if (player != null) {
+                        player.sendText(replay.rewrite(r.text()));
+                        replayed++;
+                    }
+                    break;
+                case BINARY:
+                    if (player != null) {
+                        player.sendBinary(replay.rewrite(r.payload));
+                        replayed++;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                double secs = (now - lastReportNanos) / 1e9;
+                long out = messagesOut.get(), in = messagesIn.get();
+                System.out.println(String.format("[%4.0fs] 기록 %.1f초 지점 | 연결 %d | 보냄 %.0f msg/s, 받음 %.0f msg/s, 오류 %d",
+                    (now - startNanos) / 1e9, r.millis / 1000.0, players.size(), (out - lastOut) / secs, (in - lastIn) / secs, errors.get()));
+                lastOut = out;
+                lastIn = in;
+                lastReportNanos = now;
+                nextReport = now + interval * 1_000_000_000L;
+            }
+        }
+
+        for (Player player : players.values()) {
+            player.flush();
+        }
+        double wall = (System.nanoTime() - startNanos) / 1e9;
+        double recorded = (rec.durationMillis - baseMillis) / 1000.0;
+        System.out.println(String.format("⏹️  완료: 메시지 %d개 (%.1fMB) 를 %.2f초에 보냄 (%.0f msg/s, 기록 %.1f초 대비 %.1f배), 받음 %d개, 오류 %d",
+            replayed, bytesOut.get() / 1e6, wall, replayed / wall, recorded, recorded / wall, messagesIn.get(), errors.get()));
+        stopping = true;
+        List<CompletableFuture<?>> closing = new ArrayList<>();
+        for (Player player : players.values()) {
+            closing.add(player.close());
+        }
+        try {
+            CompletableFuture.allOf(closing.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // 닫기 응답이 늦는 연결은 기다리지 않음
+        }
+    }
+
+    // 재생 중인 방: 첫 연결이 방을 만들고, 기록된 플레이어 번호 -> 새 playerId
+    private static final class Replay {
+        final HttpClient client;
+        final String base;
+        final String recordedRoom;
+        final Map<String, String> playerIds = new HashMap<>();
+        final Map<Integer, Integer> numbers = new HashMap<>();
+        String roomId;
+
+        Replay(HttpClient client, String base, String recordedRoom) {
+            this.client = client;
+            this.base = base;
+            this.recordedRoom = recordedRoom;
+        }
+
+        Player connect(int recorded, String clientId, boolean binary) throws Exception {
+            boolean creator = roomId == null;
+            Player player = new Player(recorded, creator, recordedRoom);
+            URI uri = URI.create(creator ? base : base + "/?room=" + roomId);
+            WebSocket.Builder builder = client.newWebSocketBuilder().connectTimeout(Duration.ofSeconds(10));
+            if (binary) {
+                builder.subprotocols(SUBPROTOCOL);
+            }
+            JsonObject connected;
+            try {
+                builder.buildAsync(uri, player).join();
+                connected = player.connected.get(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw new IOException("접속 실패 (기록 P" + recorded + ", " + uri + "): " + cause, e);
+            }
+            String playerId = connected.get("playerId").getAsString();
+            if (creator) {
+                roomId = connected.get("roomId").getAsString();
+                System.out.println("   방 " + roomId + " 생성 (기록 " + clientId + " 가 호스트)");
+            }
+            playerIds.put("P" + recorded, playerId);
+            numbers.put(recorded, Integer.parseInt(playerId.substring(1)));
+            return player;
+        }
+
+        // "playerId":"P3" -> 새 ID (main.js 는 JSON.stringify 라 공백이 없음)
+        String rewrite(String text) {
+            int at = text.indexOf("\"playerId\":\"");
+            if (at < 0) return text;
+            int start = at + 12;
+            int end = text.indexOf('"', start);
+            if (end < 0) return text;
+            String mapped = playerIds.get(text.substring(start, end));
+            return mapped == null ? text : text.substring(0, start) + mapped + text.substring(end);
+        }
+
+        ByteBuffer rewrite(ByteBuffer payload) {
+            ByteBuffer copy = ByteBuffer.allocate(payload.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+            copy.put(payload.duplicate()).flip();
+            if (copy.remaining() >= 3 && copy.get(0) == MSG_PROJECTILE) {
+                Integer mapped = numbers.get(Short.toUnsignedInt(copy.getShort(1)));
+                if (mapped != null) copy.putShort(1, (short) (int) mapped);
+            }
+            return copy;
+        }
+    }
+
+    // 기록된 플레이어 하나 = 연결 하나
+    private static final class Player implements WebSocket.Listener {
+        final int recorded;
+        final String recordedRoom;
+        // 방을 만드는 연결은 기본 방의 connected 를 받은 뒤 createRoom 을 보내고, 두 번째 connected 를 기다림
+        boolean createRoom;
+        final CompletableFuture<JsonObject> connected = new CompletableFuture<>();
+        volatile WebSocket ws;
+        private final StringBuilder partial = new StringBuilder();
+        private CompletableFuture<WebSocket> sending = CompletableFuture.completedFuture(null);
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Player(int recorded, boolean createRoom, String recordedRoom) {
+            this.recorded = recorded;
+            this.createRoom = createRoom;
+            this.recordedRoom = recordedRoom;
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            ws = webSocket;
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            messagesIn.incrementAndGet();
+            if (!connected.isDone()) {
+                partial.append(data);
+                if (last) {
+                    String text = partial.toString();
+                    partial.setLength(0);
+                    if (text.startsWith("{\"type\":\"connected\"")) {
+                        onConnected(JsonParser.parseString(text).getAsJsonObject());
+                    }
+                }
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        private void onConnected(JsonObject msg) {
+            if (createRoom) {
+                createRoom = false;
+                sendText("{\"type\":\"createRoom\",\"name\":\"replay-" + recordedRoom + "\"}");
+            } else {
+                connected.complete(msg);
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            messagesIn.incrementAndGet();
+            webSocket.request(1);
+            return null;
+        }
+
+        void sendText(String text) {
+            WebSocket w = ws;
+            if (w == null || w.isOutputClosed()) return;
+            bytesOut.addAndGet(text.length());
+            chain(() -> w.sendText(text, true));
+        }
+
+        void sendBinary(ByteBuffer data) {
+            WebSocket w = ws;
+            if (w == null || w.isOutputClosed()) return;
+            bytesOut.addAndGet(data.remaining());
+            chain(() -> w.sendBinary(data, true));
+        }
+
+        // java.net.http.WebSocket 은 이전 전송이 끝나야 다시 보낼 수 있으므로 이어 붙임 (너무 밀리면 기다림)
+        private void chain(java.util.function.Supplier<CompletableFuture<WebSocket>> send) {
+            if (pending.get() > MAX_PENDING) {
+                flush();
+            }
+            pending.incrementAndGet();
+            sending = sending.isDone() ? send.get() : sending.thenCompose(ignored -> send.get());
+            sending.whenComplete((ignored, e) -> {
+                pending.decrementAndGet();
+                if (e != null && !stopping) errors.incrementAndGet();
+            });
+            messagesOut.incrementAndGet();
+        }
+
+        void flush() {
+            try {
+                sending.join();
+            } catch (Exception e) {
+                // 오류는 whenComplete 에서 셈
+            }
+        }
+
+        CompletableFuture<?> close() {
+            WebSocket w = ws;
+            if (w == null || w.isOutputClosed()) return CompletableFuture.completedFuture(null);
+            return sending.handle((ignored, e) -> null).thenCompose(ignored -> w.sendClose(WebSocket.NORMAL_CLOSURE, "replay"));
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            if (!stopping && statusCode != WebSocket.NORMAL_CLOSURE) {
+                System.err.println("❌ 플레이어 P" + recorded + " 연결 끊김: " + statusCode + " " + reason);
+            }
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            connected.completeExceptionally(error);
+            if (!stopping) {
+                errors.incrementAndGet();
+                System.err.println("❌ 플레이어 P" + recorded + " 오류: " + error);
+            }
+        }
+    }
+
+    // 기록 하나 (payload 는 파일 매핑의 조각. 읽을 때는 duplicate)
+    private static final class Record {
+        final long offset;
+        final byte kind;
+        final int player;
+        final long millis;
+        final int length;
+        final ByteBuffer payload;
+
+        Record(long offset, byte kind, int player, long millis, ByteBuffer payload) {
+            this.offset = offset;
+            this.kind = kind;
+            this.player = player;
+            this.millis = millis;
+            this.length = payload.remaining();
+            this.payload = payload;
+        }
+
+        String text() {
+            return StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+        }
+    }
+
+    // 기록 파일 읽기 (통째로 읽기 전용 매핑)
+    private static final class Recording {
+        final Path path;
+        final MappedByteBuffer data;
+        final long startEpochMillis;
+        final int flags, tickHz, simHz, inputHz;
+        final String roomId, roomName;
+        final int dataStart;
+        final long durationMillis;
+        // [시각 ms, 위치]
+        final List<long[]> keyframes = new ArrayList<>();
+
+        Recording(Path path) throws IOException {
+            this.path = path;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            data.order(ByteOrder.LITTLE_ENDIAN);
+            if (data.getInt() != MAGIC) {
+                throw new IOException("경기 기록 파일이 아닙니다: " + path);
+            }
+            int version = Short.toUnsignedInt(data.getShort());
+            if (version != 1) {
+                throw new IOException("지원하지 않는 기록 버전: " + version);
+            }
+            startEpochMillis = data.getLong();
+            flags = data.get();
+            tickHz = Short.toUnsignedInt(data.getShort());
+            simHz = Short.toUnsignedInt(data.getShort());
+            inputHz = Short.toUnsignedInt(data.getShort());
+            roomId = readString(data);
+            roomName = readString(data);
+            dataStart = data.position();
+
+            long last = 0;
+            for (Record r = first(); r != null; r = next(r)) {
+                last = r.millis;
+            }
+            durationMillis = last;
+            loadKeyframes();
+        }
+
+        // .idx 가 있으면 그걸, 없거나 깨졌으면 훑어서 찾음
+        private void loadKeyframes() throws IOException {
+            Path idx = path.resolveSibling(path.getFileName() + ".idx");
+            if (Files.exists(idx)) {
+                ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(idx)).order(ByteOrder.LITTLE_ENDIAN);
+                while (index.remaining() >= 12) {
+                    long millis = index.getInt();
+                    long offset = index.getLong();
+                    if (offset >= data.limit()) break;
+                    keyframes.add(new long[]{millis, offset});
+                }
+                return;
+            }
+            for (Record r = first(); r != null; r = next(r)) {
+                if (r.kind == KEYFRAME) keyframes.add(new long[]{r.millis, r.offset});
+            }
+        }
+
+        Record first() {
+            return at(dataStart);
+        }
+
+        Record next(Record r) {
+            return at(r.offset + RECORD_HEADER + r.length);
+        }
+
+        // 끝(0 으로 채워진 부분)이거나 잘린 기록이면 null
+        Record at(long offset) {
+            if (offset + RECORD_HEADER > data.limit()) return null;
+            int at = (int) offset;
+            byte kind = data.get(at);
+            int length = data.getInt(at + 7);
+            if (kind <= 0 || kind > KEYFRAME || length < 0 || at + RECORD_HEADER + (long) length > data.limit()) return null;
+            ByteBuffer payload = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            payload.position(at + RECORD_HEADER).limit(at + RECORD_HEADER + length);
+            return new Record(offset, kind, Short.toUnsignedInt(data.getShort(at + 1)), Integer.toUnsignedLong(data.getInt(at + 3)), payload.slice().order(ByteOrder.LITTLE_ENDIAN));
+        }
+
+        String readText(long offset) {
+            return at(offset).text();
+        }
+
+        String joinClientId(Record r) {
+            ByteBuffer p = r.payload.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            p.position(1);
+            return readString(p);
+        }
+
+        long[] keyframeBefore(long millis) {
+            long[] found = null;
+            for (long[] k : keyframes) {
+                if (k[0] <= millis) found = k;
+            }
+            return found;
+        }
+
+        void printInfo() {
+            System.out.println("🎬 " + path);
+            System.out.println(String.format("   방 %s (%s), 시작 %s, 길이 %.1f초, %.1fMB",
+                roomId, roomName, Instant.ofEpochMilli(startEpochMillis), durationMillis / 1000.0, data.limit() / (1024.0 * 1024.0)));
+            System.out.println(String.format("   상태 %dHz, 시뮬레이션 %dHz%s%s",
+                tickHz, simHz, (flags & 1) != 0 ? " (서버 권한)" : "", (flags & 2) != 0 ? ", 입력 모드 " + inputHz + "Hz" : ""));
+            long[] counts = new long[KIND_NAMES.length];
+            long[] bytes = new long[KIND_NAMES.length];
+            int players = 0;
+            for (Record r = first(); r != null; r = next(r)) {
+                counts[r.kind]++;
+                bytes[r.kind] += r.length;
+                if (r.kind == JOIN) players++;
+            }
+            StringBuilder sb = new StringBuilder("   기록:");
+            for (int k = 1; k < KIND_NAMES.length; k++) {
+                sb.append(String.format(" %s %d (%.1fKB)", KIND_NAMES[k], counts[k], bytes[k] / 1024.0));
+            }
+            System.out.println(sb + ", 입장한 플레이어 " + players + "명");
+            System.out.println("   키프레임 " + keyframes.size() + "개:");
+            for (long[] k : keyframes) {
+                JsonObject state = JsonParser.parseString(readText(k[1])).getAsJsonObject().getAsJsonObject("state");
+                int enemies = state.has("enemies") ? state.getAsJsonArray("enemies").size() : 0;
+                System.out.println(String.format("     %7.1fs  위치 %-10d 플레이어 %d명, 적 %d, %s",
+                    k[0] / 1000.0, k[1], state.getAsJsonObject("players").size(), enemies,
+                    state.get("started").getAsBoolean() ? "진행 중" : "대기"));
+            }
+        }
+
+        private static String readString(ByteBuffer in) {
+            int length = Short.toUnsignedInt(in.getShort());
+            byte[] utf8 = new byte[length];
+            in.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                opts.put(arg.substring(2), "true");
+            } else {
+                opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return opts;
+    }
+}
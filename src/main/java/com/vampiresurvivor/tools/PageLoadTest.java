@@ -0,0 +1,223 @@
+package com.vampiresurvivor.tools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 동시 페이지 로드 테스트: 한 방의 사람들이 한꺼번에 게임 페이지를 여는 상황
+// 사용자마다 index.html 을 받고, 그 안의 src/href 파일들을 (브라우저처럼) 동시에 받음. 라운드마다 모든 사용자가 같이 시작
+// 사용법: java -cp mini-survivors-server.jar com.vampiresurvivor.tools.PageLoadTest [옵션]
+//   --url=http://localhost:5173   대상 서버
+//   --users=60 --rounds=10        동시 사용자 수, 반복 횟수 (첫 라운드는 워밍업으로 제외)
+//   --gzip                        Accept-Encoding: gzip 을 보냄
+//   --slowClients=2               요청 헤더를 아주 천천히 보내는 연결 수 (느린 모바일 회선 흉내)
+public final class PageLoadTest {
+    private static final Pattern ASSET = Pattern.compile("(?:src|href)=\"([^\"#?:]+)\"");
+
+    private PageLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        String base = opts.getOrDefault("url", "http://localhost:5173");
+        int users = Integer.parseInt(opts.getOrDefault("users", "60"));
+        int rounds = Integer.parseInt(opts.getOrDefault("rounds", "10"));
+        boolean gzip = opts.containsKey("gzip");
+        int slowClients = Integer.parseInt(opts.getOrDefault("slowClients", "0"));
+
+        // 느린 클라이언트: 헤더를 200ms 마다 한 줄씩 보내며 끝내지 않음
+        List<Socket> slow = new ArrayList<>();
+        URI uri = URI.create(base);
+        for (int i = 0; i < slowClients; i++) {
+            Socket s = new Socket(uri.getHost(), uri.getPort() > 0 ? uri.getPort() : 80);
+            s.getOutputStream().write(("GET / HTTP/1.1\r\nHost: " + uri.getHost() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            slow.add(s);
+        }
+        Thread trickle = null;
+        if (!slow.isEmpty()) {
+            trickle = new Thread(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        Thread.sleep(200);
+                        for (Socket s : slow) {
+                            OutputStream out = s.getOutputStream();
+                            out.write("X-Slow: 1\r\n".getBytes(StandardCharsets.US_ASCII));
+                            out.flush();
+                        }
+                    }
+                } catch (InterruptedException | IOException e) {
+                    // 종료
+                }
+            }, "slow-clients");
+            trickle.setDaemon(true);
+            trickle.start();
+            Thread.sleep(300);
+        }
+
+        // 사용자마다 따로 HttpClient (브라우저마다 연결을 따로 맺는 것처럼)
+        HttpClient[] clients = new HttpClient[users];
+        for (int i = 0; i < users; i++) {
+            clients[i] = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        }
+
+        long[] pageLoads = new long[users * rounds];
+        int pageCount = 0;
+        List<Long> requestLatencies = new ArrayList<>();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        long measuredNanos = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            boolean warmup = round == 0 && rounds > 1;
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(users);
+            long[] roundPage = new long[users];
+            long[][] roundRequests = new long[users][];
+            for (int u = 0; u < users; u++) {
+                final int id = u;
+                Thread t = new Thread(() -> {
+                    try {
+                        start.await();
+                        long[] latencies = new long[16];
+                        int[] n = {0};
+                        long t0 = System.nanoTime();
+                        HttpResponse<byte[]> page = timedSend(clients[id], base + "/", gzip, latencies, n);
+                        bytes.addAndGet(page.body().length);
+                        if (page.statusCode() != 200) errors.incrementAndGet();
+                        List<CompletableFuture<Void>> assets = new ArrayList<>();
+                        for (String path : assetPaths(page)) {
+                            long s = System.nanoTime();
+                            assets.add(clients[id].sendAsync(request(base + "/" + path, gzip), HttpResponse.BodyHandlers.ofByteArray())
+                                .thenAccept(res -> {
+                                    long took = System.nanoTime() - s;
+                                    synchronized (latencies) {
+                                        if (n[0] < latencies.length) latencies[n[0]++] = took;
+                                    }
+                                    bytes.addAndGet(res.body().length);
+                                    if (res.statusCode() != 200) errors.incrementAndGet();
+                                }));
+                        }
+                        CompletableFuture.allOf(assets.toArray(new CompletableFuture<?>[0])).join();
+                        roundPage[id] = System.nanoTime() - t0;
+                        synchronized (latencies) {
+                            roundRequests[id] = Arrays.copyOf(latencies, n[0]);
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }, "user-" + u);
+                t.setDaemon(true);
+                t.start();
+            }
+            long roundStart = System.nanoTime();
+            start.countDown();
+            done.await();
+            long roundNanos = System.nanoTime() - roundStart;
+            if (warmup) continue;
+            measuredNanos += roundNanos;
+            for (int u = 0; u < users; u++) {
+                if (roundPage[u] > 0) pageLoads[pageCount++] = roundPage[u];
+                if (roundRequests[u] != null) {
+                    for (long l : roundRequests[u]) requestLatencies.add(l);
+                }
+            }
+        }
+        if (trickle != null) trickle.interrupt();
+        for (Socket s : slow) {
+            s.close();
+        }
+
+        long[] pages = Arrays.copyOf(pageLoads, pageCount);
+        Arrays.sort(pages);
+        long[] requests = new long[requestLatencies.size()];
+        for (int i = 0; i < requests.length; i++) requests[i] = requestLatencies.get(i);
+        Arrays.sort(requests);
+        System.out.println(String.format("%s users=%d rounds=%d gzip=%s slowClients=%d",
+            base, users, rounds, gzip, slowClients));
+        System.out.println(String.format("  페이지 로드 %d회, 요청 %d건, %.0f req/s, 오류 %d",
+            pages.length, requests.length, measuredNanos > 0 ? requests.length / (measuredNanos / 1e9) : 0.0, errors.get()));
+        if (pages.length > 0) {
+            System.out.println(String.format("  페이지 로드 p50 %.2fms, p90 %.2fms, p99 %.2fms, 최대 %.2fms",
+                percentile(pages, 0.50), percentile(pages, 0.90), percentile(pages, 0.99), pages[pages.length - 1] / 1e6));
+        }
+        if (requests.length > 0) {
+            System.out.println(String.format("  요청       p50 %.2fms, p90 %.2fms, p99 %.2fms, 최대 %.2fms",
+                percentile(requests, 0.50), percentile(requests, 0.90), percentile(requests, 0.99), requests[requests.length - 1] / 1e6));
+        }
+    }
+
+    private static HttpResponse<byte[]> timedSend(HttpClient client, String url, boolean gzip, long[] latencies, int[] n)
+            throws IOException, InterruptedException {
+        long s = System.nanoTime();
+        HttpResponse<byte[]> res = client.send(request(url, gzip), HttpResponse.BodyHandlers.ofByteArray());
+        synchronized (latencies) {
+            latencies[n[0]++] = System.nanoTime() - s;
+        }
+        return res;
+    }
+
+    // index.html 안의 같은 서버 파일 경로 (gzip 이면 압축을 풀지 않고 찾을 수 없으므로 기본 목록)
+    private static Set<String> assetPaths(HttpResponse<byte[]> page) {
+        Set<String> paths = new LinkedHashSet<>();
+        if (page.headers().firstValue("Content-Encoding").isPresent()) {
+            paths.add("main.js");
+            paths.add("style.css");
+            return paths;
+        }
+        Matcher m = ASSET.matcher(new String(page.body(), StandardCharsets.UTF_8));
+        while (m.find()) {
+            String path = m.group(1);
+            paths.add(path.startsWith("/") ? path.substring(1) : path);
+        }
+        return paths;
+    }
+
+    private static HttpRequest request(String url, boolean gzip) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET();
+        if (gzip) b.header("Accept-Encoding", "gzip");
+        return b.build();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int i = (int) Math.min(sorted.length - 1, Math.floor(p * sorted.length));
+        return sorted[i] / 1e6;
+    }
+
+    // --key=value / --flag
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                opts.put(arg.substring(2), "true");
+            } else {
+                opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return opts;
+    }
+}
@@ -0,0 +1,143 @@
+package com.vampiresurvivor.tools;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 게임 파일 서버 부하 테스트
+// 사용법: java -cp mini-survivors-server.jar com.vampiresurvivor.tools.StaticLoadTest [옵션]
+//   --url=http://localhost:5173   대상 서버
+//   --paths=/,/main.js,/style.css 요청할 경로 (돌아가며 요청)
+//   --threads=16 --seconds=10     동시 요청 수, 측정 시간 (앞의 2초는 워밍업)
+//   --gzip                        Accept-Encoding: gzip 을 보냄
+//   --revalidate                  첫 응답의 ETag 로 If-None-Match 를 보냄 (브라우저 새로고침 흉내)
+public final class StaticLoadTest {
+    private StaticLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        String base = opts.getOrDefault("url", "http://localhost:5173");
+        String[] paths = opts.getOrDefault("paths", "/,/main.js,/style.css").split(",");
+        int threads = Integer.parseInt(opts.getOrDefault("threads", "16"));
+        int seconds = Integer.parseInt(opts.getOrDefault("seconds", "10"));
+        boolean gzip = opts.containsKey("gzip");
+        boolean revalidate = opts.containsKey("revalidate");
+        int warmupSeconds = Math.min(2, seconds / 2);
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        // 경로별 ETag (revalidate 모드)
+        String[] etags = new String[paths.length];
+        if (revalidate) {
+            for (int i = 0; i < paths.length; i++) {
+                HttpResponse<byte[]> res = client.send(request(base + paths[i], gzip, null), HttpResponse.BodyHandlers.ofByteArray());
+                etags[i] = res.headers().firstValue("ETag").orElse(null);
+            }
+        }
+
+        AtomicLong requests = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong notModified = new AtomicLong();
+        long[][] latencies = new long[threads][];
+        int[] latencyCounts = new int[threads];
+        long warmupEnd = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+        long end = warmupEnd + (seconds - warmupSeconds) * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            latencies[t] = new long[1 << 16];
+            Thread worker = new Thread(() -> {
+                int k = id;
+                try {
+                    while (true) {
+                        long start = System.nanoTime();
+                        if (start >= end) break;
+                        int p = k++ % paths.length;
+                        try {
+                            HttpResponse<byte[]> res = client.send(request(base + paths[p], gzip, etags[p]), HttpResponse.BodyHandlers.ofByteArray());
+                            long took = System.nanoTime() - start;
+                            if (start < warmupEnd) continue;
+                            if (res.statusCode() == 304) {
+                                notModified.incrementAndGet();
+                            } else if (res.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                            requests.incrementAndGet();
+                            bytes.addAndGet(res.body().length);
+                            if (latencyCounts[id] == latencies[id].length) {
+                                latencies[id] = Arrays.copyOf(latencies[id], latencies[id].length * 2);
+                            }
+                            latencies[id][latencyCounts[id]++] = took;
+                        } catch (Exception e) {
+                            if (start >= warmupEnd) errors.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+
+        int total = 0;
+        for (int c : latencyCounts) total += c;
+        long[] all = new long[total];
+        int pos = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencies[t], 0, all, pos, latencyCounts[t]);
+            pos += latencyCounts[t];
+        }
+        Arrays.sort(all);
+        double measured = seconds - warmupSeconds;
+        System.out.println(String.format("%s paths=%s threads=%d gzip=%s revalidate=%s",
+            base, String.join(",", paths), threads, gzip, revalidate));
+        System.out.println(String.format("  %.0f req/s, %.1f MB/s, 304 %d, 오류 %d",
+            requests.get() / measured, bytes.get() / measured / 1e6, notModified.get(), errors.get()));
+        if (total > 0) {
+            System.out.println(String.format("  지연 p50 %.2fms, p90 %.2fms, p99 %.2fms, 최대 %.2fms",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), all[total - 1] / 1e6));
+        }
+    }
+
+    private static HttpRequest request(String url, boolean gzip, String etag) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (gzip) b.header("Accept-Encoding", "gzip");
+        if (etag != null) b.header("If-None-Match", etag);
+        return b.build();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int i = (int) Math.min(sorted.length - 1, Math.floor(p * sorted.length));
+        return sorted[i] / 1e6;
+    }
+
+    // --key=value / --flag
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                opts.put(arg.substring(2), "true");
+            } else {
+                opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return opts;
+    }
+}